@@ -17,7 +17,6 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -26,10 +25,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
@@ -43,6 +46,7 @@ import za.ac.sun.cs.coastal.diver.DiverFactory;
 import za.ac.sun.cs.coastal.diver.DiverFactory.DiverManager;
 import za.ac.sun.cs.coastal.diver.SymbolicState;
 import za.ac.sun.cs.coastal.instrument.InstrumentationClassManager;
+import za.ac.sun.cs.coastal.instrument.agent.InstrumentationAgent;
 import za.ac.sun.cs.coastal.messages.Broker;
 import za.ac.sun.cs.coastal.messages.FreqTuple;
 import za.ac.sun.cs.coastal.messages.TimeTuple;
@@ -50,11 +54,16 @@ import za.ac.sun.cs.coastal.messages.Tuple;
 import za.ac.sun.cs.coastal.observers.ObserverFactory;
 import za.ac.sun.cs.coastal.observers.ObserverFactory.ObserverManager;
 import za.ac.sun.cs.coastal.pathtree.PathTree;
+import za.ac.sun.cs.coastal.solver.Solver;
+import za.ac.sun.cs.coastal.solver.SolverService;
 import za.ac.sun.cs.coastal.strategy.StrategyFactory;
 import za.ac.sun.cs.coastal.surfer.SurferFactory;
 import za.ac.sun.cs.coastal.surfer.SurferFactory.SurferManager;
 import za.ac.sun.cs.coastal.symbolic.Execution;
 import za.ac.sun.cs.coastal.symbolic.Input;
+import za.ac.sun.cs.coastal.symbolic.InputQueue;
+import za.ac.sun.cs.coastal.symbolic.Path;
+import za.ac.sun.cs.coastal.symbolic.VisitedInputs;
 
 /**
  * A COASTAL analysis run. The main function (or some outside client) constructs
@@ -108,27 +117,9 @@ public class COASTAL {
 	// ======================================================================
 
 	/**
-	 * Whether or not ALL classes should be instrumented.
-	 * 
-	 * At the moment, this is not an option because java.* classes cannot be
-	 * instrumented in the way that the instrumentation is implemented.
-	 */
-	private boolean instrumentEverything = false;
-
-	/**
-	 * Whether or not ALL classes with no package should be instrumented.
-	 */
-	private boolean instrumentPackageless = false;
-
-	/**
-	 * A list of all prefixes of classes that will be instrumented.
+	 * The classes that will be instrumented.
 	 */
-	private final List<String> prefixesToInstrument = new ArrayList<>();
-
-	/**
-	 * A list of all full class names that will be instrumented.
-	 */
-	private final List<String> fullNamesToInstrument = new ArrayList<>();
+	private final TargetMatcher targetMatcher = new TargetMatcher();
 
 	/**
 	 * A list of all triggers that switch on symbolic execution.
@@ -224,7 +215,33 @@ public class COASTAL {
 		/**
 		 * The current number of threads.
 		 */
-		private int threadCount = 0;
+		private final AtomicInteger threadCount = new AtomicInteger(0);
+
+		/**
+		 * The number of threads that are currently waiting for work.
+		 */
+		private final AtomicInteger waitingCount = new AtomicInteger(0);
+
+		/**
+		 * Whether or not one of the threads should retire when it next asks for work.
+		 */
+		private final AtomicBoolean retirementPending = new AtomicBoolean(false);
+
+		/**
+		 * The number of components (and therefore threads) of each task.
+		 */
+		private int componentCount = 0;
+
+		/**
+		 * The number of consecutive ticks during which more threads seemed necessary.
+		 */
+		private int shortageTicks = 0;
+
+		/**
+		 * The number of consecutive ticks during which fewer threads seemed
+		 * sufficient.
+		 */
+		private int surplusTicks = 0;
 
 		/**
 		 * Construct a new task summary.
@@ -258,8 +275,19 @@ public class COASTAL {
 		 * @return the new task(s) as an array
 		 */
 		public Task[] create(COASTAL coastal) {
-			threadCount++;
-			return factory.createTask(coastal, manager);
+			threadCount.incrementAndGet();
+			Task[] components = factory.createTask(coastal, manager);
+			componentCount = components.length;
+			return components;
+		}
+
+		/**
+		 * Return the factory for this kind of task.
+		 * 
+		 * @return the task factory
+		 */
+		public TaskFactory getFactory() {
+			return factory;
 		}
 
 		/**
@@ -304,7 +332,48 @@ public class COASTAL {
 		 * @return current number of threads
 		 */
 		public int getThreadCount() {
-			return threadCount;
+			return threadCount.get();
+		}
+
+		/**
+		 * Return the number of threads that are currently waiting for work.
+		 * 
+		 * @return number of waiting threads
+		 */
+		public int getWaitingCount() {
+			return waitingCount.get();
+		}
+
+		/**
+		 * Check whether the number of threads of this kind of task may be adjusted
+		 * while the analysis runs. This is only possible for tasks that consist of a
+		 * single component.
+		 * 
+		 * @return {@code true} if and only if threads may be added or retired
+		 */
+		public boolean isElastic() {
+			return (initThreads > 0) && (componentCount == 1);
+		}
+
+		/**
+		 * Ask one of the threads to retire when it next asks for work.
+		 */
+		public void requestRetirement() {
+			retirementPending.set(true);
+		}
+
+		/**
+		 * Check whether the current thread should retire. If so, the thread count is
+		 * decremented.
+		 * 
+		 * @return {@code true} if and only if the caller should retire
+		 */
+		public boolean retire() {
+			if (retirementPending.compareAndSet(true, false)) {
+				threadCount.decrementAndGet();
+				return true;
+			}
+			return false;
 		}
 
 	}
@@ -407,22 +476,22 @@ public class COASTAL {
 	/**
 	 * Cache of all diver models that have been enqueued.
 	 */
-	protected final Set<String> visitedDiverInputs = Collections.synchronizedSet(new HashSet<>());
+	protected final VisitedInputs visitedDiverInputs;
 
 	/**
 	 * A queue of models produced by strategies and consumed by divers.
 	 */
-	private final BlockingQueue<Input> diverInputQueue;
+	private final InputQueue diverInputQueue;
 
 	/**
 	 * Cache of all surfer models that have been enqueued.
 	 */
-	protected final Set<String> visitedSurferInputs = Collections.synchronizedSet(new HashSet<>());
+	protected final VisitedInputs visitedSurferInputs;
 
 	/**
 	 * A queue of models produced by strategies and consumed by surfers.
 	 */
-	private final BlockingQueue<Input> surferInputQueue;
+	private final InputQueue surferInputQueue;
 
 	/**
 	 * A queue of executions produced by divers and consumed by strategies.
@@ -434,6 +503,29 @@ public class COASTAL {
 	 */
 	private final BlockingQueue<Execution> traceQueue;
 
+	/**
+	 * Whether or not traces are dropped when the trace queue is full. If not,
+	 * surfers wait until there is space in the queue.
+	 */
+	private final boolean dropTraces;
+
+	/**
+	 * Accumulator of the time (in milliseconds) that divers waited for space in
+	 * the path condition queue.
+	 */
+	private final AtomicLong pcStallTime = new AtomicLong(0);
+
+	/**
+	 * Accumulator of the time (in milliseconds) that surfers waited for space in
+	 * the trace queue.
+	 */
+	private final AtomicLong traceStallTime = new AtomicLong(0);
+
+	/**
+	 * Number of traces dropped because the trace queue was full.
+	 */
+	private final AtomicLong droppedTraceCount = new AtomicLong(0);
+
 	// ======================================================================
 	//
 	// TIMING INFORMATION
@@ -461,6 +553,17 @@ public class COASTAL {
 	 */
 	private final long timeLimit;
 
+	/**
+	 * The number of milliseconds between ticks.
+	 */
+	private static final long TICK_INTERVAL = 500;
+
+	/**
+	 * The thread that publishes ticks and enforces the time limit while the
+	 * analysis runs.
+	 */
+	private ScheduledExecutorService clock = null;
+
 	// ======================================================================
 	//
 	// TASK MANAGEMENT
@@ -488,7 +591,51 @@ public class COASTAL {
 	 * A list of outstanding tasks.
 	 */
 	// private final List<Future<Void>> futures;
-	private final List<Thread> threads = new ArrayList<>();
+
+	/**
+	 * The executor that runs the task components. Depending on the setting
+	 * {@code coastal.settings.virtual-threads}, each component runs in a virtual
+	 * thread or in a platform thread.
+	 */
+	private ExecutorService taskExecutor = null;
+
+	/**
+	 * Whether or not task components run in virtual threads (if the JVM supports
+	 * them).
+	 */
+	private final boolean virtualThreads;
+
+	/**
+	 * The number of milliseconds to wait for task components to terminate once
+	 * they have been cancelled, before they are interrupted again.
+	 */
+	private static final long TERMINATION_TIMEOUT = 500;
+
+	/**
+	 * The task summary of the task that runs on the current thread.
+	 */
+	private final ThreadLocal<TaskInfo> currentTask = new ThreadLocal<>();
+
+	/**
+	 * Whether or not the number of threads is adjusted while the analysis runs.
+	 */
+	private final boolean elasticThreads;
+
+	/**
+	 * The number of consecutive ticks that a shortage or surplus of threads must
+	 * persist before a thread is added or retired.
+	 */
+	private static final int ELASTIC_PATIENCE = 2;
+
+	/**
+	 * Number of threads added while the analysis was running.
+	 */
+	private final AtomicLong threadsAdded = new AtomicLong(0);
+
+	/**
+	 * Number of threads retired while the analysis was running.
+	 */
+	private final AtomicLong threadsRetired = new AtomicLong(0);
 
 	// ======================================================================
 	//
@@ -608,14 +755,30 @@ public class COASTAL {
 		pathTree = new PathTree(this);
 		classManager = new InstrumentationClassManager(this, System.getProperty("java.class.path"));
 		parseConfig();
+		if (classManager.isAgentMode()) {
+			InstrumentationAgent.activate(this);
+		}
+		Path.setLean(getConfig().getBoolean("coastal.settings.lean-paths", false));
 		// QUEUES
-		diverInputQueue = new PriorityBlockingQueue<>(50, (Input i1, Input i2) -> i1.getPriority() - i2.getPriority());
-		surferInputQueue = new PriorityBlockingQueue<>(50, (Input i1, Input i2) -> i1.getPriority() - i2.getPriority());
-		pcQueue = new LinkedBlockingQueue<>();
-		traceQueue = new LinkedBlockingQueue<>();
+		long bloomBits = getConfig().getLong("coastal.settings.visited-bloom-bits", 0, 0, Long.MAX_VALUE);
+		visitedDiverInputs = new VisitedInputs(bloomBits);
+		visitedSurferInputs = new VisitedInputs(bloomBits);
+		int shardCount = getConfig().getInt("coastal.settings.queue-shards", 1, 0, 1024);
+		if (shardCount == 0) {
+			shardCount = Runtime.getRuntime().availableProcessors();
+		}
+		diverInputQueue = new InputQueue(shardCount);
+		surferInputQueue = new InputQueue(shardCount);
+		int pcLimit = getConfig().getInt("coastal.settings.pc-queue-limit", 0, 0, Integer.MAX_VALUE);
+		pcQueue = new LinkedBlockingQueue<>((pcLimit == 0) ? Integer.MAX_VALUE : pcLimit);
+		int traceLimit = getConfig().getInt("coastal.settings.trace-queue-limit", 0, 0, Integer.MAX_VALUE);
+		traceQueue = new LinkedBlockingQueue<>((traceLimit == 0) ? Integer.MAX_VALUE : traceLimit);
+		dropTraces = getConfig().getBoolean("coastal.settings.drop-traces", false);
 		// TIMING INFORMATION
 		timeLimit = getConfig().getLongMaxed("coastal.settings.time-limit");
 		// TASK MANAGEMENT
+		elasticThreads = getConfig().getBoolean("coastal.settings.elastic-threads", false);
+		virtualThreads = getConfig().getBoolean("coastal.settings.virtual-threads", false);
 		// maxThreads = getConfig().getInt("coastal.settings.max-threads", 32, 2,
 		// Short.MAX_VALUE);
 		// executor = Executors.newCachedThreadPool();
@@ -644,14 +807,14 @@ public class COASTAL {
 			String instrument = instr.trim();
 			if (instrument.length() > 0) {
 				if (instrument.equals("*")) {
-					instrumentEverything = true;
+					targetMatcher.addEverything();
 				} else if (instrument.equals("*.*")) {
-					instrumentPackageless = true;
+					targetMatcher.addPackageless();
 				} else if (instrument.endsWith(".*")) {
-					prefixesToInstrument.add(instrument.substring(0, instrument.length() - 1));
+					targetMatcher.addPrefix(instrument.substring(0, instrument.length() - 1));
 				} else {
-					fullNamesToInstrument.add(instrument);
-					prefixesToInstrument.add(instrument + "$");
+					targetMatcher.addFullName(instrument);
+					targetMatcher.addPrefix(instrument + "$");
 				}
 			}
 		}
@@ -1431,8 +1594,8 @@ public class COASTAL {
 
 	/**
 	 * Check is a potential target is an actual target. The potential target is
-	 * simply a class name that is compared to all known targets to see if any are
-	 * prefixes of the potential target.
+	 * simply a class name (with dots or slashes) that is compared to all known
+	 * targets to see if any are prefixes of the potential target.
 	 * 
 	 * @param potentialTarget
 	 *                        the name of class
@@ -1440,26 +1603,7 @@ public class COASTAL {
 	 *         target
 	 */
 	public boolean isTarget(String potentialTarget) {
-		if (instrumentEverything) {
-			return true;
-		}
-		if (potentialTarget.indexOf('/') != -1) {
-			potentialTarget = potentialTarget.replaceAll("/", ".");
-		}
-		if (instrumentPackageless && (potentialTarget.indexOf('.') == -1)) {
-			return true;
-		}
-		for (String target : prefixesToInstrument) {
-			if (potentialTarget.startsWith(target)) {
-				return true;
-			}
-		}
-		for (String target : fullNamesToInstrument) {
-			if (potentialTarget.equals(target)) {
-				return true;
-			}
-		}
-		return false;
+		return targetMatcher.matches(potentialTarget);
 	}
 
 	/**
@@ -1856,15 +2000,11 @@ public class COASTAL {
 	 */
 	public int addDiverInputs(List<Input> inputs) {
 		int n = 0;
-		try {
-			for (Input in : inputs) {
-				if (visitedDiverInputs.add(in.toString())) {
-					diverInputQueue.put(in);
-					n++;
-				}
+		for (Input in : inputs) {
+			if (visitedDiverInputs.add(in)) {
+				diverInputQueue.put(in);
+				n++;
 			}
-		} catch (InterruptedException e) {
-			e.printStackTrace();
 		}
 		return n;
 	}
@@ -1881,7 +2021,7 @@ public class COASTAL {
 		if (coastalDone.get()) {
 			return Input.DONE_INPUT;
 		} else {
-			return diverInputQueue.take();
+			return take(diverInputQueue::take, true);
 		}
 	}
 
@@ -1894,13 +2034,9 @@ public class COASTAL {
 	 *                   the very first model to add
 	 */
 	public void addFirstModel(Input firstInput) {
-		try {
-			surferInputQueue.put(firstInput);
-			diverInputQueue.put(firstInput);
-			work.incrementAndGet();
-		} catch (InterruptedException e1) {
-			e1.printStackTrace();
-		}
+		surferInputQueue.put(firstInput);
+		diverInputQueue.put(firstInput);
+		work.incrementAndGet();
 	}
 
 	// SURFER MODEL QUEUE
@@ -1914,6 +2050,20 @@ public class COASTAL {
 		return surferInputQueue.size();
 	}
 
+	/**
+	 * Wait until the surfer model queue holds at most a given number of models.
+	 * This allows strategies to avoid producing models faster than the surfers
+	 * can consume them.
+	 * 
+	 * @param limit
+	 *              the maximum queue length
+	 * @throws InterruptedException
+	 *                              if the thread was interrupted while waiting
+	 */
+	public void awaitSurferModelQueueLength(int limit) throws InterruptedException {
+		surferInputQueue.awaitSize(limit);
+	}
+
 	/**
 	 * Add a list of models to the surfer model queue. Only those models that have
 	 * not been enqueued before are added to the queue.
@@ -1924,15 +2074,11 @@ public class COASTAL {
 	 */
 	public int addSurferInputs(List<Input> inputs) {
 		int n = 0;
-		try {
-			for (Input input : inputs) {
-				if (visitedSurferInputs.add(input.toString())) {
-					surferInputQueue.put(input);
-					n++;
-				}
+		for (Input input : inputs) {
+			if (visitedSurferInputs.add(input)) {
+				surferInputQueue.put(input);
+				n++;
 			}
-		} catch (InterruptedException e) {
-			e.printStackTrace();
 		}
 		return n;
 	}
@@ -1946,13 +2092,9 @@ public class COASTAL {
 	 * @return {@code true} if the model has been added successfully
 	 */
 	public boolean addSurferModel(Input input) {
-		try {
-			if (visitedSurferInputs.add(input.toString())) {
-				surferInputQueue.put(input);
-				return true;
-			}
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+		if (visitedSurferInputs.add(input)) {
+			surferInputQueue.put(input);
+			return true;
 		}
 		return false;
 	}
@@ -1966,7 +2108,7 @@ public class COASTAL {
 	 *                              interrupted
 	 */
 	public Input getNextSurferInput() throws InterruptedException {
-		return surferInputQueue.take();
+		return take(surferInputQueue::take, true);
 	}
 
 	// PATH CONDITION QUEUE
@@ -1981,7 +2123,9 @@ public class COASTAL {
 	}
 
 	/**
-	 * Add a new entry to the diver queue of executions.
+	 * Add a new entry to the diver queue of executions. If the queue is full, the
+	 * caller waits until a strategy has removed an entry. (Each entry represents
+	 * outstanding work, so entries are never dropped.)
 	 * 
 	 * @param execution
 	 *                  the execution to add
@@ -1990,9 +2134,12 @@ public class COASTAL {
 	 */
 	public void addPc(Execution execution) throws InterruptedException {
 		if (execution == null) {
-			pcQueue.put(Execution.NULL);
-		} else {
+			execution = Execution.NULL;
+		}
+		if (!pcQueue.offer(execution)) {
+			long t0 = System.currentTimeMillis();
 			pcQueue.put(execution);
+			pcStallTime.addAndGet(System.currentTimeMillis() - t0);
 		}
 	}
 
@@ -2005,7 +2152,7 @@ public class COASTAL {
 	 *                              interrupted
 	 */
 	public Execution getNextPc() throws InterruptedException {
-		return pcQueue.take();
+		return take(pcQueue::take, true);
 	}
 
 	// TRACE QUEUE
@@ -2020,7 +2167,11 @@ public class COASTAL {
 	}
 
 	/**
-	 * Add a new entry to the surfer queue of executions.
+	 * Add a new entry to the surfer queue of executions. If the queue is full, the
+	 * entry is either dropped or the caller waits until a strategy has removed an
+	 * entry, depending on the setting {@code coastal.settings.drop-traces}. Like a
+	 * path condition, each entry carries a unit of outstanding work, which is
+	 * released when the entry is dropped.
 	 * 
 	 * @param execution
 	 *                  the execution to add
@@ -2028,9 +2179,17 @@ public class COASTAL {
 	 */
 	public void addTrace(Execution execution) throws InterruptedException {
 		if (execution == null) {
-			traceQueue.put(Execution.NULL);
-		} else {
-			traceQueue.put(execution);
+			execution = Execution.NULL;
+		}
+		if (!traceQueue.offer(execution)) {
+			if (dropTraces) {
+				droppedTraceCount.incrementAndGet();
+				updateWork(-1);
+			} else {
+				long t0 = System.currentTimeMillis();
+				traceQueue.put(execution);
+				traceStallTime.addAndGet(System.currentTimeMillis() - t0);
+			}
 		}
 	}
 
@@ -2043,7 +2202,7 @@ public class COASTAL {
 	 *                              interrupted
 	 */
 	public Execution getNextTrace() throws InterruptedException {
-		return traceQueue.take();
+		return take(traceQueue::take, false);
 	}
 
 	/**
@@ -2068,21 +2227,54 @@ public class COASTAL {
 	// ======================================================================
 
 	/**
-	 * Wait for a change in the status of the workDone flag or until a specified
-	 * time has elapsed.
+	 * Start the clock that publishes a tick every {@link #TICK_INTERVAL}
+	 * milliseconds and that stops the work when the time limit is reached.
+	 */
+	private void startClock() {
+		clock = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "coastal-clock");
+			thread.setDaemon(true);
+			return thread;
+		});
+		clock.scheduleWithFixedDelay(() -> {
+			try {
+				getBroker().publish("tick", this);
+			} catch (RuntimeException x) {
+				log.trace("TICK EXCEPTION", x);
+			}
+		}, TICK_INTERVAL, TICK_INTERVAL, TimeUnit.MILLISECONDS);
+		if (timeLimit < Long.MAX_VALUE / 1000) {
+			clock.schedule(() -> {
+				if (!workDone.get()) {
+					new Banner('@').println("TIME LIMIT REACHED").display(log);
+					stopWork();
+				}
+			}, timeLimit, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Stop the clock. No more ticks are published after this method returns,
+	 * since it waits until the clock thread has terminated.
+	 */
+	private void stopClock() {
+		if (clock != null) {
+			clock.shutdownNow();
+			joinExecutor(clock, "CLOCK", null);
+		}
+	}
+
+	/**
+	 * Wait until the work is done, either because there is no outstanding work
+	 * left, or because the analysis run must stop.
 	 * 
-	 * @param delay
-	 *              time to wait in milliseconds
 	 * @throws InterruptedException
-	 *                              if the thread was interrupted while delaying
+	 *                              if the thread was interrupted while waiting
 	 */
-	private void idle(long delay) throws InterruptedException {
-		if ((System.currentTimeMillis() - startingTime.getTimeInMillis()) / 1000 > timeLimit) {
-			new Banner('@').println("TIME LIMIT REACHED").display(log);
-			stopWork();
-		} else {
-			synchronized (workDone) {
-				workDone.wait(delay);
+	private void awaitWorkDone() throws InterruptedException {
+		synchronized (workDone) {
+			while (!workDone.get()) {
+				workDone.wait();
 			}
 		}
 	}
@@ -2177,6 +2369,14 @@ public class COASTAL {
 			ObserverManager observerManager = (ObserverManager) observer.get(1);
 			observerFactory.createObserver(this, observerManager);
 		}
+		// Instrument the target classes before the first dive (and before the
+		// time limit starts to count down), if requested; the entries of the
+		// on-disk cache can only be reused if the classes are numbered in the
+		// same order in every run, so the cache implies pre-instrumentation
+		if (getConfig().getBoolean("coastal.settings.pre-instrument", false)
+				|| getClassManager().hasDiskCache()) {
+			getClassManager().preInstrument();
+		}
 		// Redirect System.out/System.err
 		if (!getConfig().getBoolean("coastal.settings.echo-output", false)) {
 			System.setOut(NUL);
@@ -2184,19 +2384,21 @@ public class COASTAL {
 		}
 		getBroker().publish("coastal-start", this);
 		getBroker().subscribe("tick", this::tick);
+		if (elasticThreads) {
+			getBroker().subscribe("tick", this::adjustTasks);
+		}
 		getBroker().subscribe("emergency-stop", this::emergencyStop);
 		addFirstModel(new Input());
 		try {
 			// Start surfers, divers, and strategies
 			startTasks();
-			// This main thread spends most of its time in the following loop
-			while (!workDone.get()) {
-				idle(500);
-				getBroker().publish("tick", this);
-			}
+			startClock();
+			// This main thread sleeps until the work is done
+			awaitWorkDone();
 		} catch (InterruptedException e) {
 			log.info(Banner.getBannerLine("main thread interrupted", '!'));
 		} finally {
+			stopClock();
 			getBroker().publish("tock", this);
 			stopTasks();
 		}
@@ -2230,46 +2432,228 @@ public class COASTAL {
 	 * the configuration.
 	 */
 	private void startTasks() {
+		taskExecutor = createTaskExecutor();
 		for (TaskInfo task : tasks) {
 			for (int i = 0; i < task.getInitThreads(); i++) {
-				for (Task taskComponent : task.create(this)) {
-					Thread newThread = new Thread(taskComponent);
-					assert (newThread != null);
-					threads.add(newThread);
-					newThread.start();
-				}
+				startTask(task);
+			}
+		}
+	}
+
+	/**
+	 * Create the executor for the task components. If virtual threads are
+	 * requested and the JVM supports them, each component runs in its own virtual
+	 * thread. Otherwise, the components share a pool of platform threads that
+	 * grows as necessary (the components block on the work queues, so the pool
+	 * cannot be bounded).
+	 * 
+	 * @return the executor for task components
+	 */
+	private ExecutorService createTaskExecutor() {
+		if (virtualThreads) {
+			try {
+				Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) factory.invoke(null);
+			} catch (ReflectiveOperationException x) {
+				log.info("virtual threads not supported, using platform threads");
+			}
+		}
+		return Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "coastal-task-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
 			}
+		});
+	}
+
+	/**
+	 * Start one task of the given kind. Each component of the task runs in its own
+	 * thread.
+	 * 
+	 * @param task
+	 *             the task summary
+	 */
+	private void startTask(final TaskInfo task) {
+		for (final Task taskComponent : task.create(this)) {
+			taskExecutor.execute(() -> {
+				currentTask.set(task);
+				taskComponent.run();
+			});
 		}
 	}
 
 	/**
-	 * Stop the still-executing tasks and the thread manager itself.
+	 * A source of work items, such as the {@code take} method of a queue.
+	 */
+	private interface WorkSource<T> {
+		T take() throws InterruptedException;
+	}
+
+	/**
+	 * Remove the head of a work queue, waiting if necessary. The waiting thread is
+	 * counted so that the number of threads can be adjusted (see
+	 * {@link #adjustTasks(Object)}).
 	 * 
+	 * @param queue
+	 *                 the source to remove an item from
+	 * @param mayRetire
+	 *                 whether or not the calling task may be retired at this point
+	 * @return the head of the queue
 	 * @throws InterruptedException
+	 *                              if the thread was interrupted while waiting or
+	 *                              if the thread must retire
 	 */
-	public void stopTasks() {
-		for (Thread thread : threads) {
-			thread.interrupt();
+	private <T> T take(WorkSource<T> queue, boolean mayRetire) throws InterruptedException {
+		TaskInfo task = currentTask.get();
+		if (task == null) {
+			return queue.take();
+		}
+		if (mayRetire && task.retire()) {
+			threadsRetired.incrementAndGet();
+			log.trace("retiring thread, {} threads left", task.getThreadCount());
+			throw new InterruptedException();
 		}
+		task.waitingCount.incrementAndGet();
 		try {
-			int n = 10;
-			while ((--n > 0) && (Thread.activeCount() > 1)) {
-				Thread.sleep(50);
+			return queue.take();
+		} finally {
+			task.waitingCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Add or retire threads to match the amount of available work. A kind of task
+	 * is short of threads if none of its threads is waiting for work, while its
+	 * work queue holds more items than it has threads. It has a surplus of threads
+	 * if more than one of its threads is waiting for work and its work queue is
+	 * empty. If a shortage or surplus persists for {@link #ELASTIC_PATIENCE}
+	 * ticks, one thread is added or retired, within the bounds set by the
+	 * {@code min-threads} and {@code max-threads} settings. Retired threads stop
+	 * when they next ask for work.
+	 * 
+	 * @param object
+	 *               dummy object
+	 */
+	private void adjustTasks(Object object) {
+		if (workDone.get()) {
+			return;
+		}
+		for (TaskInfo task : tasks) {
+			if (!task.isElastic()) {
+				continue;
 			}
-			if (n == 0) {
-				log.trace("??? not sure if all threads terminated...");
+			int count = task.getThreadCount();
+			int waiting = task.getWaitingCount();
+			int backlog = getBacklog(task);
+			if ((waiting == 0) && (backlog > count) && (count < task.getMaxThreads())) {
+				task.surplusTicks = 0;
+				if (++task.shortageTicks >= ELASTIC_PATIENCE) {
+					task.shortageTicks = 0;
+					startTask(task);
+					threadsAdded.incrementAndGet();
+					log.trace("added thread, {} threads, backlog {}", count + 1, backlog);
+				}
+			} else if ((waiting > 1) && (backlog == 0) && (count > Math.max(1, task.getMinThreads()))) {
+				task.shortageTicks = 0;
+				if (++task.surplusTicks >= ELASTIC_PATIENCE) {
+					task.surplusTicks = 0;
+					task.requestRetirement();
+				}
+			} else {
+				task.shortageTicks = 0;
+				task.surplusTicks = 0;
+			}
+		}
+	}
+
+	/**
+	 * Return the number of items waiting in the work queue of a kind of task.
+	 * 
+	 * @param task
+	 *             the task summary
+	 * @return the length of the work queue
+	 */
+	private int getBacklog(TaskInfo task) {
+		TaskFactory factory = task.getFactory();
+		if (factory instanceof DiverFactory) {
+			return diverInputQueue.size();
+		} else if (factory instanceof SurferFactory) {
+			return surferInputQueue.size();
+		} else {
+			return pcQueue.size() + traceQueue.size();
+		}
+	}
+
+	/**
+	 * Stop the still-executing tasks and the thread manager itself. This method
+	 * returns only once every task has terminated, so that no task uses the
+	 * queues or the solvers after the run is over. If the tasks do not respond to
+	 * the interrupt in time (for example, because they are waiting for a
+	 * solver), the solvers are stopped to release them.
+	 */
+	public void stopTasks() {
+		try {
+			if (taskExecutor != null) {
+				taskExecutor.shutdownNow();
+				joinExecutor(taskExecutor, "TASKS", () -> {
+					SolverService.stop();
+					Solver.stop();
+				});
 			}
-		} catch (InterruptedException e) {
-			e.printStackTrace();
 		} finally {
 			diverInputQueue.clear();
 			surferInputQueue.clear();
 			pcQueue.clear();
 			traceQueue.clear();
+			SolverService.stop();
+			Solver.stop();
 			coastalDone.set(true);
 		}
 	}
 
+	/**
+	 * Wait until all the threads of an executor that has been shut down have
+	 * terminated. The threads are interrupted again every
+	 * {@link #TERMINATION_TIMEOUT} milliseconds, and a warning is logged each time
+	 * the total waiting time doubles.
+	 * 
+	 * @param executor
+	 *                  the executor that has been shut down
+	 * @param name
+	 *                  the name of the threads, used in warnings
+	 * @param onTimeout
+	 *                  action to perform the first time the threads fail to
+	 *                  terminate in time, or {@code null}
+	 * @return {@code true} if all the threads have terminated, {@code false} if
+	 *         the current thread was interrupted while waiting
+	 */
+	private boolean joinExecutor(ExecutorService executor, String name, Runnable onTimeout) {
+		long waited = 0;
+		long nextWarning = TERMINATION_TIMEOUT;
+		try {
+			while (!executor.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				waited += TERMINATION_TIMEOUT;
+				if (waited >= nextWarning) {
+					log.warn("{} STILL RUNNING {} ms AFTER BEING STOPPED", name, waited);
+					nextWarning *= 2;
+				}
+				if ((onTimeout != null) && (waited == TERMINATION_TIMEOUT)) {
+					onTimeout.run();
+				}
+				executor.shutdownNow();
+			}
+			return true;
+		} catch (InterruptedException x) {
+			log.error("INTERRUPTED WHILE WAITING FOR {} TO STOP", name);
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
 	/**
 	 * Perform periodic reporting to the console.
 	 * 
@@ -2327,6 +2711,15 @@ public class COASTAL {
 	private void report(Object object) {
 		getBroker().publish("report", new FreqTuple("COASTAL.diver-models", visitedDiverInputs.size()));
 		getBroker().publish("report", new FreqTuple("COASTAL.surfer-models", visitedSurferInputs.size()));
+		getBroker().publish("report", new TimeTuple("COASTAL.pc-stall-time", pcStallTime.get()));
+		getBroker().publish("report", new TimeTuple("COASTAL.trace-stall-time", traceStallTime.get()));
+		if (dropTraces) {
+			getBroker().publish("report", new Tuple("COASTAL.traces-dropped", droppedTraceCount.get()));
+		}
+		if (elasticThreads) {
+			getBroker().publish("report", new Tuple("COASTAL.threads-added", threadsAdded.get()));
+			getBroker().publish("report", new Tuple("COASTAL.threads-retired", threadsRetired.get()));
+		}
 		getBroker().publish("report", new Tuple("COASTAL.start", startingTime));
 		getBroker().publish("report", new Tuple("COASTAL.stop", stoppingTime));
 		long duration = stoppingTime.getTimeInMillis() - startingTime.getTimeInMillis();
@@ -0,0 +1,190 @@
+/*
+ * This file is part of the COASTAL tool, https://deepseaplatform.github.io/coastal/
+ *
+ * Copyright (c) 2019, Computer Science, Stellenbosch University.  All rights reserved.
+ *
+ * Licensed under GNU Lesser General Public License, version 3.
+ * See LICENSE.md file in the project root for full license information.
+ */
+package za.ac.sun.cs.coastal;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a class is a target, that is, whether it must be
+ * instrumented. The targets are given as class name prefixes and full class
+ * names, and are compiled into a trie. Class names may be given in the usual
+ * form (with dots) or in the internal form (with slashes); slashes are treated
+ * as dots while the trie is walked, so that no new strings are created.
+ *
+ * Decisions are also remembered in a concurrent map, since the same classes
+ * are checked over and over during a run.
+ */
+public class TargetMatcher {
+
+	/**
+	 * Maximum number of decisions that are remembered.
+	 */
+	private static final int MEMO_LIMIT = 1 << 16;
+
+	/**
+	 * Whether all classes are targets.
+	 */
+	private boolean matchEverything = false;
+
+	/**
+	 * Whether all classes without a package are targets.
+	 */
+	private boolean matchPackageless = false;
+
+	/**
+	 * The root of the trie.
+	 */
+	private final Node root = new Node();
+
+	/**
+	 * Decisions made so far, by class name (in either form).
+	 */
+	private final Map<String, Boolean> memo = new ConcurrentHashMap<>();
+
+	/**
+	 * A node of the trie. The children are kept in small parallel arrays, since
+	 * most nodes have only one child.
+	 */
+	private static class Node {
+
+		/**
+		 * Whether a prefix ends at this node.
+		 */
+		boolean isPrefix = false;
+
+		/**
+		 * Whether a full class name ends at this node.
+		 */
+		boolean isFullName = false;
+
+		char[] keys = new char[0];
+
+		Node[] children = new Node[0];
+
+		Node getChild(char key) {
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == key) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node addChild(char key) {
+			Node child = getChild(key);
+			if (child == null) {
+				int n = keys.length;
+				keys = Arrays.copyOf(keys, n + 1);
+				children = Arrays.copyOf(children, n + 1);
+				keys[n] = key;
+				child = children[n] = new Node();
+			}
+			return child;
+		}
+
+	}
+
+	/**
+	 * Make all classes targets.
+	 */
+	public void addEverything() {
+		matchEverything = true;
+		memo.clear();
+	}
+
+	/**
+	 * Make all classes without a package targets.
+	 */
+	public void addPackageless() {
+		matchPackageless = true;
+		memo.clear();
+	}
+
+	/**
+	 * Make all classes whose names start with a given prefix targets.
+	 *
+	 * @param prefix
+	 *               the class name prefix (with dots)
+	 */
+	public void addPrefix(String prefix) {
+		insert(prefix).isPrefix = true;
+		memo.clear();
+	}
+
+	/**
+	 * Make a class target.
+	 *
+	 * @param fullName
+	 *                 the full class name (with dots)
+	 */
+	public void addFullName(String fullName) {
+		insert(fullName).isFullName = true;
+		memo.clear();
+	}
+
+	/**
+	 * Check whether a class is a target.
+	 *
+	 * @param className
+	 *                  the name of the class, with dots or slashes
+	 * @return {@code true} if and only if the class is a target
+	 */
+	public boolean matches(String className) {
+		if (matchEverything) {
+			return true;
+		}
+		Boolean decision = memo.get(className);
+		if (decision == null) {
+			decision = match(className) ? Boolean.TRUE : Boolean.FALSE;
+			if (memo.size() < MEMO_LIMIT) {
+				memo.put(className, decision);
+			}
+		}
+		return decision;
+	}
+
+	private boolean match(String className) {
+		int n = className.length();
+		Node node = root;
+		boolean hasPackage = false;
+		for (int i = 0; i < n; i++) {
+			if ((node != null) && node.isPrefix) {
+				return true;
+			}
+			char c = className.charAt(i);
+			if (c == '/') {
+				c = '.';
+			}
+			if (c == '.') {
+				hasPackage = true;
+			}
+			if (node != null) {
+				node = node.getChild(c);
+			} else if (!matchPackageless || hasPackage) {
+				return false;
+			}
+		}
+		if ((node != null) && (node.isPrefix || node.isFullName)) {
+			return true;
+		}
+		return matchPackageless && !hasPackage;
+	}
+
+	private Node insert(String name) {
+		Node node = root;
+		for (int i = 0, n = name.length(); i < n; i++) {
+			char c = name.charAt(i);
+			node = node.addChild((c == '/') ? '.' : c);
+		}
+		return node;
+	}
+
+}
@@ -419,6 +419,9 @@ public final class SymbolicState extends State {
 	 * Dump the stack of invocation frames to the log.
 	 */
 	private void dumpFrames() {
+		if (!log.isTraceEnabled()) {
+			return;
+		}
 		log.trace("    symbolicState #{} frames #{} instanceData #{}", Integer.toHexString(hashCode()),
 				Integer.toHexString(frames.hashCode()), Integer.toHexString(instanceData.hashCode()));
 		for (Iterator<SymbolicFrame> iter = frames.iterator(); iter.hasNext();) {
@@ -520,6 +523,51 @@ public final class SymbolicState extends State {
 		}
 	}
 
+	/**
+	 * Perform the work that is common to all instructions handled by the
+	 * opcode-specialized callbacks, such as {@link #iadd(int)}. The instruction is
+	 * published on the same topic as for the generic {@link #insn(int, int)}
+	 * callback, so that observers see no difference.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param opcode the instruction opcode
+	 * @return {@code true} if and only if the instruction must be tracked
+	 * @throws COASTALException if the conjunct limit has been reached
+	 */
+	private boolean startInsn(int instr, int opcode) throws COASTALException {
+		if (!getTrackingMode()) {
+			return false;
+		}
+		if (log.isTraceEnabled()) {
+			log.trace("--> {} (offset={})", Bytecodes.toString(opcode), instr);
+		}
+		broker.publishThread("insn", new Tuple(instr, opcode));
+		checkLimitConjuncts();
+		return true;
+	}
+
+	/**
+	 * Perform the work that is common to all local variable instructions handled
+	 * by the opcode-specialized callbacks, such as {@link #iload(int, int)}.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param opcode the instruction opcode
+	 * @param var    the identifier of the local variable
+	 * @return {@code true} if and only if the instruction must be tracked
+	 * @throws COASTALException if the conjunct limit has been reached
+	 */
+	private boolean startVarInsn(int instr, int opcode, int var) throws COASTALException {
+		if (!getTrackingMode()) {
+			return false;
+		}
+		if (log.isTraceEnabled()) {
+			log.trace("--> {} {} (offset={})", Bytecodes.toString(opcode), var, instr);
+		}
+		broker.publishThread("var-insn", new Tuple(instr, opcode, var));
+		checkLimitConjuncts();
+		return true;
+	}
+
 	/**
 	 * Parse a Java type descriptor of a method and count and return the number of
 	 * formal parameters.
@@ -967,7 +1015,9 @@ public final class SymbolicState extends State {
 			path = new Path(path, new Choice(branch, truthValue ? 1 : 0));
 			pendingExtraCondition = null;
 			log.trace("    adding conjunct: {}", conjunct.toString());
-			log.trace("    path is now: {}", path.getPathCondition().toString());
+			if (log.isTraceEnabled()) {
+				log.trace("    path is now: {}", path.getPathCondition());
+			}
 			lastConjunctWasConstant = false;
 		} else {
 			lastConjunctWasConstant = true;
@@ -1014,7 +1064,9 @@ public final class SymbolicState extends State {
 			path = new Path(path, new Choice(branch, cur - min));
 			pendingExtraCondition = null;
 			log.trace("    adding (switch) conjunct: {}", conjunct.toString());
-			log.trace("    path is now: {}", path.getPathCondition().toString());
+			if (log.isTraceEnabled()) {
+				log.trace("    path is now: {}", path.getPathCondition());
+			}
 		}
 	}
 
@@ -1049,7 +1101,9 @@ public final class SymbolicState extends State {
 			path = new Path(path, new Choice(branch, choice));
 			pendingExtraCondition = null;
 			log.trace("    adding (lookup switch) conjunct: {}", conjunct.toString());
-			log.trace("    path is now: {}", path.getPathCondition().toString());
+			if (log.isTraceEnabled()) {
+				log.trace("    path is now: {}", path.getPathCondition());
+			}
 		}
 	}
 
@@ -2645,6 +2699,470 @@ public final class SymbolicState extends State {
 		dumpFrames();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#iadd(int)
+	 */
+	@Override
+	public void iadd(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.IADD)) {
+			SymbolicValue v = pop();
+			push(pop().add(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#ladd(int)
+	 */
+	@Override
+	public void ladd(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LADD)) {
+			SymbolicValue v = pop();
+			push(pop().add(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#fadd(int)
+	 */
+	@Override
+	public void fadd(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.FADD)) {
+			SymbolicValue v = pop();
+			push(pop().add(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#dadd(int)
+	 */
+	@Override
+	public void dadd(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.DADD)) {
+			SymbolicValue v = pop();
+			push(pop().add(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#isub(int)
+	 */
+	@Override
+	public void isub(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.ISUB)) {
+			SymbolicValue v = pop();
+			push(pop().sub(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lsub(int)
+	 */
+	@Override
+	public void lsub(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LSUB)) {
+			SymbolicValue v = pop();
+			push(pop().sub(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#imul(int)
+	 */
+	@Override
+	public void imul(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.IMUL)) {
+			SymbolicValue v = pop();
+			push(pop().mul(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lmul(int)
+	 */
+	@Override
+	public void lmul(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LMUL)) {
+			SymbolicValue v = pop();
+			push(pop().mul(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#fmul(int)
+	 */
+	@Override
+	public void fmul(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.FMUL)) {
+			SymbolicValue v = pop();
+			push(pop().mul(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#dmul(int)
+	 */
+	@Override
+	public void dmul(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.DMUL)) {
+			SymbolicValue v = pop();
+			push(pop().mul(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#iand(int)
+	 */
+	@Override
+	public void iand(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.IAND)) {
+			SymbolicValue v = pop();
+			push(pop().bitand(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#land(int)
+	 */
+	@Override
+	public void land(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LAND)) {
+			SymbolicValue v = pop();
+			push(pop().bitand(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#ior(int)
+	 */
+	@Override
+	public void ior(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.IOR)) {
+			SymbolicValue v = pop();
+			push(pop().bitor(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lor(int)
+	 */
+	@Override
+	public void lor(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LOR)) {
+			SymbolicValue v = pop();
+			push(pop().bitor(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#ixor(int)
+	 */
+	@Override
+	public void ixor(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.IXOR)) {
+			SymbolicValue v = pop();
+			push(pop().bitxor(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lxor(int)
+	 */
+	@Override
+	public void lxor(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LXOR)) {
+			SymbolicValue v = pop();
+			push(pop().bitxor(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#ishl(int)
+	 */
+	@Override
+	public void ishl(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.ISHL)) {
+			SymbolicValue v = pop();
+			push(pop().shl(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lshl(int)
+	 */
+	@Override
+	public void lshl(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LSHL)) {
+			SymbolicValue v = pop();
+			push(pop().shl(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#ishr(int)
+	 */
+	@Override
+	public void ishr(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.ISHR)) {
+			SymbolicValue v = pop();
+			push(pop().ashr(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lshr(int)
+	 */
+	@Override
+	public void lshr(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LSHR)) {
+			SymbolicValue v = pop();
+			push(pop().ashr(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#iushr(int)
+	 */
+	@Override
+	public void iushr(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.IUSHR)) {
+			SymbolicValue v = pop();
+			push(pop().lshr(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lushr(int)
+	 */
+	@Override
+	public void lushr(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.LUSHR)) {
+			SymbolicValue v = pop();
+			push(pop().lshr(v));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#pop(int)
+	 */
+	@Override
+	public void pop(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.POP)) {
+			pop();
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#dup(int)
+	 */
+	@Override
+	public void dup(int instr) throws COASTALException {
+		if (startInsn(instr, Opcodes.DUP)) {
+			push(peek());
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#iload(int, int)
+	 */
+	@Override
+	public void iload(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.ILOAD, var)) {
+			push(getLocal(var));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lload(int, int)
+	 */
+	@Override
+	public void lload(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.LLOAD, var)) {
+			push(getLocal(var));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#fload(int, int)
+	 */
+	@Override
+	public void fload(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.FLOAD, var)) {
+			push(getLocal(var));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#dload(int, int)
+	 */
+	@Override
+	public void dload(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.DLOAD, var)) {
+			push(getLocal(var));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#aload(int, int)
+	 */
+	@Override
+	public void aload(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.ALOAD, var)) {
+			push(getLocal(var));
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#istore(int, int)
+	 */
+	@Override
+	public void istore(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.ISTORE, var)) {
+			setLocal(var, pop());
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#lstore(int, int)
+	 */
+	@Override
+	public void lstore(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.LSTORE, var)) {
+			setLocal(var, pop());
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#fstore(int, int)
+	 */
+	@Override
+	public void fstore(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.FSTORE, var)) {
+			setLocal(var, pop());
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#dstore(int, int)
+	 */
+	@Override
+	public void dstore(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.DSTORE, var)) {
+			setLocal(var, pop());
+			dumpFrames();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#astore(int, int)
+	 */
+	@Override
+	public void astore(int instr, int var) throws COASTALException {
+		if (startVarInsn(instr, Opcodes.ASTORE, var)) {
+			setLocal(var, pop());
+			dumpFrames();
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -2782,6 +3300,76 @@ public final class SymbolicState extends State {
 		dumpFrames();
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#concreteInvoke(int, int,
+	 * java.lang.String, java.lang.String, java.lang.String)
+	 */
+	@Override
+	public void concreteInvoke(int instr, int opcode, String owner, String name, String descriptor)
+			throws COASTALException {
+		if (!getTrackingMode()) {
+			return;
+		}
+		log.trace("--> {} {} {} {} (offset={}, elided)", Bytecodes.toString(opcode), owner, name, descriptor, instr);
+		broker.publishThread("method-insn", new Tuple(instr, opcode, owner, name, descriptor));
+		checkLimitConjuncts();
+		lastInvokingInstruction = instr;
+		for (int n = getArgumentCount(descriptor); n > 0; n--) {
+			pop();
+		}
+		dumpFrames();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#concreteReturn(int)
+	 */
+	@Override
+	public void concreteReturn(int value) {
+		if (getTrackingMode()) {
+			push(new IntegerConstant(value, 32), 32);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#concreteReturn(long)
+	 */
+	@Override
+	public void concreteReturn(long value) {
+		if (getTrackingMode()) {
+			push(new IntegerConstant(value, 64), 64);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#concreteReturn(float)
+	 */
+	@Override
+	public void concreteReturn(float value) {
+		if (getTrackingMode()) {
+			push(new RealConstant(value, 32), 32);
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see za.ac.sun.cs.coastal.symbolic.State#concreteReturn(double)
+	 */
+	@Override
+	public void concreteReturn(double value) {
+		if (getTrackingMode()) {
+			push(new RealConstant(value, 64), 64);
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -2980,7 +3568,9 @@ public final class SymbolicState extends State {
 				long otherAlternative = 1 - lastChoice.getAlternative();
 				path = new Path(path.getParent(), new Choice(lastBranch, otherAlternative));
 				checkLimitConjuncts();
-				log.trace("    path is now: {}", path.getPathCondition().toString());
+				if (log.isTraceEnabled()) {
+					log.trace("    path is now: {}", path.getPathCondition());
+				}
 			}
 		}
 	}
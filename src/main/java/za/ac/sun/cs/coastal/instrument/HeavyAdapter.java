@@ -20,6 +20,10 @@ public class HeavyAdapter extends ClassVisitor {
 
 	private final String name;
 
+	private final TaintAnalysis taintAnalysis;
+
+	private final ReachabilityAnalysis reachabilityAnalysis;
+
 	private final StringWriter swriter = new StringWriter();
 
 	private final PrintWriter pwriter = new PrintWriter(swriter);
@@ -28,6 +32,8 @@ public class HeavyAdapter extends ClassVisitor {
 		super(Opcodes.ASM7, cv);
 		this.coastal = coastal;
 		this.name = name;
+		this.taintAnalysis = coastal.getClassManager().getTaintAnalysis();
+		this.reachabilityAnalysis = coastal.getClassManager().getReachabilityAnalysis();
 	}
 
 	@Override
@@ -51,6 +57,13 @@ public class HeavyAdapter extends ClassVisitor {
 			};
 			mv = new TraceMethodVisitor(mv, p);
 		}
+		String owner = this.name.replace('.', '/');
+		if ((mv != null) && (taintAnalysis != null) && taintAnalysis.isElided(owner, name, desc)) {
+			return mv;
+		}
+		if ((mv != null) && (reachabilityAnalysis != null) && !reachabilityAnalysis.isReachable(owner, name, desc)) {
+			return mv;
+		}
 		if (mv != null) {
 			mv = new HeavyMethodAdapter(coastal, mv, this.name, triggerIndex, name, isStatic, argCount);
 		}
@@ -12,6 +12,10 @@ import za.ac.sun.cs.coastal.symbolic.State;
 
 public class HeavyClassLoader extends ClassLoader {
 
+	static {
+		registerAsParallelCapable();
+	}
+
 	private static final String VM_NAME = "za.ac.sun.cs.coastal.symbolic.VM";
 
 	private static final String COASTAL_EXCEPTION_PREFIX = "za.ac.sun.cs.coastal.symbolic.exceptions.";
@@ -26,7 +30,7 @@ public class HeavyClassLoader extends ClassLoader {
 
 	private final InstrumentationClassManager manager;
 
-	private final SymbolicState symbolicState;
+	private volatile SymbolicState symbolicState;
 
 	public HeavyClassLoader(COASTAL coastal, InstrumentationClassManager manager, SymbolicState symbolicState) {
 		this.coastal = coastal;
@@ -35,6 +39,38 @@ public class HeavyClassLoader extends ClassLoader {
 		this.symbolicState = symbolicState;
 	}
 
+	/**
+	 * Prepare this class loader for another dive. The classes that have already
+	 * been loaded are kept, the new symbolic state is installed in the VM, and
+	 * the static state of the instrumented classes is reset (see
+	 * {@link StaticResetAdapter}).
+	 *
+	 * @param symbolicState
+	 *                      the symbolic state of the next dive
+	 * @throws ReflectiveOperationException
+	 *                                      if the state could not be installed or
+	 *                                      the static state could not be reset; the
+	 *                                      class loader must then not be used again
+	 */
+	public synchronized void reset(SymbolicState symbolicState) throws ReflectiveOperationException {
+		this.symbolicState = symbolicState;
+		Class<?> clas = findLoadedClass(VM_NAME);
+		if (clas == null) {
+			return;
+		}
+		log.trace("> reset symbolic state #{}", Integer.toHexString(symbolicState.hashCode()));
+		clas.getDeclaredMethod("setState", State.class).invoke(null, symbolicState);
+		try {
+			clas.getDeclaredMethod("resetStatics").invoke(null);
+		} catch (InvocationTargetException x) {
+			Throwable cause = x.getCause();
+			if (cause instanceof ReflectiveOperationException) {
+				throw (ReflectiveOperationException) cause;
+			}
+			throw x;
+		}
+	}
+
 	public Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
 		long t = System.currentTimeMillis();
 		manager.startLoad();
@@ -43,74 +79,76 @@ public class HeavyClassLoader extends ClassLoader {
 		return clas;
 	}
 
-	public synchronized Class<?> loadClass0(String name, boolean resolve) throws ClassNotFoundException {
-		// log.trace("> ((symbolicState #{}))",
-		// Integer.toHexString(symbolicState.get().hashCode()));
-		Class<?> clas = findLoadedClass(name);
-		if (clas != null) {
-			log.trace("> loading class {}, found in cache", name);
-			return clas;
-		}
-		if (name.equals(SYMBOLIC_STATE_NAME)) {
-			log.trace("> loading class {} from parent (1)", name);
-			return symbolicState.getClass();
-		} else if (name.equals(STATE_NAME)) {
-			log.trace("> loading class {} from parent (2)", name);
-			return State.class;
-		} else if (name.startsWith(COASTAL_EXCEPTION_PREFIX)) {
-			log.trace("> loading class {} from parent (3)", name);
-			return super.loadClass(name, resolve);
-		}
-		if (name.startsWith("ins.") && coastal.isTarget(name.substring(4))) {
-			String trueName = name.substring(4);
-			log.trace("> loading class {}, identified as target", trueName);
-			byte[] raw = manager.loadHeavyInstrumented(name, trueName);
-			if (raw != null) {
-				log.trace("> defining class {} instrumented as {}", trueName, name);
-				clas = defineClass(name, raw, 0, raw.length);
+	public Class<?> loadClass0(String name, boolean resolve) throws ClassNotFoundException {
+		synchronized (getClassLoadingLock(name)) {
+			// log.trace("> ((symbolicState #{}))",
+			// Integer.toHexString(symbolicState.get().hashCode()));
+			Class<?> clas = findLoadedClass(name);
+			if (clas != null) {
+				log.trace("> loading class {}, found in cache", name);
+				return clas;
 			}
-		} else if (coastal.isTarget(name)) {
-			log.trace("> loading class {}, identified as target", name);
-			byte[] raw = manager.loadHeavyInstrumented(this, name);
-			if (raw != null) {
-				log.trace("> defining class {} instrumented", name);
-				clas = defineClass(name, raw, 0, raw.length);
+			if (name.equals(SYMBOLIC_STATE_NAME)) {
+				log.trace("> loading class {} from parent (1)", name);
+				return symbolicState.getClass();
+			} else if (name.equals(STATE_NAME)) {
+				log.trace("> loading class {} from parent (2)", name);
+				return State.class;
+			} else if (name.startsWith(COASTAL_EXCEPTION_PREFIX)) {
+				log.trace("> loading class {} from parent (3)", name);
+				return super.loadClass(name, resolve);
 			}
-		}
-		if (clas == null) {
-			byte[] raw = manager.loadUninstrumented(name);
-			if (raw != null) {
-				log.trace("> loading class {}, uninstrumented (1)", name);
-				clas = defineClass(name, raw, 0, raw.length);
-			} else if (name.equals(VM_NAME)) {
-				new Banner('@').println("WARNING: VM.class will be shared").trace(log);
+			if (name.startsWith("ins.") && coastal.isTarget(name.substring(4))) {
+				String trueName = name.substring(4);
+				log.trace("> loading class {}, identified as target", trueName);
+				byte[] raw = manager.loadHeavyInstrumented(name, trueName);
+				if (raw != null) {
+					log.trace("> defining class {} instrumented as {}", trueName, name);
+					clas = defineClass(name, raw, 0, raw.length);
+				}
+			} else if (coastal.isTarget(name)) {
+				log.trace("> loading class {}, identified as target", name);
+				byte[] raw = manager.loadHeavyInstrumented(this, name);
+				if (raw != null) {
+					log.trace("> defining class {} instrumented", name);
+					clas = defineClass(name, raw, 0, raw.length);
+				}
 			}
-		}
-		if (clas == null) {
-			clas = findSystemClass(name);
-			if (clas != null) {
-				log.trace("> loading class {}, uninstrumented (2)", name);
+			if (clas == null) {
+				byte[] raw = manager.loadUninstrumented(name);
+				if (raw != null) {
+					log.trace("> loading class {}, uninstrumented (1)", name);
+					clas = defineClass(name, raw, 0, raw.length);
+				} else if (name.equals(VM_NAME)) {
+					new Banner('@').println("WARNING: VM.class will be shared").trace(log);
+				}
 			}
-		}
-		if (resolve && clas != null) {
-			log.trace("> resolving class {}", name);
-			resolveClass(clas);
-		}
-		if (clas == null) {
-			log.trace("> class {} not found", name);
-			throw new ClassNotFoundException(name);
-		}
-		if ((clas != null) && name.equals(VM_NAME)) {
-			try {
-				log.trace("> try to set symbolic state #{}", Integer.toHexString(symbolicState.hashCode()));
-				Method st = clas.getDeclaredMethod("setState", State.class);
-				st.invoke(null, symbolicState);
-			} catch (SecurityException | IllegalArgumentException | IllegalAccessException | NoSuchMethodException
-					| InvocationTargetException e) {
-				e.printStackTrace();
+			if (clas == null) {
+				clas = findSystemClass(name);
+				if (clas != null) {
+					log.trace("> loading class {}, uninstrumented (2)", name);
+				}
+			}
+			if (resolve && clas != null) {
+				log.trace("> resolving class {}", name);
+				resolveClass(clas);
+			}
+			if (clas == null) {
+				log.trace("> class {} not found", name);
+				throw new ClassNotFoundException(name);
 			}
+			if ((clas != null) && name.equals(VM_NAME)) {
+				try {
+					log.trace("> try to set symbolic state #{}", Integer.toHexString(symbolicState.hashCode()));
+					Method st = clas.getDeclaredMethod("setState", State.class);
+					st.invoke(null, symbolicState);
+				} catch (SecurityException | IllegalArgumentException | IllegalAccessException | NoSuchMethodException
+						| InvocationTargetException e) {
+					e.printStackTrace();
+				}
+			}
+			return clas;
 		}
-		return clas;
 	}
 
 }
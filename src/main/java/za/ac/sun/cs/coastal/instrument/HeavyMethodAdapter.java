@@ -27,12 +27,66 @@ public class HeavyMethodAdapter extends MethodVisitor {
 
 	private static final String SYSTEM = "java/lang/System";
 
+	/**
+	 * Names of the opcode-specialized {@code VM} callbacks for instructions
+	 * without operands, indexed by opcode. Instructions without a specialized
+	 * callback are handled by the generic {@code VM.insn} callback.
+	 */
+	private static final String[] INSN_HANDLERS = new String[256];
+
+	/**
+	 * Names of the opcode-specialized {@code VM} callbacks for local variable
+	 * instructions, indexed by opcode.
+	 */
+	private static final String[] VAR_INSN_HANDLERS = new String[256];
+
+	static {
+		INSN_HANDLERS[Opcodes.IADD] = "iadd";
+		INSN_HANDLERS[Opcodes.LADD] = "ladd";
+		INSN_HANDLERS[Opcodes.FADD] = "fadd";
+		INSN_HANDLERS[Opcodes.DADD] = "dadd";
+		INSN_HANDLERS[Opcodes.ISUB] = "isub";
+		INSN_HANDLERS[Opcodes.LSUB] = "lsub";
+		INSN_HANDLERS[Opcodes.IMUL] = "imul";
+		INSN_HANDLERS[Opcodes.LMUL] = "lmul";
+		INSN_HANDLERS[Opcodes.FMUL] = "fmul";
+		INSN_HANDLERS[Opcodes.DMUL] = "dmul";
+		INSN_HANDLERS[Opcodes.IAND] = "iand";
+		INSN_HANDLERS[Opcodes.LAND] = "land";
+		INSN_HANDLERS[Opcodes.IOR] = "ior";
+		INSN_HANDLERS[Opcodes.LOR] = "lor";
+		INSN_HANDLERS[Opcodes.IXOR] = "ixor";
+		INSN_HANDLERS[Opcodes.LXOR] = "lxor";
+		INSN_HANDLERS[Opcodes.ISHL] = "ishl";
+		INSN_HANDLERS[Opcodes.LSHL] = "lshl";
+		INSN_HANDLERS[Opcodes.ISHR] = "ishr";
+		INSN_HANDLERS[Opcodes.LSHR] = "lshr";
+		INSN_HANDLERS[Opcodes.IUSHR] = "iushr";
+		INSN_HANDLERS[Opcodes.LUSHR] = "lushr";
+		INSN_HANDLERS[Opcodes.POP] = "pop";
+		INSN_HANDLERS[Opcodes.DUP] = "dup";
+		VAR_INSN_HANDLERS[Opcodes.ILOAD] = "iload";
+		VAR_INSN_HANDLERS[Opcodes.LLOAD] = "lload";
+		VAR_INSN_HANDLERS[Opcodes.FLOAD] = "fload";
+		VAR_INSN_HANDLERS[Opcodes.DLOAD] = "dload";
+		VAR_INSN_HANDLERS[Opcodes.ALOAD] = "aload";
+		VAR_INSN_HANDLERS[Opcodes.ISTORE] = "istore";
+		VAR_INSN_HANDLERS[Opcodes.LSTORE] = "lstore";
+		VAR_INSN_HANDLERS[Opcodes.FSTORE] = "fstore";
+		VAR_INSN_HANDLERS[Opcodes.DSTORE] = "dstore";
+		VAR_INSN_HANDLERS[Opcodes.ASTORE] = "astore";
+	}
+
 	private final COASTAL coastal;
 
 	private final Logger log;
 
 	private final boolean useConcreteValues;
 
+	private final boolean specializeCallbacks;
+
+	private final TaintAnalysis taintAnalysis;
+
 	private final InstrumentationClassManager classManager;
 
 	private final String filename;
@@ -82,7 +136,9 @@ public class HeavyMethodAdapter extends MethodVisitor {
 		this.coastal = coastal;
 		this.log = coastal.getLog();
 		this.useConcreteValues = coastal.getConfig().getBoolean("coastal.settings.concrete-values", false);
+		this.specializeCallbacks = coastal.getConfig().getBoolean("coastal.settings.specialize-callbacks", false);
 		this.classManager = coastal.getClassManager();
+		this.taintAnalysis = classManager.getTaintAnalysis();
 		this.filename = filename;
 		this.triggerIndex = triggerIndex;
 		this.name = name;
@@ -305,8 +361,13 @@ public class HeavyMethodAdapter extends MethodVisitor {
 	public void visitInsn(int opcode) {
 		log.trace("Hinstrument visitInsn(opcode:{} ({}))", opcode, Bytecodes.toString(opcode));
 		mv.visitLdcInsn(classManager.getNextInstructionCounter());
-		mv.visitLdcInsn(opcode);
-		mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "insn", "(II)V", false);
+		String handler = specializeCallbacks ? INSN_HANDLERS[opcode] : null;
+		if (handler != null) {
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, handler, "(I)V", false);
+		} else {
+			mv.visitLdcInsn(opcode);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "insn", "(II)V", false);
+		}
 		mv.visitInsn(opcode);
 		if (opcode == Opcodes.IDIV) {
 			mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "noException", "()V", false);
@@ -327,9 +388,15 @@ public class HeavyMethodAdapter extends MethodVisitor {
 	public void visitVarInsn(int opcode, int var) {
 		log.trace("Hinstrument visitVarInsn(opcode:{} ({}), var:{})", opcode, Bytecodes.toString(opcode), var);
 		mv.visitLdcInsn(classManager.getNextInstructionCounter());
-		mv.visitLdcInsn(opcode);
-		mv.visitLdcInsn(var);
-		mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "varInsn", "(III)V", false);
+		String handler = specializeCallbacks ? VAR_INSN_HANDLERS[opcode] : null;
+		if (handler != null) {
+			mv.visitLdcInsn(var);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, handler, "(II)V", false);
+		} else {
+			mv.visitLdcInsn(opcode);
+			mv.visitLdcInsn(var);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "varInsn", "(III)V", false);
+		}
 		mv.visitVarInsn(opcode, var);
 	}
 
@@ -394,6 +461,41 @@ public class HeavyMethodAdapter extends MethodVisitor {
 			// pop params !!!!!!!!!!!
 		} else if (owner.equals(SYSTEM) && name.equals("exit")) {
 			mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "systemExit", "(I)V", false);
+		} else if ((opcode == Opcodes.INVOKESTATIC) && (taintAnalysis != null)
+				&& taintAnalysis.isElided(owner, name, descriptor)) {
+			// --- elided method: discard the arguments and push the concrete result
+			mv.visitLdcInsn(classManager.getNextInstructionCounter());
+			mv.visitLdcInsn(opcode);
+			mv.visitLdcInsn(owner);
+			mv.visitLdcInsn(name);
+			mv.visitLdcInsn(descriptor);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "concreteInvoke",
+					"(IILjava/lang/String;Ljava/lang/String;Ljava/lang/String;)V", false);
+			mv.visitMethodInsn(opcode, owner, name, descriptor, isInterface);
+			switch (descriptor.charAt(descriptor.length() - 1)) {
+			case 'Z':
+			case 'B':
+			case 'C':
+			case 'S':
+			case 'I':
+				mv.visitInsn(Opcodes.DUP);
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "concreteReturn", "(I)V", false);
+				break;
+			case 'J':
+				mv.visitInsn(Opcodes.DUP2);
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "concreteReturn", "(J)V", false);
+				break;
+			case 'F':
+				mv.visitInsn(Opcodes.DUP);
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "concreteReturn", "(F)V", false);
+				break;
+			case 'D':
+				mv.visitInsn(Opcodes.DUP2);
+				mv.visitMethodInsn(Opcodes.INVOKESTATIC, LIBRARY, "concreteReturn", "(D)V", false);
+				break;
+			default:
+				break;
+			}
 		} else {
 			mv.visitLdcInsn(classManager.getNextInstructionCounter());
 			mv.visitLdcInsn(opcode);
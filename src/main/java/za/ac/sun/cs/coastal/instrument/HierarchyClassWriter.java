@@ -0,0 +1,84 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+/**
+ * A class writer that computes stack map frames without loading classes. The
+ * common superclass of two types is determined from their class files (as found
+ * by the class manager), so that computing the frames of one class never causes
+ * another class to be loaded or instrumented. This allows different classes to
+ * be instrumented in parallel without the risk of deadlock.
+ */
+class HierarchyClassWriter extends ClassWriter {
+
+	private static final String OBJECT = "java/lang/Object";
+
+	private final InstrumentationClassManager manager;
+
+	private final ClassLoader classLoader;
+
+	/**
+	 * The superclass and kind of a class.
+	 */
+	static class ClassInfo {
+
+		final String superName;
+
+		final boolean isInterface;
+
+		ClassInfo(String superName, boolean isInterface) {
+			this.superName = superName;
+			this.isInterface = isInterface;
+		}
+
+	}
+
+	/**
+	 * Construct a new class writer that computes frames.
+	 *
+	 * @param manager
+	 *                    the class manager that provides class files
+	 * @param classLoader
+	 *                    the class loader used for classes whose class files
+	 *                    cannot be found, or {@code null}
+	 * @param classReader
+	 *                    the reader of the original class
+	 */
+	HierarchyClassWriter(InstrumentationClassManager manager, ClassLoader classLoader, ClassReader classReader) {
+		super(classReader, ClassWriter.COMPUTE_FRAMES);
+		this.manager = manager;
+		this.classLoader = classLoader;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.objectweb.asm.ClassWriter#getCommonSuperClass(java.lang.String,
+	 * java.lang.String)
+	 */
+	@Override
+	protected String getCommonSuperClass(String type1, String type2) {
+		if (type1.equals(type2)) {
+			return type1;
+		}
+		if (manager.getClassInfo(type1, classLoader).isInterface
+				|| manager.getClassInfo(type2, classLoader).isInterface) {
+			return OBJECT;
+		}
+		Set<String> ancestors = new HashSet<>();
+		for (String type = type1; type != null; type = manager.getClassInfo(type, classLoader).superName) {
+			ancestors.add(type);
+		}
+		for (String type = type2; type != null; type = manager.getClassInfo(type, classLoader).superName) {
+			if (ancestors.contains(type)) {
+				return type;
+			}
+		}
+		return OBJECT;
+	}
+
+}
@@ -0,0 +1,395 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.Logger;
+
+import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.Configuration;
+
+/**
+ * An on-disk cache of instrumented classes that survives from one run of
+ * COASTAL to the next. Each entry is keyed by a hash of the original class
+ * file, the kind of instrumentation, the class name, the COASTAL version and
+ * build, the class files of the instrumenter itself, and all the settings
+ * that influence instrumentation (targets, triggers, delegates, and so on).
+ * Including the instrumenter class files makes sure that entries are not
+ * reused after the instrumenter has changed, even when the version and the
+ * build information stay the same (as they do for local changes).
+ *
+ * Instrumented code refers to instructions, methods, and new variables by
+ * numbers that are handed out by the {@link InstrumentationClassManager} as
+ * classes are instrumented. An entry therefore also records the values of
+ * these counters before the class was instrumented, how far they advanced,
+ * and the metadata that was registered with the class manager. An entry can
+ * only be used if the counters have the same values as when the entry was
+ * created; otherwise, the class is instrumented afresh and the entry is
+ * replaced. The numbers are constants in the instrumented code that cannot be
+ * told apart from the constants of the target, so entries are not rebased.
+ * Heavy and light instrumentation share the counters, and classes are loaded
+ * in whatever order the divers and surfers happen to need them, so COASTAL
+ * always pre-instruments the target classes (in the order of their names)
+ * when the cache is enabled. Classes that are instrumented later, such as
+ * renamed {@code java.*} classes, only hit the cache if they are loaded in the
+ * same order as before.
+ */
+public class InstrumentationCache {
+
+	/**
+	 * Version of the entry format.
+	 */
+	private static final int FORMAT = 1;
+
+	/**
+	 * Suffix of entry files.
+	 */
+	private static final String SUFFIX = ".cci";
+
+	/**
+	 * The classes whose code determines the result of instrumentation. Their
+	 * nested and anonymous classes are included automatically.
+	 */
+	private static final Class<?>[] INSTRUMENTERS = { Bytecodes.class, HeavyAdapter.class, HeavyMethodAdapter.class,
+			HierarchyClassWriter.class, InstrumentationClassManager.class, LightAdapter.class,
+			LightMethodAdapter.class, ReachabilityAnalysis.class, StaticResetAdapter.class, TaintAnalysis.class };
+
+	/**
+	 * Hash of the class files of the instrumenter, computed once.
+	 */
+	private static byte[] instrumenterHash = null;
+
+	private final Logger log;
+
+	/**
+	 * The directory where entries are stored.
+	 */
+	private final File directory;
+
+	/**
+	 * Hash of the version, the instrumenter, and the settings that influence
+	 * instrumentation.
+	 */
+	private final byte[] settingsHash;
+
+	/**
+	 * Construct a new cache.
+	 *
+	 * @param coastal
+	 *                  instance of COASTAL
+	 * @param directory
+	 *                  the directory where entries are stored
+	 */
+	public InstrumentationCache(COASTAL coastal, File directory) {
+		log = coastal.getLog();
+		this.directory = directory;
+		Configuration config = coastal.getConfig();
+		MessageDigest digest = newDigest();
+		update(digest, COASTAL.VERSION);
+		digest.update(getInstrumenterHash());
+		List<String> keys = new ArrayList<>(config.getKeys());
+		Collections.sort(keys);
+		for (String key : keys) {
+			if (key.startsWith("coastal.target") || key.startsWith("coastal.delegates")
+					|| key.equals("coastal.settings.concrete-values")
+					|| key.equals("coastal.settings.reuse-classes")
+					|| key.equals("coastal.settings.specialize-callbacks")) {
+				update(digest, key);
+				update(digest, config.getString(key));
+			}
+		}
+		settingsHash = digest.digest();
+	}
+
+	// ======================================================================
+	//
+	// ENTRIES
+	//
+	// ======================================================================
+
+	/**
+	 * An instrumented class together with the class manager state it depends on.
+	 */
+	public static class Entry {
+
+		/**
+		 * The instrumented class file.
+		 */
+		byte[] instrumented;
+
+		/**
+		 * The instruction, method, and new variable counters before the class was
+		 * instrumented.
+		 */
+		int instructionBase, methodBase, variableBase;
+
+		/**
+		 * The instruction, method, and new variable counters after the class was
+		 * instrumented.
+		 */
+		int instructionEnd, methodEnd, variableEnd;
+
+		/**
+		 * The first and last instructions and the line numbers of each method.
+		 */
+		final Map<Integer, Integer> firstInstruction = new TreeMap<>();
+
+		final Map<Integer, Integer> lastInstruction = new TreeMap<>();
+
+		final Map<Integer, BitSet> lineNumbers = new TreeMap<>();
+
+		/**
+		 * The lookup keys of switch instructions.
+		 */
+		final Map<Integer, int[]> lookupKeys = new TreeMap<>();
+
+	}
+
+	/**
+	 * Look up an entry.
+	 *
+	 * @param kind
+	 *                 the kind of instrumentation
+	 * @param name
+	 *                 the name of the class
+	 * @param original
+	 *                 the original class file
+	 * @return the entry or {@code null} if there is none
+	 */
+	public Entry get(String kind, String name, byte[] original) {
+		File file = getFile(kind, name, original);
+		if (!file.isFile()) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != FORMAT) {
+				return null;
+			}
+			Entry entry = new Entry();
+			entry.instructionBase = in.readInt();
+			entry.methodBase = in.readInt();
+			entry.variableBase = in.readInt();
+			entry.instructionEnd = in.readInt();
+			entry.methodEnd = in.readInt();
+			entry.variableEnd = in.readInt();
+			for (int i = in.readInt(); i > 0; i--) {
+				int method = in.readInt();
+				entry.firstInstruction.put(method, in.readInt());
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				int method = in.readInt();
+				entry.lastInstruction.put(method, in.readInt());
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				int method = in.readInt();
+				long[] words = new long[in.readInt()];
+				for (int j = 0; j < words.length; j++) {
+					words[j] = in.readLong();
+				}
+				entry.lineNumbers.put(method, BitSet.valueOf(words));
+			}
+			for (int i = in.readInt(); i > 0; i--) {
+				int id = in.readInt();
+				int[] keys = new int[in.readInt()];
+				for (int j = 0; j < keys.length; j++) {
+					keys[j] = in.readInt();
+				}
+				entry.lookupKeys.put(id, keys);
+			}
+			entry.instrumented = new byte[in.readInt()];
+			in.readFully(entry.instrumented);
+			return entry;
+		} catch (IOException x) {
+			log.trace("cannot read instrumentation cache entry {}", file.getPath());
+			return null;
+		}
+	}
+
+	/**
+	 * Store an entry. The entry is first written to a temporary file that is then
+	 * renamed, so that concurrent runs never see partial entries.
+	 *
+	 * @param kind
+	 *                 the kind of instrumentation
+	 * @param name
+	 *                 the name of the class
+	 * @param original
+	 *                 the original class file
+	 * @param entry
+	 *                 the entry to store
+	 */
+	public void put(String kind, String name, byte[] original, Entry entry) {
+		File file = getFile(kind, name, original);
+		File temp = null;
+		try {
+			temp = File.createTempFile("coastal", ".tmp", directory);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+				out.writeInt(FORMAT);
+				out.writeInt(entry.instructionBase);
+				out.writeInt(entry.methodBase);
+				out.writeInt(entry.variableBase);
+				out.writeInt(entry.instructionEnd);
+				out.writeInt(entry.methodEnd);
+				out.writeInt(entry.variableEnd);
+				out.writeInt(entry.firstInstruction.size());
+				for (Map.Entry<Integer, Integer> e : entry.firstInstruction.entrySet()) {
+					out.writeInt(e.getKey());
+					out.writeInt(e.getValue());
+				}
+				out.writeInt(entry.lastInstruction.size());
+				for (Map.Entry<Integer, Integer> e : entry.lastInstruction.entrySet()) {
+					out.writeInt(e.getKey());
+					out.writeInt(e.getValue());
+				}
+				out.writeInt(entry.lineNumbers.size());
+				for (Map.Entry<Integer, BitSet> e : entry.lineNumbers.entrySet()) {
+					long[] words = e.getValue().toLongArray();
+					out.writeInt(e.getKey());
+					out.writeInt(words.length);
+					for (long word : words) {
+						out.writeLong(word);
+					}
+				}
+				out.writeInt(entry.lookupKeys.size());
+				for (Map.Entry<Integer, int[]> e : entry.lookupKeys.entrySet()) {
+					out.writeInt(e.getKey());
+					out.writeInt(e.getValue().length);
+					for (int key : e.getValue()) {
+						out.writeInt(key);
+					}
+				}
+				out.writeInt(entry.instrumented.length);
+				out.write(entry.instrumented);
+			}
+			Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException x) {
+			log.trace("cannot write instrumentation cache entry {}", file.getPath());
+			if (temp != null) {
+				temp.delete();
+			}
+		}
+	}
+
+	// ======================================================================
+	//
+	// HELPER ROUTINES
+	//
+	// ======================================================================
+
+	private File getFile(String kind, String name, byte[] original) {
+		MessageDigest digest = newDigest();
+		digest.update(settingsHash);
+		update(digest, kind);
+		update(digest, name);
+		digest.update(original);
+		StringBuilder b = new StringBuilder();
+		for (byte x : digest.digest()) {
+			b.append(String.format("%02x", x));
+		}
+		return new File(directory, b.append(SUFFIX).toString());
+	}
+
+	/**
+	 * Compute a hash of the class files of the instrumenter.
+	 *
+	 * @return the hash of the instrumenter
+	 */
+	private static synchronized byte[] getInstrumenterHash() {
+		if (instrumenterHash == null) {
+			MessageDigest digest = newDigest();
+			for (Class<?> clas : INSTRUMENTERS) {
+				updateClassFiles(digest, clas, clas.getSimpleName());
+			}
+			instrumenterHash = digest.digest();
+		}
+		return instrumenterHash;
+	}
+
+	/**
+	 * Add the class file of a class, and those of its member and anonymous
+	 * classes, to a hash.
+	 *
+	 * @param digest
+	 *                   the hash to update
+	 * @param clas
+	 *                   the class
+	 * @param simpleName
+	 *                   the binary name of the class, without package
+	 */
+	private static void updateClassFiles(MessageDigest digest, Class<?> clas, String simpleName) {
+		update(digest, simpleName);
+		updateClassFile(digest, clas, simpleName);
+		for (Class<?> member : clas.getDeclaredClasses()) {
+			updateClassFiles(digest, member, simpleName + '$' + member.getSimpleName());
+		}
+		// Anonymous classes are numbered consecutively
+		int index = 1;
+		while (updateClassFile(digest, clas, simpleName + '$' + index)) {
+			index++;
+		}
+	}
+
+	/**
+	 * Add a class file to a hash.
+	 *
+	 * @param digest
+	 *                   the hash to update
+	 * @param anchor
+	 *                   a class in the same package, used to locate the file
+	 * @param simpleName
+	 *                   the binary name of the class, without package
+	 * @return {@code true} if and only if the class file was found
+	 */
+	private static boolean updateClassFile(MessageDigest digest, Class<?> anchor, String simpleName) {
+		try (InputStream in = anchor.getResourceAsStream(simpleName + ".class")) {
+			if (in == null) {
+				return false;
+			}
+			byte[] buffer = new byte[8192];
+			for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+				digest.update(buffer, 0, n);
+			}
+			return true;
+		} catch (IOException x) {
+			update(digest, "unreadable:" + simpleName);
+			return false;
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException x) {
+			throw new IllegalStateException(x);
+		}
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+		digest.update((byte) (bytes.length >>> 24));
+		digest.update((byte) (bytes.length >>> 16));
+		digest.update((byte) (bytes.length >>> 8));
+		digest.update((byte) bytes.length);
+		digest.update(bytes);
+	}
+
+}
@@ -8,16 +8,26 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.logging.log4j.Logger;
@@ -25,17 +35,21 @@ import org.objectweb.asm.Attribute;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.ClassRemapper;
 import org.objectweb.asm.commons.Remapper;
+import org.objectweb.asm.tree.ClassNode;
 
 import za.ac.sun.cs.coastal.Banner;
 import za.ac.sun.cs.coastal.COASTAL;
 import za.ac.sun.cs.coastal.diver.SymbolicState;
+import za.ac.sun.cs.coastal.instrument.agent.InstrumentationAgent;
 import za.ac.sun.cs.coastal.messages.Broker;
 import za.ac.sun.cs.coastal.messages.FreqTuple;
 import za.ac.sun.cs.coastal.messages.TimeTuple;
 import za.ac.sun.cs.coastal.messages.Tuple;
 import za.ac.sun.cs.coastal.surfer.TraceState;
+import za.ac.sun.cs.coastal.symbolic.VM;
 
 public class InstrumentationClassManager {
 
@@ -51,10 +65,39 @@ public class InstrumentationClassManager {
 	
 	private final String writeClassfile;
 
+	private final InstrumentationCache diskCache;
+
+	private final boolean useAgent;
+
+	private final boolean reuseClasses;
+
+	private final boolean elideConcrete;
+
+	/**
+	 * The analysis that decides which methods are elided, or {@code null} if it
+	 * has not been run (yet).
+	 */
+	private volatile TaintAnalysis taintAnalysis = null;
+
+	private final boolean reachableOnly;
+
+	/**
+	 * The analysis that decides which methods are reachable from the triggers, or
+	 * {@code null} if it has not been run (yet).
+	 */
+	private volatile ReachabilityAnalysis reachabilityAnalysis = null;
+
+	private final ThreadLocal<HeavyClassLoader> heavyClassLoaders = new ThreadLocal<>();
+
 	private final List<String> classPaths = new ArrayList<>();
 
 	private final Map<String, String> jars = new HashMap<>();
 
+	/**
+	 * Indices of the jar files that classes are loaded from, by file name.
+	 */
+	private final Map<String, JarIndex> jarIndices = new ConcurrentHashMap<>();
+
 	private final AtomicLong requestCount = new AtomicLong(0);
 
 	private final AtomicLong cacheHitCount = new AtomicLong(0);
@@ -71,22 +114,81 @@ public class InstrumentationClassManager {
 
 	private final AtomicLong postInstrumentedSize = new AtomicLong(0);
 
-	private final Map<String, byte[]> clearCache = new HashMap<>();
+	private final AtomicLong diskCacheHitCount = new AtomicLong(0);
+
+	private final AtomicLong diskCacheMissCount = new AtomicLong(0);
+
+	private final AtomicLong reusedLoaderCount = new AtomicLong(0);
+
+	private final AtomicLong preInstrumentedCount = new AtomicLong(0);
+
+	private final AtomicLong preInstrumentTime = new AtomicLong(0);
+
+	private volatile boolean isPreInstrumented = false;
+
+	private final AtomicLong elidedMethodCount = new AtomicLong(0);
+
+	private final AtomicLong taintAnalysisTime = new AtomicLong(0);
+
+	private final AtomicLong unreachableMethodCount = new AtomicLong(0);
+
+	private final AtomicLong reachabilityAnalysisTime = new AtomicLong(0);
+
+	/**
+	 * Accumulator of the time (in nanoseconds) spent waiting for the locks of
+	 * cache entries and for the numbering lock.
+	 */
+	private final AtomicLong lockWaitTime = new AtomicLong(0);
+
+	private final Map<String, Slot> clearCache = new ConcurrentHashMap<>();
 	private static final byte[] LOAD_FILE_FAILED = new byte[0];
 
-	private final Map<String, byte[]> heavyCache = new HashMap<>();
+	private final Map<String, Slot> heavyCache = new ConcurrentHashMap<>();
 
-	private final Map<String, byte[]> lightCache = new HashMap<>();
+	private final Map<String, Slot> lightCache = new ConcurrentHashMap<>();
 
-	private final Map<Integer, int[]> lookupKeys = new HashMap<>();
+	private final Map<Integer, int[]> lookupKeys = new ConcurrentHashMap<>();
+
+	/**
+	 * Superclasses and kinds of classes, for the computation of stack map frames.
+	 */
+	private final Map<String, HierarchyClassWriter.ClassInfo> classInfos = new ConcurrentHashMap<>();
+
+	/**
+	 * Lock that protects the instruction, method, and new variable counters while
+	 * a class is being instrumented.
+	 */
+	private final Object numberingLock = new Object();
 
 	public InstrumentationClassManager(COASTAL coastal, String classPath) {
 		this.coastal = coastal;
 		log = coastal.getLog();
 		broker = coastal.getBroker();
 		broker.subscribe("coastal-stop", this::report);
+		broker.subscribe("coastal-stop", this::closeJarIndices);
 		showInstrumentation = coastal.getConfig().getBoolean("coastal.settings.show-instrumentation", false);
 		// showClassList = coastal.getConfig().getBoolean("coastal.settings.show-classlist", false);
+		boolean agent = coastal.getConfig().getBoolean("coastal.settings.agent", false);
+		if (agent && !InstrumentationAgent.isInstalled()) {
+			Banner bn = new Banner('@');
+			bn.println("WARNING:\n");
+			bn.println("coastal.settings.agent is set but COASTAL was not started with -javaagent");
+			bn.display(log);
+			agent = false;
+		} else if (agent && ((coastal.getConfig().getInt("coastal.surfers.threads", 0) > 0)
+				|| (coastal.getConfig().getInt("coastal.surfers.min-threads", 0) > 0))) {
+			// The agent instruments classes for divers only: their branch callbacks
+			// carry no concrete values that a surfer could record
+			Banner bn = new Banner('@');
+			bn.println("WARNING:\n");
+			bn.println("coastal.settings.agent cannot be used with surfers -- using class loaders instead");
+			bn.display(log);
+			agent = false;
+		}
+		useAgent = agent;
+		reuseClasses = !useAgent && coastal.getConfig().getBoolean("coastal.settings.reuse-classes", false);
+		elideConcrete = coastal.getConfig().getBoolean("coastal.settings.elide-concrete", false);
+		reachableOnly = coastal.getConfig().getBoolean("coastal.settings.reachable-only", false);
 		// Check the directory
 		String wcf = coastal.getConfig().getString("coastal.settings.write-classfile", null);
 		if (wcf != null) {
@@ -100,6 +202,22 @@ public class InstrumentationClassManager {
 			}
 		}
 		writeClassfile = wcf;
+		// Check the instrumentation cache directory
+		String icd = coastal.getConfig().getString("coastal.settings.instrumentation-cache", null);
+		if (icd != null) {
+			File icdDirectory = new File(icd);
+			if (!icdDirectory.isDirectory() && !icdDirectory.mkdirs()) {
+				Banner bn = new Banner('@');
+				bn.println("WARNING:\n");
+				bn.println("coastal.settings.instrumentation-cache is not a directory: " + icd);
+				bn.display(log);
+				diskCache = null;
+			} else {
+				diskCache = new InstrumentationCache(coastal, icdDirectory);
+			}
+		} else {
+			diskCache = null;
+		}
 		// Organize the classpath
 		String[] paths = classPath.split(File.pathSeparator);
 		for (String path : paths) {
@@ -139,10 +257,84 @@ public class InstrumentationClassManager {
 		}
 		String dir = coastal.getConfig().getString(prefix + ".directory");
 		jars.put(jar, dir);
+		getJarIndex(jar);
+	}
+
+	private JarIndex getJarIndex(String jarFilename) {
+		return jarIndices.computeIfAbsent(jarFilename, this::openJarIndex);
+	}
+
+	/**
+	 * Close the indices of all jar files when the run stops. An index that is
+	 * needed again afterwards is simply opened afresh.
+	 *
+	 * @param object
+	 *               dummy message parameter
+	 */
+	private void closeJarIndices(Object object) {
+		for (String jarFilename : new ArrayList<>(jarIndices.keySet())) {
+			JarIndex index = jarIndices.remove(jarFilename);
+			if (index != null) {
+				index.close();
+			}
+		}
+	}
+
+	private JarIndex openJarIndex(String jarFilename) {
+		long t = System.currentTimeMillis();
+		JarIndex index = JarIndex.open(new File(jarFilename));
+		if (index != null) {
+			log.trace("indexed jar-file {}: {} entries in {} ms", jarFilename, index.size(),
+					System.currentTimeMillis() - t);
+		}
+		return index;
+	}
+
+	/**
+	 * Check whether target classes are instrumented by the Java agent, rather
+	 * than by the class loaders of COASTAL.
+	 *
+	 * @return {@code true} if and only if the Java agent is used
+	 */
+	public boolean isAgentMode() {
+		return useAgent;
+	}
+
+	/**
+	 * Return whether instrumented classes are cached on disk across runs.
+	 *
+	 * @return {@code true} if and only if there is an on-disk cache
+	 */
+	public boolean hasDiskCache() {
+		return diskCache != null;
 	}
 
 	public ClassLoader createHeavyClassLoader(SymbolicState symbolicState) {
-		ClassLoader classLoader = new HeavyClassLoader(coastal, this, symbolicState);
+		if (useAgent) {
+			ClassLoader classLoader = ClassLoader.getSystemClassLoader();
+			VM.setThreadState(symbolicState);
+			symbolicState.setClassLoader(classLoader);
+			return classLoader;
+		}
+		HeavyClassLoader classLoader = null;
+		if (reuseClasses) {
+			classLoader = heavyClassLoaders.get();
+			if (classLoader != null) {
+				try {
+					classLoader.reset(symbolicState);
+					reusedLoaderCount.incrementAndGet();
+				} catch (ReflectiveOperationException x) {
+					log.warn("CANNOT RESET INSTRUMENTED CLASSES, LOADING THEM AFRESH", x);
+					classLoader = null;
+				}
+			}
+			if (classLoader == null) {
+				classLoader = new HeavyClassLoader(coastal, this, symbolicState);
+				heavyClassLoaders.set(classLoader);
+			}
+		} else {
+			classLoader = new HeavyClassLoader(coastal, this, symbolicState);
+		}
 		symbolicState.setClassLoader(classLoader);
 		return classLoader;
 	}
@@ -161,22 +353,9 @@ public class InstrumentationClassManager {
 
 	public byte[] loadUninstrumented(String name) {
 		long t = System.currentTimeMillis();
-		byte[] unInstrumented = clearCache.get(name);
-		if (unInstrumented == null || unInstrumented == LOAD_FILE_FAILED) {
-			unInstrumented = loadUninstrumented0(name);
-		} else {
-			cacheHitCount.incrementAndGet();
-		}
+		byte[] unInstrumented = lookup(clearCache, name,
+				n -> loadFile(n.replace('.', '/').concat(".class"), false, false));
 		uninstrumentedTime.addAndGet(System.currentTimeMillis() - t);
-		return unInstrumented;
-	}
-
-	private synchronized byte[] loadUninstrumented0(String name) {
-		byte[] unInstrumented = clearCache.get(name);
-		if (unInstrumented == null) {
-			unInstrumented = loadFile(name.replace('.', '/').concat(".class"), false, false);
-			clearCache.put(name, unInstrumented);
-		}
 		return unInstrumented != LOAD_FILE_FAILED ? unInstrumented : null;
 	}
 
@@ -200,89 +379,63 @@ public class InstrumentationClassManager {
 
 	public byte[] loadHeavyInstrumented(ClassLoader classLoader, String name) {
 		long t = System.currentTimeMillis();
-		byte[] instrumented = heavyCache.get(name);
-		if (instrumented == null) {
-			instrumented = loadHeavyInstrumented0(classLoader, name);
-		} else {
-			cacheHitCount.incrementAndGet();
-		}
+		byte[] instrumented = lookup(heavyCache, name, n -> {
+			byte[] in = loadFile(n.replace('.', '/').concat(".class"), true, true);
+			return (in == LOAD_FILE_FAILED) ? null : instrumentHeavy(classLoader, n, in);
+		});
 		instrumentedTime.addAndGet(System.currentTimeMillis() - t);
 		return instrumented;
 	}
 
-	private synchronized byte[] loadHeavyInstrumented0(ClassLoader classLoader, String name) {
-		byte[] instrumented = heavyCache.get(name);
-		if (instrumented == null) {
-			byte[] in = loadFile(name.replace('.', '/').concat(".class"), true, true);
-			if (in == null) {
-				return null;
-			}
-			ClassReader cr = new ClassReader(in);
-			ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_FRAMES) {
-
-				@Override
-				protected ClassLoader getClassLoader() {
-					return classLoader;
-				}
-			};
-			HeavyAdapter ia = new HeavyAdapter(coastal, name, cw);
-			cr.accept(ia, 0);
-			instrumented = cw.toByteArray();
-			instrumentedCount.incrementAndGet();
-			preInstrumentedSize.addAndGet(in.length);
-			postInstrumentedSize.addAndGet(instrumented.length);
-			log.trace("instrumented {}: {} -> {} bytes", name, in.length, instrumented.length);
-			if (writeClassfile != null) {
-				writeFile(writeClassfile, name, instrumented);
-			}
-			if (showInstrumentation) {
-				ia.showInstrumentation();
-			}
-			heavyCache.put(name, instrumented);
-		}
-		return instrumented;
-	}
-
-	public byte[] loadHeavyInstrumented(String name, String trueName) {
+	/**
+	 * Instrument a class file that the Java agent intercepted while it was being
+	 * loaded.
+	 *
+	 * @param classLoader
+	 *                    the class loader that is loading the class
+	 * @param name
+	 *                    the name of the class
+	 * @param in
+	 *                    the original class file
+	 * @return the instrumented class file
+	 */
+	public byte[] transformHeavy(ClassLoader classLoader, String name, byte[] in) {
 		long t = System.currentTimeMillis();
-		byte[] instrumented = heavyCache.get(name);
-		if (instrumented == null) {
-			instrumented = loadHeavyInstrumented0(name, trueName);
-		} else {
-			cacheHitCount.incrementAndGet();
-		}
+		byte[] instrumented = lookup(heavyCache, name, n -> instrumentHeavy(classLoader, n, in));
 		instrumentedTime.addAndGet(System.currentTimeMillis() - t);
 		return instrumented;
 	}
 
-	private synchronized byte[] loadHeavyInstrumented0(String name, String trueName) {
-		byte[] instrumented = heavyCache.get(name);
-		if (instrumented == null) {
+	private byte[] instrumentHeavy(ClassLoader classLoader, String name, byte[] in) {
+		return adaptHeavy(classLoader, name, in).write();
+	}
+
+	private AdaptedClass adaptHeavy(ClassLoader classLoader, String name, byte[] in) {
+		String kind = "heavy" + getAnalysisDigest(true);
+		ClassReader cr = new ClassReader(in);
+		ClassNode cn = new ClassNode();
+		HeavyAdapter ia = new HeavyAdapter(coastal, name, reuseClasses ? new StaticResetAdapter(cn) : cn);
+		return adapt(kind, classLoader, name, name, in, cr, ia, cn, ia::showInstrumentation);
+	}
+
+	public byte[] loadHeavyInstrumented(String name, String trueName) {
+		long t = System.currentTimeMillis();
+		byte[] instrumented = lookup(heavyCache, name, n -> {
 			byte[] in = loadFile(trueName.replace('.', '/').concat(".class"), true, true);
-			if (in == null) {
+			if (in == LOAD_FILE_FAILED) {
 				return null;
 			}
 			try {
 				ClassReader cr = new PrefixingClassReader(in, coastal);
-				ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_FRAMES);
-				HeavyAdapter ia = new HeavyAdapter(coastal, trueName, cw);
-				cr.accept(ia, 0);
-				instrumented = cw.toByteArray();
-				instrumentedCount.incrementAndGet();
-				preInstrumentedSize.addAndGet(in.length);
-				postInstrumentedSize.addAndGet(instrumented.length);
-				log.trace("instrumented {}: {} -> {} bytes", trueName, in.length, instrumented.length);
-				if (writeClassfile != null) {
-					writeFile(writeClassfile, name, instrumented);
-				}
-				if (showInstrumentation) {
-					ia.showInstrumentation();
-				}
+				ClassNode cn = new ClassNode();
+				HeavyAdapter ia = new HeavyAdapter(coastal, trueName, reuseClasses ? new StaticResetAdapter(cn) : cn);
+				return adapt("heavy-prefixed", null, n, trueName, in, cr, ia, cn, ia::showInstrumentation).write();
 			} catch (IOException e) {
 				e.printStackTrace();
+				return null;
 			}
-			heavyCache.put(name, instrumented);
-		}
+		});
+		instrumentedTime.addAndGet(System.currentTimeMillis() - t);
 		return instrumented;
 	}
 
@@ -314,41 +467,594 @@ public class InstrumentationClassManager {
 
 	public byte[] loadLightInstrumented(String name) {
 		long t = System.currentTimeMillis();
-		byte[] instrumented = lightCache.get(name);
-		if (instrumented == null) {
-			instrumented = loadLightInstrumented0(name);
-			lightCache.put(name, instrumented);
-		} else {
-			cacheHitCount.incrementAndGet();
-		}
+		byte[] instrumented = lookup(lightCache, name, n -> {
+			byte[] in = loadFile(n.replace('.', '/').concat(".class"), true, true);
+			return (in == LOAD_FILE_FAILED) ? null : adaptLight(n, in).write();
+		});
 		instrumentedTime.addAndGet(System.currentTimeMillis() - t);
 		return instrumented;
 	}
 
-	private synchronized byte[] loadLightInstrumented0(String name) {
-		byte[] instrumented = lightCache.get(name);
-		if (instrumented == null) {
-			byte[] in = loadFile(name.replace('.', '/').concat(".class"), true, true);
-			if (in == null) {
-				return null;
+	private AdaptedClass adaptLight(String name, byte[] in) {
+		ClassReader cr = new ClassReader(in);
+		ClassNode cn = new ClassNode();
+		LightAdapter ia = new LightAdapter(coastal, name, cn);
+		return adapt("light" + getAnalysisDigest(false), null, name, name, in, cr, ia, cn, ia::showInstrumentation);
+	}
+
+	// ======================================================================
+	//
+	// IN-MEMORY CACHES
+	//
+	// ======================================================================
+
+	/**
+	 * An entry of one of the in-memory caches. Entries are created with
+	 * {@code computeIfAbsent}, which is cheap and never recursive. The class is
+	 * then loaded or instrumented while holding the lock of its entry, so that
+	 * different classes are processed in parallel, but each class only once.
+	 */
+	private static class Slot {
+
+		volatile boolean isDone = false;
+
+		volatile byte[] bytes = null;
+
+	}
+
+	/**
+	 * Return the cached contents for a class, producing them if necessary.
+	 *
+	 * @param cache
+	 *                 the cache to use
+	 * @param name
+	 *                 the name of the class
+	 * @param producer
+	 *                 function that produces the contents from the name
+	 * @return the contents (possibly {@code null})
+	 */
+	private byte[] lookup(Map<String, Slot> cache, String name, Function<String, byte[]> producer) {
+		Slot slot = cache.computeIfAbsent(name, n -> new Slot());
+		if (!slot.isDone) {
+			long t = System.nanoTime();
+			synchronized (slot) {
+				lockWaitTime.addAndGet(System.nanoTime() - t);
+				if (!slot.isDone) {
+					slot.bytes = producer.apply(name);
+					slot.isDone = true;
+					return slot.bytes;
+				}
+			}
+		}
+		cacheHitCount.incrementAndGet();
+		return slot.bytes;
+	}
+
+	/**
+	 * Run a class through the instrumenting adapters. The adapters number
+	 * instructions, methods, and new variables with the counters of this class
+	 * manager, and assume that the numbers of a class are consecutive. They
+	 * therefore run for one class at a time, writing into a class node. The
+	 * expensive part, computing the stack map frames while the class node is
+	 * written out, is left to {@link AdaptedClass#write()}, which may run in
+	 * parallel with other classes.
+	 *
+	 * @param kind
+	 *                    the kind of instrumentation (for the on-disk cache)
+	 * @param classLoader
+	 *                    the class loader for classes whose class files cannot be
+	 *                    found, or {@code null}
+	 * @param name
+	 *                    the name under which the class is cached
+	 * @param trueName
+	 *                    the name of the original class
+	 * @param in
+	 *                    the original class file
+	 * @param cr
+	 *                    the reader of the original class file
+	 * @param adapter
+	 *                    the instrumenting adapter, which writes into {@code cn}
+	 * @param cn
+	 *                    the class node that receives the instrumented class
+	 * @param show
+	 *                    action that shows the instrumentation
+	 * @return the adapted class
+	 */
+	private AdaptedClass adapt(String kind, ClassLoader classLoader, String name, String trueName, byte[] in,
+			ClassReader cr, ClassVisitor adapter, ClassNode cn, Runnable show) {
+		AdaptedClass adapted = new AdaptedClass(kind, classLoader, name, trueName, in, cr, cn, show);
+		long t = System.nanoTime();
+		synchronized (numberingLock) {
+			lockWaitTime.addAndGet(System.nanoTime() - t);
+			adapted.cached = loadCached(kind, name, in);
+			if (adapted.cached == null) {
+				CacheMark mark = new CacheMark();
+				cr.accept(adapter, 0);
+				adapted.entry = mark.finish();
+			}
+		}
+		return adapted;
+	}
+
+	/**
+	 * A class that has been run through the instrumenting adapters (or found in
+	 * the on-disk cache), but has not yet been written out.
+	 */
+	private class AdaptedClass {
+
+		private final String kind;
+
+		private final ClassLoader classLoader;
+
+		private final String name;
+
+		private final String trueName;
+
+		private final byte[] in;
+
+		private final ClassReader cr;
+
+		private final ClassNode cn;
+
+		private final Runnable show;
+
+		/**
+		 * The instrumented class file from the on-disk cache, if it was found there.
+		 */
+		private byte[] cached = null;
+
+		/**
+		 * The entry for the on-disk cache, if there is such a cache.
+		 */
+		private InstrumentationCache.Entry entry = null;
+
+		AdaptedClass(String kind, ClassLoader classLoader, String name, String trueName, byte[] in, ClassReader cr,
+				ClassNode cn, Runnable show) {
+			this.kind = kind;
+			this.classLoader = classLoader;
+			this.name = name;
+			this.trueName = trueName;
+			this.in = in;
+			this.cr = cr;
+			this.cn = cn;
+			this.show = show;
+		}
+
+		/**
+		 * Compute the stack map frames and produce the instrumented class file.
+		 *
+		 * @return the instrumented class file
+		 */
+		byte[] write() {
+			if (cached != null) {
+				return cached;
 			}
-			ClassReader cr = new ClassReader(in);
-			ClassWriter cw = new ClassWriter(cr, ClassWriter.COMPUTE_FRAMES);
-			LightAdapter ia = new LightAdapter(coastal, name, cw);
-			cr.accept(ia, 0);
-			instrumented = cw.toByteArray();
+			ClassWriter cw = new HierarchyClassWriter(InstrumentationClassManager.this, classLoader, cr);
+			cn.accept(cw);
+			byte[] instrumented = cw.toByteArray();
 			instrumentedCount.incrementAndGet();
 			preInstrumentedSize.addAndGet(in.length);
 			postInstrumentedSize.addAndGet(instrumented.length);
-			log.trace("instrumented {}: {} -> {} bytes", name, in.length, instrumented.length);
+			log.trace("instrumented {}: {} -> {} bytes", trueName, in.length, instrumented.length);
 			if (writeClassfile != null) {
 				writeFile(writeClassfile, name, instrumented);
 			}
 			if (showInstrumentation) {
-				ia.showInstrumentation();
+				show.run();
+			}
+			storeCached(kind, name, in, instrumented, entry);
+			return instrumented;
+		}
+
+	}
+
+	/**
+	 * Return the superclass and kind of a class, for the computation of stack map
+	 * frames. The information is read from the class file if it can be found, and
+	 * otherwise from the class loaded (but not initialized) by the given class
+	 * loader.
+	 *
+	 * @param type
+	 *                    the internal name of the class
+	 * @param classLoader
+	 *                    the class loader to fall back on, or {@code null}
+	 * @return the class information
+	 */
+	HierarchyClassWriter.ClassInfo getClassInfo(String type, ClassLoader classLoader) {
+		HierarchyClassWriter.ClassInfo info = classInfos.get(type);
+		if (info != null) {
+			return info;
+		}
+		if (type.startsWith("ins/")) {
+			HierarchyClassWriter.ClassInfo trueInfo = getClassInfo(type.substring(4), classLoader);
+			String superName = trueInfo.superName;
+			if ((superName != null) && coastal.isTarget(superName) && superName.startsWith("java/")) {
+				superName = "ins/" + superName;
+			}
+			info = new HierarchyClassWriter.ClassInfo(superName, trueInfo.isInterface);
+		} else {
+			byte[] in = loadFile(type.concat(".class"), true, true);
+			if (in != LOAD_FILE_FAILED) {
+				ClassReader cr = new ClassReader(in);
+				info = new HierarchyClassWriter.ClassInfo(cr.getSuperName(),
+						(cr.getAccess() & Opcodes.ACC_INTERFACE) != 0);
+			} else {
+				try {
+					ClassLoader loader = (classLoader != null) ? classLoader : getClass().getClassLoader();
+					Class<?> clas = Class.forName(type.replace('/', '.'), false, loader);
+					Class<?> superClass = clas.getSuperclass();
+					info = new HierarchyClassWriter.ClassInfo(
+							(superClass == null) ? null : superClass.getName().replace('.', '/'),
+							clas.isInterface());
+				} catch (ClassNotFoundException x) {
+					throw new TypeNotPresentException(type, x);
+				}
+			}
+		}
+		classInfos.putIfAbsent(type, info);
+		return info;
+	}
+
+	// ======================================================================
+	//
+	// PRE-INSTRUMENTATION
+	//
+	// ======================================================================
+
+	/**
+	 * Instrument all target classes before the first dive, in heavy and light
+	 * form (only in heavy form if the Java agent is used). The classes are found
+	 * by scanning the directories and jar files of the classpath and the jar
+	 * files in {@code coastal.target.jars}.
+	 *
+	 * The adapters process one class after another, in the order of the class
+	 * names, so that the classes are numbered the same way in every run (and the
+	 * entries of the on-disk cache remain usable). The stack map frames of the
+	 * adapted classes are computed in parallel on a fork-join pool.
+	 */
+	public void preInstrument() {
+		long t = System.currentTimeMillis();
+		List<String> names = new ArrayList<>(findTargetClasses());
+		Collections.sort(names);
+		List<ForkJoinTask<?>> tasks = new ArrayList<>();
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try {
+			for (String name : names) {
+				byte[] in = loadFile(name.replace('.', '/').concat(".class"), true, true);
+				if (in == LOAD_FILE_FAILED) {
+					continue;
+				}
+				preInstrumentedCount.incrementAndGet();
+				preInstrument(pool, tasks, heavyCache, name, () -> adaptHeavy(null, name, in));
+				if (!useAgent) {
+					preInstrument(pool, tasks, lightCache, name, () -> adaptLight(name, in));
+				}
+			}
+			for (ForkJoinTask<?> task : tasks) {
+				try {
+					task.join();
+				} catch (RuntimeException x) {
+					log.trace("pre-instrumentation failed", x);
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+		preInstrumentTime.set(System.currentTimeMillis() - t);
+		isPreInstrumented = true;
+		log.trace("pre-instrumented {} classes in {} ms", preInstrumentedCount.get(), preInstrumentTime.get());
+	}
+
+	private void preInstrument(ForkJoinPool pool, List<ForkJoinTask<?>> tasks, Map<String, Slot> cache, String name,
+			Supplier<AdaptedClass> adapter) {
+		Slot slot = cache.computeIfAbsent(name, n -> new Slot());
+		if (slot.isDone) {
+			return;
+		}
+		AdaptedClass adapted;
+		try {
+			adapted = adapter.get();
+		} catch (RuntimeException x) {
+			log.trace("pre-instrumentation of {} failed", name, x);
+			return;
+		}
+		tasks.add(pool.submit(() -> {
+			synchronized (slot) {
+				if (!slot.isDone) {
+					slot.bytes = adapted.write();
+					slot.isDone = true;
+				}
+			}
+		}));
+	}
+
+	/**
+	 * Return the names of all target classes on the classpath and in the jar
+	 * files in {@code coastal.target.jars}.
+	 *
+	 * @return the names of the target classes
+	 */
+	private Set<String> findTargetClasses() {
+		Set<String> names = new HashSet<>();
+		for (String classPath : classPaths) {
+			File file = new File(classPath);
+			if (classPath.equals(".")) {
+				continue;
+			} else if (file.isDirectory()) {
+				Path root = file.toPath();
+				try (Stream<Path> paths = Files.walk(root)) {
+					paths.forEach(path -> addTargetClass(root.relativize(path).toString().replace(File.separatorChar, '/'),
+							names));
+				} catch (IOException | UncheckedIOException x) {
+					log.trace("cannot scan directory {}", classPath);
+				}
+			} else if (file.isFile() && classPath.endsWith(".jar")) {
+				JarIndex index = getJarIndex(classPath);
+				if (index != null) {
+					for (String entryName : index.getNames()) {
+						addTargetClass(entryName, names);
+					}
+				}
+			}
+		}
+		for (Map.Entry<String, String> jar : jars.entrySet()) {
+			JarIndex index = getJarIndex(jar.getKey());
+			if (index == null) {
+				continue;
+			}
+			String prefix = jar.getValue();
+			if (prefix == null) {
+				prefix = "";
+			} else if (!prefix.endsWith("/")) {
+				prefix += "/";
+			}
+			for (String entryName : index.getNames()) {
+				if (entryName.startsWith(prefix)) {
+					addTargetClass(entryName.substring(prefix.length()), names);
+				}
+			}
+		}
+		return names;
+	}
+
+	private void addTargetClass(String filename, Set<String> names) {
+		if (!filename.endsWith(".class") || filename.endsWith("module-info.class")
+				|| filename.endsWith("package-info.class")) {
+			return;
+		}
+		String name = filename.substring(0, filename.length() - 6).replace('/', '.');
+		if (coastal.isTarget(name)) {
+			names.add(name);
+		}
+	}
+
+	// ======================================================================
+	//
+	// STATIC ANALYSES
+	//
+	// ======================================================================
+
+	/**
+	 * Return the analysis that decides which methods can never touch symbolic
+	 * data and are therefore left uninstrumented. The analysis is run over all
+	 * target classes (as found by {@link #findTargetClasses()}) the first time
+	 * it is needed, which is before the first class is instrumented.
+	 *
+	 * @return the analysis or {@code null} if methods are not elided
+	 */
+	public TaintAnalysis getTaintAnalysis() {
+		if (!elideConcrete) {
+			return null;
+		}
+		TaintAnalysis analysis = taintAnalysis;
+		if (analysis == null) {
+			synchronized (this) {
+				analysis = taintAnalysis;
+				if (analysis == null) {
+					long t = System.currentTimeMillis();
+					analysis = new TaintAnalysis(coastal);
+					forEachTargetClass(analysis::addClass);
+					analysis.analyze();
+					elidedMethodCount.set(analysis.getElidedCount());
+					taintAnalysisTime.set(System.currentTimeMillis() - t);
+					log.trace("elided {} methods in {} ms", elidedMethodCount.get(), taintAnalysisTime.get());
+					taintAnalysis = analysis;
+				}
+			}
+		}
+		return analysis;
+	}
+
+	/**
+	 * Return the analysis that decides which methods are reachable from the
+	 * triggers. Only reachable methods are instrumented. The analysis is run
+	 * over all target classes the first time it is needed.
+	 *
+	 * @return the analysis or {@code null} if all methods are instrumented
+	 */
+	public ReachabilityAnalysis getReachabilityAnalysis() {
+		if (!reachableOnly) {
+			return null;
+		}
+		ReachabilityAnalysis analysis = reachabilityAnalysis;
+		if (analysis == null) {
+			synchronized (this) {
+				analysis = reachabilityAnalysis;
+				if (analysis == null) {
+					long t = System.currentTimeMillis();
+					analysis = new ReachabilityAnalysis(coastal);
+					forEachTargetClass(analysis::addClass);
+					analysis.analyze();
+					unreachableMethodCount.set(analysis.getUnreachableCount());
+					reachabilityAnalysisTime.set(System.currentTimeMillis() - t);
+					log.trace("found {} unreachable methods in {} ms", unreachableMethodCount.get(),
+							reachabilityAnalysisTime.get());
+					reachabilityAnalysis = analysis;
+				}
+			}
+		}
+		return analysis;
+	}
+
+	/**
+	 * Pass the class files of all target classes (except those in the
+	 * {@code java} package) to a consumer.
+	 *
+	 * @param consumer
+	 *                 the consumer of class files
+	 */
+	private void forEachTargetClass(Consumer<byte[]> consumer) {
+		for (String name : findTargetClasses()) {
+			if (name.startsWith("java.")) {
+				continue;
+			}
+			byte[] in = loadFile(name.replace('.', '/').concat(".class"), true, true);
+			if (in != LOAD_FILE_FAILED) {
+				consumer.accept(in);
 			}
 		}
-		return instrumented;
+	}
+
+	/**
+	 * Return a suffix for the kind of instrumentation, so that the on-disk cache
+	 * distinguishes classes instrumented with different analysis results.
+	 *
+	 * @param isHeavy
+	 *                whether the heavy instrumentation is meant
+	 * @return the suffix (empty if no analysis is used)
+	 */
+	private String getAnalysisDigest(boolean isHeavy) {
+		StringBuilder b = new StringBuilder();
+		TaintAnalysis taint = isHeavy ? getTaintAnalysis() : null;
+		if (taint != null) {
+			b.append("-t").append(taint.getDigest());
+		}
+		ReachabilityAnalysis reachability = getReachabilityAnalysis();
+		if (reachability != null) {
+			b.append("-r").append(reachability.getDigest());
+		}
+		return b.toString();
+	}
+
+	// ======================================================================
+	//
+	// ON-DISK CACHE
+	//
+	// ======================================================================
+
+	/**
+	 * The values of the counters before a class is instrumented.
+	 */
+	private class CacheMark {
+
+		final int instructionBase = instructionCounter;
+
+		final int methodBase = methodCounter;
+
+		final int variableBase = newVariableCounter;
+
+		/**
+		 * Collect the counters and the metadata registered since the mark was
+		 * taken into an entry for the on-disk cache.
+		 *
+		 * Must be called while holding the numbering lock.
+		 *
+		 * @return the entry (without the instrumented class file) or {@code null}
+		 *         if there is no on-disk cache
+		 */
+		InstrumentationCache.Entry finish() {
+			if (diskCache == null) {
+				return null;
+			}
+			InstrumentationCache.Entry entry = new InstrumentationCache.Entry();
+			entry.instructionBase = instructionBase;
+			entry.methodBase = methodBase;
+			entry.variableBase = variableBase;
+			entry.instructionEnd = instructionCounter;
+			entry.methodEnd = methodCounter;
+			entry.variableEnd = newVariableCounter;
+			for (int m = methodBase + 1; m <= methodCounter; m++) {
+				if (firstInstruction.containsKey(m)) {
+					entry.firstInstruction.put(m, firstInstruction.get(m));
+				}
+				if (lastInstruction.containsKey(m)) {
+					entry.lastInstruction.put(m, lastInstruction.get(m));
+				}
+				if (linenumbers.containsKey(m)) {
+					entry.lineNumbers.put(m, linenumbers.get(m));
+				}
+			}
+			for (int i = instructionBase + 1; i <= instructionCounter; i++) {
+				int[] keys = lookupKeys.get(i);
+				if (keys != null) {
+					entry.lookupKeys.put(i, keys);
+				}
+			}
+			return entry;
+		}
+
+	}
+
+	/**
+	 * Look up an instrumented class in the on-disk cache. If it is found, and the
+	 * counters have the values they had when the class was stored, the counters
+	 * are advanced and the metadata of the class is registered, exactly as if the
+	 * class had been instrumented.
+	 *
+	 * Must be called while holding the numbering lock.
+	 *
+	 * @param kind
+	 *                 the kind of instrumentation
+	 * @param name
+	 *                 the name of the class
+	 * @param original
+	 *                 the original class file
+	 * @return the instrumented class file or {@code null} if it is not available
+	 */
+	private byte[] loadCached(String kind, String name, byte[] original) {
+		if (diskCache == null) {
+			return null;
+		}
+		InstrumentationCache.Entry entry = diskCache.get(kind, name, original);
+		if ((entry == null) || (entry.instructionBase != instructionCounter) || (entry.methodBase != methodCounter)
+				|| (entry.variableBase != newVariableCounter)) {
+			diskCacheMissCount.incrementAndGet();
+			return null;
+		}
+		instructionCounter = entry.instructionEnd;
+		methodCounter = entry.methodEnd;
+		newVariableCounter = entry.variableEnd;
+		firstInstruction.putAll(entry.firstInstruction);
+		lastInstruction.putAll(entry.lastInstruction);
+		linenumbers.putAll(entry.lineNumbers);
+		lookupKeys.putAll(entry.lookupKeys);
+		diskCacheHitCount.incrementAndGet();
+		log.trace("instrumented {} found in cache", name);
+		return entry.instrumented;
+	}
+
+	/**
+	 * Store a freshly instrumented class in the on-disk cache.
+	 *
+	 * @param kind
+	 *                     the kind of instrumentation
+	 * @param name
+	 *                     the name of the class
+	 * @param original
+	 *                     the original class file
+	 * @param instrumented
+	 *                     the instrumented class file
+	 * @param entry
+	 *                     the counters and metadata of the class, as collected by
+	 *                     {@link CacheMark#finish()}
+	 */
+	private void storeCached(String kind, String name, byte[] original, byte[] instrumented,
+			InstrumentationCache.Entry entry) {
+		if ((entry == null) || (instrumented == null)) {
+			return;
+		}
+		entry.instrumented = instrumented;
+		diskCache.put(kind, name, original, entry);
 	}
 
 	public synchronized void writeFile(String directory, String filename, byte[] contents) {
@@ -384,8 +1090,8 @@ public class InstrumentationClassManager {
 			}
 		} else if (tryJar) {
 			for (Map.Entry<String, String> entry : jars.entrySet()) {
-				in = searchFor(entry.getKey(), tryResource);
-				if (in == null) {
+				JarIndex index = getJarIndex(entry.getKey());
+				if (index == null) {
 					continue;
 				}
 				String fullFilename = entry.getValue();
@@ -398,7 +1104,7 @@ public class InstrumentationClassManager {
 				} else {
 					fullFilename = filename;
 				}
-				byte[] out = loadFromJar(entry.getKey(), fullFilename);
+				byte[] out = index.read(fullFilename);
 				if (out != null) {
 					return out;
 				}
@@ -408,19 +1114,8 @@ public class InstrumentationClassManager {
 	}
 
 	private byte[] loadFromJar(String jarFilename, String filename) {
-		try (FileInputStream in = new FileInputStream(jarFilename);
-				ZipInputStream zin = new ZipInputStream(new BufferedInputStream(in))) {
-			ZipEntry ze = zin.getNextEntry();
-			while (ze != null) {
-				if (ze.getName().equals(filename)) {
-					return IOUtils.toByteArray(zin);
-				}
-				ze = zin.getNextEntry();
-			}
-		} catch (IOException x) {
-			// ignore
-		}
-		return null;
+		JarIndex index = getJarIndex(jarFilename);
+		return (index == null) ? null : index.read(filename);
 	}
 
 	private InputStream searchFor(String filename, boolean tryResource) {
@@ -468,12 +1163,32 @@ public class InstrumentationClassManager {
 		broker.publish("report", new TimeTuple("Instrumentation.load-time", loadTime.get()));
 		broker.publish("report", new TimeTuple("Instrumentation.instrumented-time", instrumentedTime.get()));
 		broker.publish("report", new TimeTuple("Instrumentation.uninstrumented-time", uninstrumentedTime.get()));
+		broker.publish("report", new TimeTuple("Instrumentation.lock-wait-time", lockWaitTime.get() / 1000000));
+		if (diskCache != null) {
+			broker.publish("report", new FreqTuple("Instrumentation.disk-cache-hit-count", diskCacheHitCount.get()));
+			broker.publish("report", new FreqTuple("Instrumentation.disk-cache-miss-count", diskCacheMissCount.get()));
+		}
+		if (reuseClasses) {
+			broker.publish("report", new FreqTuple("Instrumentation.reused-loader-count", reusedLoaderCount.get()));
+		}
+		if (isPreInstrumented) {
+			broker.publish("report", new Tuple("Instrumentation.pre-instrumented-count", preInstrumentedCount.get()));
+			broker.publish("report", new TimeTuple("Instrumentation.pre-instrument-time", preInstrumentTime.get()));
+		}
+		if (taintAnalysis != null) {
+			broker.publish("report", new Tuple("Instrumentation.elided-method-count", elidedMethodCount.get()));
+			broker.publish("report", new TimeTuple("Instrumentation.taint-analysis-time", taintAnalysisTime.get()));
+		}
+		if (reachabilityAnalysis != null) {
+			broker.publish("report",
+					new Tuple("Instrumentation.unreachable-method-count", unreachableMethodCount.get()));
+			broker.publish("report",
+					new TimeTuple("Instrumentation.reachability-analysis-time", reachabilityAnalysisTime.get()));
+		}
 	}
 
-	public synchronized int addLookupKeys(int id, int[] keys) {
-		if (!lookupKeys.containsKey(id)) {
-			lookupKeys.put(id, Arrays.copyOf(keys, keys.length));
-		}
+	public int addLookupKeys(int id, int[] keys) {
+		lookupKeys.putIfAbsent(id, Arrays.copyOf(keys, keys.length));
 		return id;
 	}
 
@@ -481,19 +1196,19 @@ public class InstrumentationClassManager {
 		return lookupKeys.get(id);
 	}
 
-	private int instructionCounter = 0;
+	private volatile int instructionCounter = 0;
 
-	private int methodCounter = 0;
+	private volatile int methodCounter = 0;
 
-	private int newVariableCounter = 0;
+	private volatile int newVariableCounter = 0;
 
-	private Map<Integer, Integer> firstInstruction = new TreeMap<>();
+	private Map<Integer, Integer> firstInstruction = new ConcurrentHashMap<>();
 
-	private Map<Integer, Integer> lastInstruction = new TreeMap<>();
+	private Map<Integer, Integer> lastInstruction = new ConcurrentHashMap<>();
 
-	private Map<Integer, BitSet> linenumbers = new TreeMap<>();
+	private Map<Integer, BitSet> linenumbers = new ConcurrentHashMap<>();
 
-	private Map<Integer, BitSet> branchInstructions = new TreeMap<>();
+	private Map<Integer, BitSet> branchInstructions = new ConcurrentHashMap<>();
 
 	public Integer getFirstInstruction(int methodNumber) {
 		return firstInstruction.get(methodNumber);
@@ -544,7 +1259,10 @@ public class InstrumentationClassManager {
 	}
 
 	public void registerLinenumbers(BitSet linenumbers) {
-		this.linenumbers.put(methodCounter, linenumbers);
+		// Abstract and native methods have no code, and hence no line numbers
+		if (linenumbers != null) {
+			this.linenumbers.put(methodCounter, linenumbers);
+		}
 	}
 
 	public static void loadClasses(ClassLoader classLoader, String descriptor) {
@@ -0,0 +1,310 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * An index of the entries of a jar file, built once when the jar file is
+ * opened, so that each entry can be read without scanning the jar file.
+ *
+ * The jar file is mapped into memory and its central directory is parsed into a
+ * map from entry names to the positions of their data. Stored (uncompressed)
+ * entries are copied straight out of the mapping, and deflated entries are
+ * inflated directly into an array of the right size. Stored entries are not
+ * handed out as views of the mapping, because {@code ClassReader} and
+ * {@code defineClass} need the class file in a byte array of its own, so one
+ * copy is unavoidable. Jar files that cannot be mapped this way (for example,
+ * ZIP64 files or files larger than 2GB) are read with {@link JarFile}, which
+ * also keeps an index of its entries.
+ *
+ * Instances are safe to use from several threads at the same time, until they
+ * are closed.
+ */
+public class JarIndex implements Closeable {
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+
+	private static final int CEN_SIGNATURE = 0x02014b50;
+
+	private static final int LOC_SIGNATURE = 0x04034b50;
+
+	/**
+	 * Size of the end of central directory record without its comment.
+	 */
+	private static final int EOCD_SIZE = 22;
+
+	private static final int CEN_SIZE = 46;
+
+	private static final int LOC_SIZE = 30;
+
+	/**
+	 * The mapped jar file, or {@code null} if {@link #jarFile} is used.
+	 */
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * The entries of the mapped jar file.
+	 */
+	private final Map<String, Entry> entries;
+
+	/**
+	 * The jar file, if it could not be mapped.
+	 */
+	private final JarFile jarFile;
+
+	/**
+	 * The position and size of the data of an entry.
+	 */
+	private static class Entry {
+
+		final int method;
+
+		final int compressedSize;
+
+		final int size;
+
+		final int localOffset;
+
+		Entry(int method, int compressedSize, int size, int localOffset) {
+			this.method = method;
+			this.compressedSize = compressedSize;
+			this.size = size;
+			this.localOffset = localOffset;
+		}
+
+	}
+
+	private JarIndex(MappedByteBuffer buffer, Map<String, Entry> entries) {
+		this.buffer = buffer;
+		this.entries = entries;
+		this.jarFile = null;
+	}
+
+	private JarIndex(JarFile jarFile) {
+		this.buffer = null;
+		this.entries = null;
+		this.jarFile = jarFile;
+	}
+
+	/**
+	 * Open and index a jar file.
+	 *
+	 * @param file
+	 *             the jar file
+	 * @return the index or {@code null} if the file cannot be read
+	 */
+	public static JarIndex open(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+			if (channel.size() <= Integer.MAX_VALUE) {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+				buffer.order(ByteOrder.LITTLE_ENDIAN);
+				Map<String, Entry> entries = readCentralDirectory(buffer);
+				if (entries != null) {
+					return new JarIndex(buffer, entries);
+				}
+			}
+		} catch (IOException x) {
+			// fall through to JarFile
+		}
+		try {
+			return new JarIndex(new JarFile(file));
+		} catch (IOException x) {
+			return null;
+		}
+	}
+
+	/**
+	 * Check whether the jar file is mapped into memory, rather than read with
+	 * {@link JarFile}.
+	 *
+	 * @return {@code true} if and only if the jar file is mapped
+	 */
+	boolean isMapped() {
+		return entries != null;
+	}
+
+	/**
+	 * Release the jar file if it was opened with {@link JarFile}. A mapped jar
+	 * file is unmapped once the index is no longer reachable. The index must not
+	 * be used after it has been closed.
+	 */
+	@Override
+	public void close() {
+		if (jarFile != null) {
+			try {
+				jarFile.close();
+			} catch (IOException x) {
+				// nothing more can be done
+			}
+		}
+	}
+
+	/**
+	 * Return the number of entries in the jar file.
+	 *
+	 * @return the number of entries
+	 */
+	public int size() {
+		return (entries != null) ? entries.size() : jarFile.size();
+	}
+
+	/**
+	 * Return the names of the entries in the jar file.
+	 *
+	 * @return the entry names
+	 */
+	public Set<String> getNames() {
+		if (entries != null) {
+			return Collections.unmodifiableSet(entries.keySet());
+		}
+		Set<String> names = new HashSet<>();
+		for (Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements();) {
+			names.add(e.nextElement().getName());
+		}
+		return names;
+	}
+
+	/**
+	 * Read an entry of the jar file.
+	 *
+	 * @param name
+	 *             the name of the entry
+	 * @return the contents of the entry or {@code null} if there is no such entry
+	 *         or it cannot be read
+	 */
+	public byte[] read(String name) {
+		if (entries == null) {
+			return readJarFile(name);
+		}
+		Entry entry = entries.get(name);
+		if (entry == null) {
+			return null;
+		}
+		ByteBuffer b = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		int local = entry.localOffset;
+		if ((local + LOC_SIZE > b.limit()) || (b.getInt(local) != LOC_SIGNATURE)) {
+			return null;
+		}
+		int start = local + LOC_SIZE + (b.getShort(local + 26) & 0xffff) + (b.getShort(local + 28) & 0xffff);
+		if (start + entry.compressedSize > b.limit()) {
+			return null;
+		}
+		b.position(start);
+		if (entry.method == ZipEntry.STORED) {
+			byte[] out = new byte[entry.size];
+			b.get(out);
+			return out;
+		} else if (entry.method == ZipEntry.DEFLATED) {
+			byte[] in = new byte[entry.compressedSize];
+			b.get(in);
+			byte[] out = new byte[entry.size];
+			Inflater inflater = new Inflater(true);
+			try {
+				inflater.setInput(in);
+				int n = 0;
+				while (n < out.length) {
+					int k = inflater.inflate(out, n, out.length - n);
+					if ((k == 0) && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+						break;
+					}
+					n += k;
+				}
+				return (n == out.length) ? out : null;
+			} catch (DataFormatException x) {
+				return null;
+			} finally {
+				inflater.end();
+			}
+		} else {
+			return null;
+		}
+	}
+
+	private byte[] readJarFile(String name) {
+		ZipEntry entry = jarFile.getEntry(name);
+		if (entry == null) {
+			return null;
+		}
+		try (InputStream in = jarFile.getInputStream(entry)) {
+			return IOUtils.toByteArray(in);
+		} catch (IOException x) {
+			return null;
+		}
+	}
+
+	/**
+	 * Parse the central directory of a mapped jar file.
+	 *
+	 * @return the entries or {@code null} if the central directory cannot be
+	 *         parsed (for example, because the file uses ZIP64 extensions)
+	 */
+	private static Map<String, Entry> readCentralDirectory(ByteBuffer b) {
+		int limit = b.limit();
+		int eocd = -1;
+		for (int p = limit - EOCD_SIZE, stop = Math.max(0, limit - EOCD_SIZE - 0xffff); p >= stop; p--) {
+			if (b.getInt(p) == EOCD_SIGNATURE) {
+				eocd = p;
+				break;
+			}
+		}
+		if (eocd < 0) {
+			return null;
+		}
+		int count = b.getShort(eocd + 10) & 0xffff;
+		long cenOffset = b.getInt(eocd + 16) & 0xffffffffL;
+		if ((count == 0xffff) || (cenOffset == 0xffffffffL)) {
+			return null;
+		}
+		Map<String, Entry> entries = new HashMap<>(2 * count);
+		int p = (int) cenOffset;
+		for (int i = 0; i < count; i++) {
+			if ((p + CEN_SIZE > limit) || (b.getInt(p) != CEN_SIGNATURE)) {
+				return null;
+			}
+			int method = b.getShort(p + 10) & 0xffff;
+			long compressedSize = b.getInt(p + 20) & 0xffffffffL;
+			long size = b.getInt(p + 24) & 0xffffffffL;
+			int nameLength = b.getShort(p + 28) & 0xffff;
+			int extraLength = b.getShort(p + 30) & 0xffff;
+			int commentLength = b.getShort(p + 32) & 0xffff;
+			long localOffset = b.getInt(p + 42) & 0xffffffffL;
+			if ((compressedSize >= Integer.MAX_VALUE) || (size >= Integer.MAX_VALUE)
+					|| (localOffset >= Integer.MAX_VALUE) || (p + CEN_SIZE + nameLength > limit)) {
+				return null;
+			}
+			byte[] name = new byte[nameLength];
+			ByteBuffer d = b.duplicate();
+			d.position(p + CEN_SIZE);
+			d.get(name);
+			entries.put(new String(name, StandardCharsets.UTF_8),
+					new Entry(method, (int) compressedSize, (int) size, (int) localOffset));
+			p += CEN_SIZE + nameLength + extraLength + commentLength;
+		}
+		return entries;
+	}
+
+}
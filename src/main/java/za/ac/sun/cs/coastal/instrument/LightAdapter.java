@@ -20,6 +20,8 @@ public class LightAdapter extends ClassVisitor {
 
 	private final String name;
 
+	private final ReachabilityAnalysis reachabilityAnalysis;
+
 	private final StringWriter swriter = new StringWriter();
 
 	private final PrintWriter pwriter = new PrintWriter(swriter);
@@ -28,6 +30,7 @@ public class LightAdapter extends ClassVisitor {
 		super(Opcodes.ASM6, cv);
 		this.coastal = coastal;
 		this.name = name;
+		this.reachabilityAnalysis = coastal.getClassManager().getReachabilityAnalysis();
 	}
 
 	@Override
@@ -51,6 +54,10 @@ public class LightAdapter extends ClassVisitor {
 			};
 			mv = new TraceMethodVisitor(mv, p);
 		}
+		if ((mv != null) && (reachabilityAnalysis != null)
+				&& !reachabilityAnalysis.isReachable(this.name.replace('.', '/'), name, desc)) {
+			return mv;
+		}
 		if (mv != null) {
 			mv = new LightMethodAdapter(coastal, mv, this.name, triggerIndex, name, isStatic, argCount);
 		}
@@ -0,0 +1,369 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+
+import za.ac.sun.cs.coastal.COASTAL;
+
+/**
+ * A static call graph of the target classes, built by class hierarchy analysis
+ * from the triggers. Methods that cannot be reached from a trigger are left
+ * uninstrumented by both the heavy and the light adapters.
+ *
+ * The roots of the call graph are the triggers, static initializers, and
+ * {@code main} methods. Since non-target code may call back into the target
+ * classes, the instance methods of classes with a non-target supertype (other
+ * than {@code Object}), and the overrides of the {@code Object} methods, are
+ * also roots. An invocation of a virtual or interface method reaches the
+ * method that it names and, for every subtype of the named class, the method
+ * that the subtype declares or inherits under the same name. The latter may be
+ * declared in a superclass that is not itself a subtype of the named class, as
+ * when {@code class C extends S implements I} inherits its implementation of
+ * {@code I.m} from {@code S}.
+ * Methods mentioned by {@code invokedynamic} instructions (such as lambda
+ * bodies) and by method handle constants are reached as well.
+ *
+ * Methods that are called only by reflection are not found, and methods that
+ * refer to target classes in the {@code java} package are always
+ * instrumented, since their references must be renamed. Classes that were not
+ * analyzed are instrumented completely.
+ */
+public class ReachabilityAnalysis {
+
+	private static final String OBJECT = "java/lang/Object";
+
+	/**
+	 * The methods of {@code Object} that non-target code may call on any object.
+	 */
+	private static final Set<String> OBJECT_METHODS = new HashSet<>();
+
+	static {
+		OBJECT_METHODS.add("toString()Ljava/lang/String;");
+		OBJECT_METHODS.add("equals(Ljava/lang/Object;)Z");
+		OBJECT_METHODS.add("hashCode()I");
+		OBJECT_METHODS.add("clone()Ljava/lang/Object;");
+		OBJECT_METHODS.add("finalize()V");
+	}
+
+	private final COASTAL coastal;
+
+	/**
+	 * The classes to analyze, by internal name.
+	 */
+	private final Map<String, ClassNode> classes = new HashMap<>();
+
+	/**
+	 * The direct subtypes of each class or interface, by internal name.
+	 */
+	private final Map<String, List<String>> subtypes = new HashMap<>();
+
+	/**
+	 * The internal names of the classes that were analyzed.
+	 */
+	private final Set<String> analyzed = new HashSet<>();
+
+	/**
+	 * The reachable methods, by class name, method name, and descriptor.
+	 */
+	private final Set<String> reachable = new HashSet<>();
+
+	private final Deque<MethodNode> worklist = new ArrayDeque<>();
+
+	private final Map<String, MethodNode> methods = new HashMap<>();
+
+	private int methodCount = 0;
+
+	private String digest = "";
+
+	/**
+	 * Construct a new analysis.
+	 *
+	 * @param coastal
+	 *                instance of COASTAL
+	 */
+	public ReachabilityAnalysis(COASTAL coastal) {
+		this.coastal = coastal;
+	}
+
+	/**
+	 * Add a class to the analysis.
+	 *
+	 * @param classFile
+	 *                  the class file
+	 */
+	public void addClass(byte[] classFile) {
+		ClassNode cn = new ClassNode();
+		new ClassReader(classFile).accept(cn, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+		classes.put(cn.name, cn);
+	}
+
+	/**
+	 * Build the call graph of the classes that have been added and decide which
+	 * methods are reachable.
+	 */
+	public void analyze() {
+		for (ClassNode cn : classes.values()) {
+			analyzed.add(cn.name);
+			if (cn.superName != null) {
+				subtypes.computeIfAbsent(cn.superName, k -> new ArrayList<>()).add(cn.name);
+			}
+			for (String iface : cn.interfaces) {
+				subtypes.computeIfAbsent(iface, k -> new ArrayList<>()).add(cn.name);
+			}
+			for (MethodNode mn : cn.methods) {
+				methods.put(getKey(cn.name, mn.name, mn.desc), mn);
+				methodCount++;
+			}
+		}
+		for (ClassNode cn : classes.values()) {
+			String className = cn.name.replace('/', '.');
+			boolean isCallback = hasNonTargetSupertype(cn);
+			for (MethodNode mn : cn.methods) {
+				boolean isStatic = (mn.access & Opcodes.ACC_STATIC) != 0;
+				boolean isPrivate = (mn.access & Opcodes.ACC_PRIVATE) != 0;
+				if ((coastal.findTrigger(className + "." + mn.name, mn.desc) >= 0) || mn.name.equals("<clinit>")
+						|| (isStatic && mn.name.equals("main") && mn.desc.equals("([Ljava/lang/String;)V"))
+						|| (!isStatic && !isPrivate && !mn.name.equals("<init>")
+								&& (isCallback || OBJECT_METHODS.contains(mn.name + mn.desc)))
+						|| refersToJavaTargets(mn)) {
+					reach(cn.name, mn);
+				}
+			}
+		}
+		while (!worklist.isEmpty()) {
+			MethodNode mn = worklist.pop();
+			for (AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+				if (insn instanceof MethodInsnNode) {
+					MethodInsnNode call = (MethodInsnNode) insn;
+					int opcode = call.getOpcode();
+					boolean isVirtual = (opcode == Opcodes.INVOKEVIRTUAL) || (opcode == Opcodes.INVOKEINTERFACE);
+					invoke(call.owner, call.name, call.desc, isVirtual);
+				} else if (insn instanceof InvokeDynamicInsnNode) {
+					InvokeDynamicInsnNode indy = (InvokeDynamicInsnNode) insn;
+					invoke(indy.bsm);
+					for (Object arg : indy.bsmArgs) {
+						if (arg instanceof Handle) {
+							invoke((Handle) arg);
+						}
+					}
+				} else if ((insn instanceof LdcInsnNode) && (((LdcInsnNode) insn).cst instanceof Handle)) {
+					invoke((Handle) ((LdcInsnNode) insn).cst);
+				}
+			}
+		}
+		List<String> keys = new ArrayList<>(reachable);
+		Collections.sort(keys);
+		digest = hash(keys);
+		classes.clear();
+		subtypes.clear();
+		methods.clear();
+	}
+
+	/**
+	 * Check whether a method is reachable from the triggers.
+	 *
+	 * @param owner
+	 *                   the internal name of the class that declares the method
+	 * @param name
+	 *                   the name of the method
+	 * @param descriptor
+	 *                   the descriptor of the method
+	 * @return {@code true} if and only if the method is reachable or its class was
+	 *         not analyzed
+	 */
+	public boolean isReachable(String owner, String name, String descriptor) {
+		return !analyzed.contains(owner) || reachable.contains(getKey(owner, name, descriptor));
+	}
+
+	/**
+	 * Return the number of methods that are not reachable.
+	 *
+	 * @return the number of unreachable methods
+	 */
+	public int getUnreachableCount() {
+		return methodCount - reachable.size();
+	}
+
+	/**
+	 * Return a hash of the reachable methods, for the key of the on-disk cache.
+	 *
+	 * @return a hash of the reachable methods
+	 */
+	public String getDigest() {
+		return digest;
+	}
+
+	// ======================================================================
+	//
+	// CALL GRAPH
+	//
+	// ======================================================================
+
+	private void reach(String owner, MethodNode mn) {
+		if (reachable.add(getKey(owner, mn.name, mn.desc))) {
+			worklist.push(mn);
+		}
+	}
+
+	private void invoke(Handle handle) {
+		int tag = handle.getTag();
+		boolean isVirtual = (tag == Opcodes.H_INVOKEVIRTUAL) || (tag == Opcodes.H_INVOKEINTERFACE);
+		invoke(handle.getOwner(), handle.getName(), handle.getDesc(), isVirtual);
+	}
+
+	/**
+	 * Reach the method that an invocation resolves to, and, for virtual and
+	 * interface invocations, the method that each subtype resolves it to.
+	 */
+	private void invoke(String owner, String name, String desc, boolean isVirtual) {
+		resolve(owner, name, desc);
+		if (isVirtual) {
+			Set<String> seen = new HashSet<>();
+			Deque<String> pending = new ArrayDeque<>();
+			pending.push(owner);
+			while (!pending.isEmpty()) {
+				for (String subtype : subtypes.getOrDefault(pending.pop(), Collections.emptyList())) {
+					if (seen.add(subtype)) {
+						resolve(subtype, name, desc);
+						pending.push(subtype);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reach the method that a class inherits under a given name, looking first in
+	 * its superclasses and then in its superinterfaces (for default methods).
+	 */
+	private void resolve(String owner, String name, String desc) {
+		for (String type = owner; type != null;) {
+			MethodNode mn = methods.get(getKey(type, name, desc));
+			if (mn != null) {
+				reach(type, mn);
+				return;
+			}
+			ClassNode cn = classes.get(type);
+			type = (cn == null) ? null : cn.superName;
+		}
+		Set<String> seen = new HashSet<>();
+		Deque<String> pending = new ArrayDeque<>();
+		pending.push(owner);
+		while (!pending.isEmpty()) {
+			ClassNode cn = classes.get(pending.pop());
+			if (cn == null) {
+				continue;
+			}
+			if (cn.superName != null) {
+				pending.push(cn.superName);
+			}
+			for (String iface : cn.interfaces) {
+				if (seen.add(iface)) {
+					MethodNode mn = methods.get(getKey(iface, name, desc));
+					if (mn != null) {
+						reach(iface, mn);
+					}
+					pending.push(iface);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check whether a class has a supertype other than {@code Object} that is not
+	 * a target. Non-target code may call its instance methods.
+	 */
+	private boolean hasNonTargetSupertype(ClassNode cn) {
+		Set<String> seen = new HashSet<>();
+		Deque<String> pending = new ArrayDeque<>();
+		pending.push(cn.name);
+		while (!pending.isEmpty()) {
+			ClassNode node = classes.get(pending.pop());
+			List<String> supertypes = new ArrayList<>(node.interfaces);
+			if (node.superName != null) {
+				supertypes.add(node.superName);
+			}
+			for (String supertype : supertypes) {
+				if (!seen.add(supertype) || supertype.equals(OBJECT)) {
+					continue;
+				}
+				if (!classes.containsKey(supertype)) {
+					return true;
+				}
+				pending.push(supertype);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Check whether a method refers to target classes in the {@code java}
+	 * package, which the heavy adapter renames.
+	 */
+	private boolean refersToJavaTargets(MethodNode mn) {
+		for (AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			String type = null;
+			if (insn instanceof MethodInsnNode) {
+				type = ((MethodInsnNode) insn).owner;
+			} else if (insn instanceof FieldInsnNode) {
+				type = ((FieldInsnNode) insn).owner;
+			} else if (insn instanceof TypeInsnNode) {
+				type = ((TypeInsnNode) insn).desc;
+			}
+			if ((type != null) && type.startsWith("java/") && coastal.isTarget(type)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// ======================================================================
+	//
+	// HELPER ROUTINES
+	//
+	// ======================================================================
+
+	private static String getKey(String owner, String name, String descriptor) {
+		return owner + "." + name + descriptor;
+	}
+
+	private static String hash(List<String> keys) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String key : keys) {
+				digest.update(key.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) '\n');
+			}
+			StringBuilder b = new StringBuilder();
+			for (byte x : digest.digest()) {
+				b.append(String.format("%02x", x));
+			}
+			return b.toString();
+		} catch (NoSuchAlgorithmException x) {
+			throw new IllegalStateException(x);
+		}
+	}
+
+}
@@ -0,0 +1,164 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Class adapter that makes the static state of a class resettable, so that the
+ * same instrumented class can be used for more than one dive.
+ *
+ * The original static initializer is renamed to {@link #INIT_NAME}, and a new
+ * static initializer calls it and then registers the class with the VM. A new
+ * method {@link #RESET_NAME} sets all static fields back to their default
+ * values and runs the original initializer again. Static fields that are
+ * assigned by the initializer can no longer be {@code final}.
+ *
+ * Interfaces, annotations, and enumerations are left unchanged. Fields with a
+ * constant value are not reset, since they are never assigned by code.
+ */
+public class StaticResetAdapter extends ClassVisitor {
+
+	/**
+	 * Name of the renamed static initializer.
+	 */
+	public static final String INIT_NAME = "__coastal_clinit";
+
+	/**
+	 * Name of the generated reset method.
+	 */
+	public static final String RESET_NAME = "__coastal_reset";
+
+	private static final String VM_NAME = "za/ac/sun/cs/coastal/symbolic/VM";
+
+	private static final int SKIP_ACCESS = Opcodes.ACC_INTERFACE | Opcodes.ACC_ANNOTATION | Opcodes.ACC_ENUM;
+
+	private String className;
+
+	private boolean skip;
+
+	private boolean hasInitializer;
+
+	/**
+	 * Names and descriptors of the static fields that must be reset.
+	 */
+	private final List<String[]> staticFields = new ArrayList<>();
+
+	public StaticResetAdapter(ClassVisitor cv) {
+		super(Opcodes.ASM7, cv);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.objectweb.asm.ClassVisitor#visit(int, int, java.lang.String,
+	 * java.lang.String, java.lang.String, java.lang.String[])
+	 */
+	@Override
+	public void visit(int version, int access, String name, String signature, String superName,
+			String[] interfaces) {
+		className = name;
+		skip = (access & SKIP_ACCESS) != 0;
+		super.visit(version, access, name, signature, superName, interfaces);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.objectweb.asm.ClassVisitor#visitField(int, java.lang.String,
+	 * java.lang.String, java.lang.String, java.lang.Object)
+	 */
+	@Override
+	public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+		if (!skip && ((access & Opcodes.ACC_STATIC) != 0) && (value == null)) {
+			staticFields.add(new String[] { name, desc });
+			access &= ~Opcodes.ACC_FINAL;
+		}
+		return super.visitField(access, name, desc, signature, value);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.objectweb.asm.ClassVisitor#visitMethod(int, java.lang.String,
+	 * java.lang.String, java.lang.String, java.lang.String[])
+	 */
+	@Override
+	public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+		if (!skip && name.equals("<clinit>")) {
+			hasInitializer = true;
+			return super.visitMethod(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC, INIT_NAME,
+					desc, signature, exceptions);
+		}
+		return super.visitMethod(access, name, desc, signature, exceptions);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see org.objectweb.asm.ClassVisitor#visitEnd()
+	 */
+	@Override
+	public void visitEnd() {
+		if (!skip) {
+			generateInitializer();
+			generateReset();
+		}
+		super.visitEnd();
+	}
+
+	private void generateInitializer() {
+		MethodVisitor mv = super.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+		mv.visitCode();
+		if (hasInitializer) {
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, className, INIT_NAME, "()V", false);
+		}
+		mv.visitLdcInsn(Type.getObjectType(className));
+		mv.visitMethodInsn(Opcodes.INVOKESTATIC, VM_NAME, "registerStaticInit", "(Ljava/lang/Class;)V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private void generateReset() {
+		MethodVisitor mv = super.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_SYNTHETIC,
+				RESET_NAME, "()V", null, null);
+		mv.visitCode();
+		for (String[] field : staticFields) {
+			switch (field[1].charAt(0)) {
+			case 'Z':
+			case 'B':
+			case 'C':
+			case 'S':
+			case 'I':
+				mv.visitInsn(Opcodes.ICONST_0);
+				break;
+			case 'J':
+				mv.visitInsn(Opcodes.LCONST_0);
+				break;
+			case 'F':
+				mv.visitInsn(Opcodes.FCONST_0);
+				break;
+			case 'D':
+				mv.visitInsn(Opcodes.DCONST_0);
+				break;
+			default:
+				mv.visitInsn(Opcodes.ACONST_NULL);
+				break;
+			}
+			mv.visitFieldInsn(Opcodes.PUTSTATIC, className, field[0], field[1]);
+		}
+		if (hasInitializer) {
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, className, INIT_NAME, "()V", false);
+		}
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+}
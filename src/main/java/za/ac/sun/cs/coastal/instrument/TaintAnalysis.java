@@ -0,0 +1,913 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+import za.ac.sun.cs.coastal.COASTAL;
+
+/**
+ * A static analysis of the target classes that finds methods that can never
+ * touch symbolic data. Such methods are left uninstrumented, and calls to them
+ * are replaced by a single callback that discards the arguments from the
+ * symbolic stack before the call and pushes the concrete result after it.
+ *
+ * The analysis tracks, for every value on the operand stack and in the local
+ * variables, whether it may be symbolic ("tainted"). Values read from fields
+ * and arrays, returned by non-target methods, or passed to trigger and
+ * instance methods are tainted. So are the parameters of methods named by
+ * method handles in {@code invokedynamic} instructions (such as lambda bodies)
+ * and in constants, since such methods may be called from anywhere; they are
+ * never elided. The parameters of other static methods are tainted only if a
+ * tainted value is passed for them at some call site, and the result
+ * of a static method only if a tainted value is returned; these summaries are
+ * computed interprocedurally, until a fixed point is reached.
+ *
+ * A method is elided if it is static and not a trigger, returns a primitive
+ * value or nothing, none of its parameters is tainted, and it only computes
+ * with local variables and constants and calls other elided methods. It may
+ * therefore not read or write fields or arrays, create objects, or call any
+ * other methods. This ensures that skipping its callbacks leaves the symbolic
+ * state exactly as it would have been, except that its instructions are not
+ * seen by observers.
+ */
+public class TaintAnalysis {
+
+	private final COASTAL coastal;
+
+	/**
+	 * The classes to analyze, by internal name.
+	 */
+	private final Map<String, ClassNode> classes = new HashMap<>();
+
+	/**
+	 * The methods of the classes, by class name, method name, and descriptor.
+	 */
+	private final Map<String, MethodSummary> methods = new HashMap<>();
+
+	/**
+	 * The keys of elided methods, and of the names under which they are invoked.
+	 */
+	private final Set<String> elided = new HashSet<>();
+
+	private int elidedCount = 0;
+
+	private String digest = "";
+
+	/**
+	 * What is known about a method.
+	 */
+	private static class MethodSummary {
+
+		final MethodNode node;
+
+		/**
+		 * Whether each parameter slot may hold a symbolic value.
+		 */
+		final boolean[] paramTaint;
+
+		/**
+		 * Whether the method may return a symbolic value.
+		 */
+		boolean returnTaint = false;
+
+		/**
+		 * Whether the method may be elided, as far as its own instructions are
+		 * concerned.
+		 */
+		boolean isCandidate;
+
+		MethodSummary(MethodNode node, int paramSlots) {
+			this.node = node;
+			this.paramTaint = new boolean[paramSlots];
+		}
+
+	}
+
+	/**
+	 * Construct a new analysis.
+	 *
+	 * @param coastal
+	 *                instance of COASTAL
+	 */
+	public TaintAnalysis(COASTAL coastal) {
+		this.coastal = coastal;
+	}
+
+	/**
+	 * Add a class to the analysis.
+	 *
+	 * @param classFile
+	 *                  the class file
+	 */
+	public void addClass(byte[] classFile) {
+		ClassNode cn = new ClassNode();
+		new ClassReader(classFile).accept(cn, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+		classes.put(cn.name, cn);
+	}
+
+	/**
+	 * Analyze the classes that have been added and decide which methods are
+	 * elided.
+	 */
+	public void analyze() {
+		for (ClassNode cn : classes.values()) {
+			String className = cn.name.replace('/', '.');
+			for (MethodNode mn : cn.methods) {
+				boolean isStatic = (mn.access & Opcodes.ACC_STATIC) != 0;
+				boolean isTrigger = coastal.findTrigger(className + "." + mn.name, mn.desc) >= 0;
+				int paramSlots = (Type.getArgumentsAndReturnSizes(mn.desc) >> 2) - (isStatic ? 1 : 0);
+				MethodSummary method = new MethodSummary(mn, paramSlots);
+				if (!isStatic || isTrigger) {
+					Arrays.fill(method.paramTaint, true);
+				}
+				char returnType = Type.getReturnType(mn.desc).getDescriptor().charAt(0);
+				method.isCandidate = isStatic && !isTrigger && (mn.name.charAt(0) != '<')
+						&& (mn.instructions.size() > 0) && (returnType != 'L') && (returnType != '[')
+						&& isPure(mn);
+				methods.put(getKey(cn.name, mn.name, mn.desc), method);
+			}
+		}
+		// Methods named by method handles may be called with any arguments
+		for (MethodSummary method : methods.values()) {
+			for (AbstractInsnNode insn = method.node.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+				if (insn instanceof InvokeDynamicInsnNode) {
+					InvokeDynamicInsnNode indy = (InvokeDynamicInsnNode) insn;
+					taint(indy.bsm);
+					for (Object arg : indy.bsmArgs) {
+						if (arg instanceof Handle) {
+							taint((Handle) arg);
+						}
+					}
+				} else if ((insn instanceof LdcInsnNode) && (((LdcInsnNode) insn).cst instanceof Handle)) {
+					taint((Handle) ((LdcInsnNode) insn).cst);
+				}
+			}
+		}
+		// Propagate taint until nothing changes
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (MethodSummary method : methods.values()) {
+				changed |= analyze(method);
+			}
+		}
+		// Drop candidates that are tainted or call methods that are not elided
+		for (MethodSummary method : methods.values()) {
+			if (method.isCandidate) {
+				method.isCandidate = !method.returnTaint;
+				for (boolean taint : method.paramTaint) {
+					method.isCandidate &= !taint;
+				}
+			}
+		}
+		changed = true;
+		while (changed) {
+			changed = false;
+			for (MethodSummary method : methods.values()) {
+				if (method.isCandidate && !callsOnlyCandidates(method)) {
+					method.isCandidate = false;
+					changed = true;
+				}
+			}
+		}
+		// Record the elided methods and the names under which they are called
+		List<String> keys = new ArrayList<>();
+		for (Map.Entry<String, MethodSummary> entry : methods.entrySet()) {
+			MethodSummary method = entry.getValue();
+			if (method.isCandidate) {
+				elided.add(entry.getKey());
+				keys.add(entry.getKey());
+				elidedCount++;
+			}
+			for (AbstractInsnNode insn = method.node.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+				if (insn.getOpcode() == Opcodes.INVOKESTATIC) {
+					MethodInsnNode call = (MethodInsnNode) insn;
+					MethodSummary callee = resolve(call);
+					if ((callee != null) && callee.isCandidate) {
+						elided.add(getKey(call.owner, call.name, call.desc));
+					}
+				}
+			}
+		}
+		Collections.sort(keys);
+		digest = hash(keys);
+		classes.clear();
+		methods.clear();
+	}
+
+	/**
+	 * Check whether a method is elided. This applies both to the declaration of
+	 * the method and to calls of the method.
+	 *
+	 * @param owner
+	 *                   the internal name of the class that declares the method,
+	 *                   or of the class named in the invoke instruction
+	 * @param name
+	 *                   the name of the method
+	 * @param descriptor
+	 *                   the descriptor of the method
+	 * @return {@code true} if and only if the method is elided
+	 */
+	public boolean isElided(String owner, String name, String descriptor) {
+		return elided.contains(getKey(owner, name, descriptor));
+	}
+
+	/**
+	 * Return the number of elided methods.
+	 *
+	 * @return the number of elided methods
+	 */
+	public int getElidedCount() {
+		return elidedCount;
+	}
+
+	/**
+	 * Return a hash of the elided methods. Since the instrumentation of a class
+	 * depends on which methods of other classes are elided, this is part of the
+	 * key of the on-disk cache.
+	 *
+	 * @return a hash of the elided methods
+	 */
+	public String getDigest() {
+		return digest;
+	}
+
+	// ======================================================================
+	//
+	// CANDIDATES
+	//
+	// ======================================================================
+
+	/**
+	 * Check whether a method only computes with local variables and constants,
+	 * and only calls static methods.
+	 */
+	private static boolean isPure(MethodNode mn) {
+		for (AbstractInsnNode insn = mn.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			int opcode = insn.getOpcode();
+			switch (insn.getType()) {
+			case AbstractInsnNode.INSN:
+				if (((opcode >= Opcodes.IALOAD) && (opcode <= Opcodes.SALOAD))
+						|| ((opcode >= Opcodes.IASTORE) && (opcode <= Opcodes.SASTORE))
+						|| (opcode == Opcodes.ARETURN)) {
+					return false;
+				}
+				break;
+			case AbstractInsnNode.INT_INSN:
+				if (opcode == Opcodes.NEWARRAY) {
+					return false;
+				}
+				break;
+			case AbstractInsnNode.VAR_INSN:
+				if (opcode == Opcodes.RET) {
+					return false;
+				}
+				break;
+			case AbstractInsnNode.JUMP_INSN:
+				if (opcode == Opcodes.JSR) {
+					return false;
+				}
+				break;
+			case AbstractInsnNode.LDC_INSN:
+				if (!(((LdcInsnNode) insn).cst instanceof Number)) {
+					return false;
+				}
+				break;
+			case AbstractInsnNode.METHOD_INSN:
+				if (opcode != Opcodes.INVOKESTATIC) {
+					return false;
+				}
+				break;
+			case AbstractInsnNode.TYPE_INSN:
+			case AbstractInsnNode.FIELD_INSN:
+			case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+			case AbstractInsnNode.MULTIANEWARRAY_INSN:
+				return false;
+			default:
+				break;
+			}
+		}
+		return true;
+	}
+
+	private boolean callsOnlyCandidates(MethodSummary method) {
+		for (AbstractInsnNode insn = method.node.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn.getType() == AbstractInsnNode.METHOD_INSN) {
+				MethodSummary callee = resolve((MethodInsnNode) insn);
+				if ((callee == null) || !callee.isCandidate) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Find the static method that an invoke instruction calls, by looking for it
+	 * in the named class and its superclasses.
+	 *
+	 * @return the method or {@code null} if it is not declared in one of the
+	 *         analyzed classes
+	 */
+	private MethodSummary resolve(MethodInsnNode call) {
+		for (String owner = call.owner; owner != null;) {
+			MethodSummary method = methods.get(getKey(owner, call.name, call.desc));
+			if (method != null) {
+				return ((method.node.access & Opcodes.ACC_STATIC) != 0) ? method : null;
+			}
+			ClassNode cn = classes.get(owner);
+			owner = (cn == null) ? null : cn.superName;
+		}
+		return null;
+	}
+
+	// ======================================================================
+	//
+	// TAINT PROPAGATION
+	//
+	// ======================================================================
+
+	/**
+	 * Taint all the parameters of the method that a method handle names, looking
+	 * for it in the named class and its superclasses, and make sure that the
+	 * method is not elided.
+	 */
+	private void taint(Handle handle) {
+		for (String owner = handle.getOwner(); owner != null;) {
+			MethodSummary method = methods.get(getKey(owner, handle.getName(), handle.getDesc()));
+			if (method != null) {
+				Arrays.fill(method.paramTaint, true);
+				method.isCandidate = false;
+				return;
+			}
+			ClassNode cn = classes.get(owner);
+			owner = (cn == null) ? null : cn.superName;
+		}
+	}
+
+	/**
+	 * Propagate taint through a method, given the taint of its parameters.
+	 * Tainted arguments of calls to static methods are recorded in the callees.
+	 *
+	 * @return {@code true} if and only if the summary of this method or of one of
+	 *         its callees changed
+	 */
+	private boolean analyze(MethodSummary method) {
+		MethodNode mn = method.node;
+		InsnList insns = mn.instructions;
+		int n = insns.size();
+		if (n == 0) {
+			return false;
+		}
+		boolean changed = false;
+		boolean returnTaint = false;
+		try {
+			Frame[] frames = new Frame[n];
+			Frame entry = new Frame(mn.maxLocals, mn.maxStack);
+			System.arraycopy(method.paramTaint, 0, entry.locals, 0, method.paramTaint.length);
+			frames[0] = entry;
+			List<Integer> worklist = new ArrayList<>();
+			worklist.add(0);
+			while (!worklist.isEmpty()) {
+				int index = worklist.remove(worklist.size() - 1);
+				AbstractInsnNode insn = insns.get(index);
+				Frame frame = new Frame(frames[index]);
+				if (insn.getType() == AbstractInsnNode.METHOD_INSN) {
+					changed |= recordArguments((MethodInsnNode) insn, frame);
+				}
+				returnTaint |= execute(insn, frame);
+				for (TryCatchBlockNode tcb : mn.tryCatchBlocks) {
+					if ((index >= insns.indexOf(tcb.start)) && (index < insns.indexOf(tcb.end))) {
+						Frame handler = new Frame(frames[index]);
+						handler.join(frame.locals);
+						handler.sp = 0;
+						handler.push(true);
+						merge(frames, worklist, insns.indexOf(tcb.handler), handler);
+					}
+				}
+				for (int successor : getSuccessors(insns, insn, index)) {
+					merge(frames, worklist, successor, frame);
+				}
+			}
+		} catch (RuntimeException x) {
+			// Unusual code: give up on this method
+			returnTaint = true;
+			for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+				if (insn.getOpcode() == Opcodes.INVOKESTATIC) {
+					MethodSummary callee = resolve((MethodInsnNode) insn);
+					if (callee != null) {
+						for (int i = 0; i < callee.paramTaint.length; i++) {
+							changed |= !callee.paramTaint[i];
+							callee.paramTaint[i] = true;
+						}
+					}
+				}
+			}
+		}
+		if (returnTaint && !method.returnTaint) {
+			method.returnTaint = true;
+			changed = true;
+		}
+		return changed;
+	}
+
+	private boolean recordArguments(MethodInsnNode call, Frame frame) {
+		if (call.getOpcode() != Opcodes.INVOKESTATIC) {
+			return false;
+		}
+		MethodSummary callee = resolve(call);
+		if (callee == null) {
+			return false;
+		}
+		boolean changed = false;
+		int base = frame.sp - callee.paramTaint.length;
+		for (int i = 0; i < callee.paramTaint.length; i++) {
+			if (frame.stack[base + i] && !callee.paramTaint[i]) {
+				callee.paramTaint[i] = true;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private static void merge(Frame[] frames, List<Integer> worklist, int index, Frame frame) {
+		if (frames[index] == null) {
+			frames[index] = new Frame(frame);
+			worklist.add(index);
+		} else if (frames[index].join(frame)) {
+			worklist.add(index);
+		}
+	}
+
+	private static List<Integer> getSuccessors(InsnList insns, AbstractInsnNode insn, int index) {
+		List<Integer> successors = new ArrayList<>();
+		int opcode = insn.getOpcode();
+		if (insn instanceof JumpInsnNode) {
+			successors.add(insns.indexOf(((JumpInsnNode) insn).label));
+			if (opcode == Opcodes.GOTO) {
+				return successors;
+			}
+		} else if (insn instanceof TableSwitchInsnNode) {
+			TableSwitchInsnNode sw = (TableSwitchInsnNode) insn;
+			successors.add(insns.indexOf(sw.dflt));
+			for (LabelNode label : sw.labels) {
+				successors.add(insns.indexOf(label));
+			}
+			return successors;
+		} else if (insn instanceof LookupSwitchInsnNode) {
+			LookupSwitchInsnNode sw = (LookupSwitchInsnNode) insn;
+			successors.add(insns.indexOf(sw.dflt));
+			for (LabelNode label : sw.labels) {
+				successors.add(insns.indexOf(label));
+			}
+			return successors;
+		} else if (((opcode >= Opcodes.IRETURN) && (opcode <= Opcodes.RETURN)) || (opcode == Opcodes.ATHROW)) {
+			return successors;
+		}
+		if (index + 1 < insns.size()) {
+			successors.add(index + 1);
+		}
+		return successors;
+	}
+
+	/**
+	 * Execute an instruction on a frame.
+	 *
+	 * @return {@code true} if and only if the instruction returns a tainted value
+	 */
+	private boolean execute(AbstractInsnNode insn, Frame f) {
+		int opcode = insn.getOpcode();
+		switch (insn.getType()) {
+		case AbstractInsnNode.INSN:
+			return executeInsn(opcode, f);
+		case AbstractInsnNode.INT_INSN:
+			f.op((opcode == Opcodes.NEWARRAY) ? 1 : 0, 1);
+			break;
+		case AbstractInsnNode.VAR_INSN:
+			int var = ((VarInsnNode) insn).var;
+			switch (opcode) {
+			case Opcodes.ILOAD:
+			case Opcodes.FLOAD:
+			case Opcodes.ALOAD:
+				f.push(f.locals[var]);
+				break;
+			case Opcodes.LLOAD:
+			case Opcodes.DLOAD:
+				f.push(f.locals[var]);
+				f.push(f.locals[var]);
+				break;
+			case Opcodes.ISTORE:
+			case Opcodes.FSTORE:
+			case Opcodes.ASTORE:
+				f.locals[var] = f.pop();
+				break;
+			case Opcodes.LSTORE:
+			case Opcodes.DSTORE:
+				f.pop();
+				f.locals[var] = f.locals[var + 1] = f.pop();
+				break;
+			default:
+				throw new IllegalStateException("unsupported instruction " + opcode);
+			}
+			break;
+		case AbstractInsnNode.TYPE_INSN:
+			if (opcode == Opcodes.NEW) {
+				f.push(false);
+			} else {
+				f.op(1, 1);
+			}
+			break;
+		case AbstractInsnNode.FIELD_INSN:
+			int size = Type.getType(((FieldInsnNode) insn).desc).getSize();
+			switch (opcode) {
+			case Opcodes.GETSTATIC:
+				f.push(true, size);
+				break;
+			case Opcodes.PUTSTATIC:
+				f.popN(size);
+				break;
+			case Opcodes.GETFIELD:
+				f.pop();
+				f.push(true, size);
+				break;
+			default:
+				f.popN(size + 1);
+				break;
+			}
+			break;
+		case AbstractInsnNode.METHOD_INSN:
+			MethodInsnNode call = (MethodInsnNode) insn;
+			int sizes = Type.getArgumentsAndReturnSizes(call.desc);
+			f.popN((sizes >> 2) - ((opcode == Opcodes.INVOKESTATIC) ? 1 : 0));
+			MethodSummary callee = (opcode == Opcodes.INVOKESTATIC) ? resolve(call) : null;
+			f.push((callee == null) || callee.returnTaint, sizes & 3);
+			break;
+		case AbstractInsnNode.INVOKE_DYNAMIC_INSN:
+			String desc = ((InvokeDynamicInsnNode) insn).desc;
+			sizes = Type.getArgumentsAndReturnSizes(desc);
+			f.popN((sizes >> 2) - 1);
+			f.push(true, sizes & 3);
+			break;
+		case AbstractInsnNode.JUMP_INSN:
+			switch (opcode) {
+			case Opcodes.GOTO:
+				break;
+			case Opcodes.IF_ICMPEQ:
+			case Opcodes.IF_ICMPNE:
+			case Opcodes.IF_ICMPLT:
+			case Opcodes.IF_ICMPGE:
+			case Opcodes.IF_ICMPGT:
+			case Opcodes.IF_ICMPLE:
+			case Opcodes.IF_ACMPEQ:
+			case Opcodes.IF_ACMPNE:
+				f.popN(2);
+				break;
+			case Opcodes.JSR:
+				throw new IllegalStateException("unsupported instruction " + opcode);
+			default:
+				f.pop();
+				break;
+			}
+			break;
+		case AbstractInsnNode.LDC_INSN:
+			Object cst = ((LdcInsnNode) insn).cst;
+			f.push(false, ((cst instanceof Long) || (cst instanceof Double)) ? 2 : 1);
+			break;
+		case AbstractInsnNode.TABLESWITCH_INSN:
+		case AbstractInsnNode.LOOKUPSWITCH_INSN:
+			f.pop();
+			break;
+		case AbstractInsnNode.MULTIANEWARRAY_INSN:
+			f.op(((MultiANewArrayInsnNode) insn).dims, 1);
+			break;
+		default:
+			// labels, line numbers, and frames
+			break;
+		}
+		return false;
+	}
+
+	private static boolean executeInsn(int opcode, Frame f) {
+		switch (opcode) {
+		case Opcodes.NOP:
+			break;
+		case Opcodes.ACONST_NULL:
+		case Opcodes.ICONST_M1:
+		case Opcodes.ICONST_0:
+		case Opcodes.ICONST_1:
+		case Opcodes.ICONST_2:
+		case Opcodes.ICONST_3:
+		case Opcodes.ICONST_4:
+		case Opcodes.ICONST_5:
+		case Opcodes.FCONST_0:
+		case Opcodes.FCONST_1:
+		case Opcodes.FCONST_2:
+			f.push(false);
+			break;
+		case Opcodes.LCONST_0:
+		case Opcodes.LCONST_1:
+		case Opcodes.DCONST_0:
+		case Opcodes.DCONST_1:
+			f.push(false, 2);
+			break;
+		case Opcodes.IALOAD:
+		case Opcodes.FALOAD:
+		case Opcodes.AALOAD:
+		case Opcodes.BALOAD:
+		case Opcodes.CALOAD:
+		case Opcodes.SALOAD:
+			f.popN(2);
+			f.push(true);
+			break;
+		case Opcodes.LALOAD:
+		case Opcodes.DALOAD:
+			f.popN(2);
+			f.push(true, 2);
+			break;
+		case Opcodes.IASTORE:
+		case Opcodes.FASTORE:
+		case Opcodes.AASTORE:
+		case Opcodes.BASTORE:
+		case Opcodes.CASTORE:
+		case Opcodes.SASTORE:
+			f.popN(3);
+			break;
+		case Opcodes.LASTORE:
+		case Opcodes.DASTORE:
+			f.popN(4);
+			break;
+		case Opcodes.POP:
+		case Opcodes.ATHROW:
+		case Opcodes.MONITORENTER:
+		case Opcodes.MONITOREXIT:
+			f.pop();
+			break;
+		case Opcodes.POP2:
+			f.popN(2);
+			break;
+		case Opcodes.DUP:
+			f.dup(1, 0);
+			break;
+		case Opcodes.DUP_X1:
+			f.dup(1, 1);
+			break;
+		case Opcodes.DUP_X2:
+			f.dup(1, 2);
+			break;
+		case Opcodes.DUP2:
+			f.dup(2, 0);
+			break;
+		case Opcodes.DUP2_X1:
+			f.dup(2, 1);
+			break;
+		case Opcodes.DUP2_X2:
+			f.dup(2, 2);
+			break;
+		case Opcodes.SWAP:
+			boolean a = f.pop(), b = f.pop();
+			f.push(a);
+			f.push(b);
+			break;
+		case Opcodes.IADD:
+		case Opcodes.ISUB:
+		case Opcodes.IMUL:
+		case Opcodes.IDIV:
+		case Opcodes.IREM:
+		case Opcodes.ISHL:
+		case Opcodes.ISHR:
+		case Opcodes.IUSHR:
+		case Opcodes.IAND:
+		case Opcodes.IOR:
+		case Opcodes.IXOR:
+		case Opcodes.FADD:
+		case Opcodes.FSUB:
+		case Opcodes.FMUL:
+		case Opcodes.FDIV:
+		case Opcodes.FREM:
+		case Opcodes.FCMPL:
+		case Opcodes.FCMPG:
+			f.op(2, 1);
+			break;
+		case Opcodes.LADD:
+		case Opcodes.LSUB:
+		case Opcodes.LMUL:
+		case Opcodes.LDIV:
+		case Opcodes.LREM:
+		case Opcodes.LAND:
+		case Opcodes.LOR:
+		case Opcodes.LXOR:
+		case Opcodes.DADD:
+		case Opcodes.DSUB:
+		case Opcodes.DMUL:
+		case Opcodes.DDIV:
+		case Opcodes.DREM:
+			f.op(4, 2);
+			break;
+		case Opcodes.LSHL:
+		case Opcodes.LSHR:
+		case Opcodes.LUSHR:
+			f.op(3, 2);
+			break;
+		case Opcodes.LCMP:
+		case Opcodes.DCMPL:
+		case Opcodes.DCMPG:
+			f.op(4, 1);
+			break;
+		case Opcodes.INEG:
+		case Opcodes.FNEG:
+		case Opcodes.I2F:
+		case Opcodes.F2I:
+		case Opcodes.I2B:
+		case Opcodes.I2C:
+		case Opcodes.I2S:
+		case Opcodes.ARRAYLENGTH:
+			f.op(1, 1);
+			break;
+		case Opcodes.LNEG:
+		case Opcodes.DNEG:
+		case Opcodes.L2D:
+		case Opcodes.D2L:
+			f.op(2, 2);
+			break;
+		case Opcodes.I2L:
+		case Opcodes.I2D:
+		case Opcodes.F2L:
+		case Opcodes.F2D:
+			f.op(1, 2);
+			break;
+		case Opcodes.L2I:
+		case Opcodes.L2F:
+		case Opcodes.D2I:
+		case Opcodes.D2F:
+			f.op(2, 1);
+			break;
+		case Opcodes.IRETURN:
+		case Opcodes.FRETURN:
+		case Opcodes.ARETURN:
+			return f.pop();
+		case Opcodes.LRETURN:
+		case Opcodes.DRETURN:
+			return f.popN(2);
+		case Opcodes.RETURN:
+			break;
+		default:
+			throw new IllegalStateException("unsupported instruction " + opcode);
+		}
+		return false;
+	}
+
+	/**
+	 * The taint of the local variables and operand stack slots before an
+	 * instruction. Long and double values occupy two slots with the same taint.
+	 */
+	private static class Frame {
+
+		final boolean[] locals;
+
+		final boolean[] stack;
+
+		int sp = 0;
+
+		Frame(int maxLocals, int maxStack) {
+			locals = new boolean[maxLocals];
+			stack = new boolean[maxStack];
+		}
+
+		Frame(Frame frame) {
+			locals = frame.locals.clone();
+			stack = frame.stack.clone();
+			sp = frame.sp;
+		}
+
+		void push(boolean taint) {
+			stack[sp++] = taint;
+		}
+
+		void push(boolean taint, int size) {
+			for (int i = 0; i < size; i++) {
+				stack[sp++] = taint;
+			}
+		}
+
+		boolean pop() {
+			return stack[--sp];
+		}
+
+		boolean popN(int n) {
+			boolean taint = false;
+			for (int i = 0; i < n; i++) {
+				taint |= stack[--sp];
+			}
+			return taint;
+		}
+
+		/**
+		 * Pop some slots and push a result that is tainted if any of them was.
+		 */
+		void op(int pops, int pushes) {
+			push(popN(pops), pushes);
+		}
+
+		/**
+		 * Duplicate the top {@code n} slots and insert them below the next
+		 * {@code below} slots.
+		 */
+		void dup(int n, int below) {
+			boolean[] top = Arrays.copyOfRange(stack, sp - n, sp);
+			boolean[] rest = Arrays.copyOfRange(stack, sp - n - below, sp - n);
+			sp -= n + below;
+			for (boolean taint : top) {
+				push(taint);
+			}
+			for (boolean taint : rest) {
+				push(taint);
+			}
+			for (boolean taint : top) {
+				push(taint);
+			}
+		}
+
+		boolean join(boolean[] otherLocals) {
+			boolean changed = false;
+			for (int i = 0; i < locals.length; i++) {
+				if (otherLocals[i] && !locals[i]) {
+					locals[i] = true;
+					changed = true;
+				}
+			}
+			return changed;
+		}
+
+		boolean join(Frame frame) {
+			if (frame.sp != sp) {
+				throw new IllegalStateException("inconsistent stack heights");
+			}
+			boolean changed = join(frame.locals);
+			for (int i = 0; i < sp; i++) {
+				if (frame.stack[i] && !stack[i]) {
+					stack[i] = true;
+					changed = true;
+				}
+			}
+			return changed;
+		}
+
+	}
+
+	// ======================================================================
+	//
+	// HELPER ROUTINES
+	//
+	// ======================================================================
+
+	private static String getKey(String owner, String name, String descriptor) {
+		return owner + "." + name + descriptor;
+	}
+
+	private static String hash(List<String> keys) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			for (String key : keys) {
+				digest.update(key.getBytes(StandardCharsets.UTF_8));
+				digest.update((byte) '\n');
+			}
+			StringBuilder b = new StringBuilder();
+			for (byte x : digest.digest()) {
+				b.append(String.format("%02x", x));
+			}
+			return b.toString();
+		} catch (NoSuchAlgorithmException x) {
+			throw new IllegalStateException(x);
+		}
+	}
+
+}
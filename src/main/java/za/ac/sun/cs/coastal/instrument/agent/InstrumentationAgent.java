@@ -16,9 +16,20 @@ import java.security.ProtectionDomain;
 import org.apache.logging.log4j.Logger;
 
 import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.instrument.HeavyClassLoader;
+import za.ac.sun.cs.coastal.instrument.LightClassLoader;
+import za.ac.sun.cs.coastal.symbolic.VM;
 
 /**
  * Java agent to transform certain classes with instrumentation.
+ *
+ * When COASTAL is started with {@code -javaagent:coastal.jar} and the setting
+ * {@code coastal.settings.agent} is {@code true}, the target classes are
+ * instrumented once, as they are loaded by their ordinary class loaders
+ * (usually the system class loader). All divers then share the same classes,
+ * and the instrumentation callbacks are forwarded to the state of the current
+ * thread (see {@link VM#useThreadState()}). Surfers need lightly instrumented
+ * classes of their own, so the agent is not used when surfers are configured.
  */
 public final class InstrumentationAgent implements ClassFileTransformer {
 
@@ -28,7 +39,12 @@ public final class InstrumentationAgent implements ClassFileTransformer {
 		INSTANCE = new InstrumentationAgent();
 	}
 
-	protected COASTAL coastal;
+	/**
+	 * Whether the agent was installed when the JVM started.
+	 */
+	private static volatile boolean isInstalled = false;
+
+	protected volatile COASTAL coastal;
 
 	/**
 	 * The logger for this analysis run. This is not created but set by the outside
@@ -45,16 +61,29 @@ public final class InstrumentationAgent implements ClassFileTransformer {
 
 	public static void premain(String agentArgs, Instrumentation instrumentation) {
 		instrumentation.addTransformer(INSTANCE);
+		isInstalled = true;
+	}
+
+	/**
+	 * Check whether the agent was installed with {@code -javaagent}.
+	 *
+	 * @return {@code true} if and only if the agent is installed
+	 */
+	public static boolean isInstalled() {
+		return isInstalled;
 	}
 
 	public static void activate(COASTAL coastal) {
-		INSTANCE.coastal = coastal;
 		INSTANCE.log = coastal.getLog();
+		VM.useThreadState();
+		INSTANCE.coastal = coastal;
 		INSTANCE.log.info("agent activated");
 	}
 
 	/**
-	 *
+	 * Instrument a class if it is a target class. Classes loaded by the bootstrap
+	 * loader, and classes loaded by the class loaders of COASTAL itself (which
+	 * instrument classes on their own) are left unchanged.
 	 *
 	 * @param loader
 	 *                            defining loader of the class to be transformed,
@@ -84,9 +113,25 @@ public final class InstrumentationAgent implements ClassFileTransformer {
 	@Override
 	public byte[] transform(ClassLoader loader, String className, Class<?> classBeingRedefined,
 			ProtectionDomain protectionDomain, byte[] classfileBuffer) throws IllegalClassFormatException {
-		if (loader.getClass().getSimpleName().equals("HeavyClassLoader")) {
-			log.info("(((className=={})))", className);
+		COASTAL coastal = this.coastal;
+		if ((coastal == null) || (loader == null) || (className == null) || (classBeingRedefined != null)) {
+			return null;
+		}
+		if ((loader instanceof HeavyClassLoader) || (loader instanceof LightClassLoader)) {
+			return null;
+		}
+		String name = className.replace('/', '.');
+		if (!coastal.isTarget(name)) {
+			return null;
+		}
+		try {
+			log.trace("> agent instrumenting class {}", name);
+			return coastal.getClassManager().transformHeavy(loader, name, classfileBuffer);
+		} catch (Throwable x) {
+			// Exceptions thrown by transformers are silently ignored by the JVM
+			log.fatal("agent could not instrument class " + name, x);
+			return null;
 		}
-		return null;
 	}
+
 }
@@ -1,6 +1,9 @@
 package za.ac.sun.cs.coastal.pathtree;
 
+import java.util.ArrayDeque;
 import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.PriorityBlockingQueue;
@@ -17,6 +20,7 @@ import za.ac.sun.cs.coastal.messages.Tuple;
 import za.ac.sun.cs.coastal.solver.Expression;
 import za.ac.sun.cs.coastal.surfer.Trace;
 import za.ac.sun.cs.coastal.symbolic.Execution;
+import za.ac.sun.cs.coastal.symbolic.Input;
 import za.ac.sun.cs.coastal.symbolic.Path;
 
 /**
@@ -47,7 +51,7 @@ public class PathTree implements Comparator<PathTreeNode> {
 	/**
 	 * The root of the tree.
 	 */
-	private PathTreeNode root = null;
+	private volatile PathTreeNode root = null;
 
 	/**
 	 * The number of paths inserted.
@@ -255,9 +259,7 @@ public class PathTree implements Comparator<PathTreeNode> {
 	 */
 	private PathTreeNode insert(Execution execution, Path[] paths, boolean isInfeasible) {
 		int depth = paths.length;
-		PathTreeNode[] visitedNodes = new PathTreeNode[depth];
 		PathTreeNode parent = root;
-		visitedNodes[0] = root;
 		long alt = paths[0].getChoice().getAlternative();
 		for (int j = 1; j < depth; j++) {
 			if (paths[j].getChoice().getBranch() instanceof Trace) {
@@ -268,31 +270,24 @@ public class PathTree implements Comparator<PathTreeNode> {
 			}
 			PathTreeNode n = parent.getChild(alt);
 			if (n == null) {
-				parent.lock();
-				if (parent.getChild(alt) == null) {
-					n = parent.createChild(paths[j], alt);
-				} else {
-					n = parent.getChild(alt);
-				}
-				parent.unlock();
+				n = parent.createChild(paths[j], alt);
 			}
 			parent = n;
-			visitedNodes[j] = n;
 			alt = paths[j].getChoice().getAlternative();
 		}
 		// At this point:
 		// parent == node{i_d-1}, j == depth, i == i_d-1 == path[j-1].getOutcomeIndex()
 		PathTreeNode n = parent.getChild(alt);
 		if (n == null) {
-			parent.lock();
-			if (parent.getChild(alt) == null) {
-				if (isInfeasible) {
-					n = parent.createInfeasible(alt, execution);
-				} else {
-					n = parent.createLeaf(alt, execution);
-				}
+			if (isInfeasible) {
+				n = parent.createInfeasible(alt, execution);
+			} else {
+				n = parent.createLeaf(alt, execution);
+			}
+			if (n == null) {
+				// another thread inserted the same path concurrently
+				revisitCount.incrementAndGet();
 			}
-			parent.unlock();
 		} else {
 			if (isInfeasible) {
 				assert n.isInfeasible();
@@ -302,26 +297,11 @@ public class PathTree implements Comparator<PathTreeNode> {
 			n = null;
 			revisitCount.incrementAndGet();
 		}
-		for (int j = depth - 1; j >= 0; j--) {
-			PathTreeNode node = visitedNodes[j];
-			if (!node.isFullyExplored()) {
-				int k = node.getChildCount();
-				boolean full = true;
-				for (alt = 0; alt < k; alt++) {
-					PathTreeNode x = node.getChild(alt);
-					if ((x == null) || !x.isComplete()) {
-						full = false;
-						break;
-					}
-				}
-				if (full) {
-					node.lock();
-					if (!node.isFullyExplored()) {
-						log.trace("  setting {} as fully explored", getId(node));
-						node.setFullyExplored();
-					}
-					node.unlock();
-				}
+		if (n != null) {
+			// A new terminal node completes one child of its parent; propagate
+			// upwards for as long as nodes become fully explored.
+			for (PathTreeNode node = parent; (node != null) && node.childCompleted(); node = node.getParent()) {
+				log.trace("  setting {} as fully explored", getId(node));
 			}
 		}
 		if (recordDeepest && (n != null) && !n.isFullyExplored()) {
@@ -331,6 +311,219 @@ public class PathTree implements Comparator<PathTreeNode> {
 		return n;
 	}
 
+	// ======================================================================
+	//
+	// FRONTIER
+	//
+	// ======================================================================
+
+	/**
+	 * The order in which a frontier hands out unexplored child slots.
+	 */
+	public enum FrontierOrder {
+		DEPTH_FIRST, BREADTH_FIRST
+	}
+
+	/**
+	 * A range of child slots of an inner node. Some of the slots may already have
+	 * been explored. Slots are grouped in ranges so that wide branches do not
+	 * need one frontier entry per alternative.
+	 */
+	private static final class FrontierSlots {
+
+		final PathTreeNode node;
+
+		final int from;
+
+		final int to;
+
+		FrontierSlots(PathTreeNode node, int from, int to) {
+			this.node = node;
+			this.from = from;
+			this.to = to;
+		}
+
+	}
+
+	/**
+	 * The frontiers that have been requested so far, one per order.
+	 */
+	private final Map<FrontierOrder, Frontier> frontiers = new EnumMap<>(FrontierOrder.class);
+
+	/**
+	 * The part of the tree that has not yet been explored, kept so that
+	 * strategies do not have to walk down from the root for every new path. The
+	 * paths are handed out in the same order as by such a walk.
+	 *
+	 * For the depth-first order, the frontier is the stack of nodes from the root
+	 * to the node that is currently being explored. At each node, the leftmost
+	 * child that has been created but is not yet complete is explored first; only
+	 * when there is no such child, the leftmost unexplored slot is returned. Nodes
+	 * are popped once they are complete. (If other threads insert paths to the
+	 * left of the current node, those paths are explored when the current subtree
+	 * is complete, instead of immediately.)
+	 *
+	 * For the breadth-first order, the frontier is a queue of ranges of child
+	 * slots. Slots are discovered lazily: when a slot turns out to have been
+	 * filled by an inner node that is not yet complete, the child slots of that
+	 * node are added to the end of the queue. Slots that have been filled are
+	 * discarded. Each slot is therefore examined only a constant number of times.
+	 */
+	private final class Frontier {
+
+		private final FrontierOrder order;
+
+		private final ArrayDeque<PathTreeNode> nodes = new ArrayDeque<>();
+
+		private final ArrayDeque<FrontierSlots> slots = new ArrayDeque<>();
+
+		private boolean isSeeded = false;
+
+		Frontier(FrontierOrder order) {
+			this.order = order;
+		}
+
+		synchronized Path findPath() {
+			if (!isSeeded) {
+				if (root == null) {
+					return null;
+				}
+				if (order == FrontierOrder.DEPTH_FIRST) {
+					nodes.push(root);
+				} else {
+					slots.addLast(new FrontierSlots(root, 0, root.getChildCount()));
+				}
+				isSeeded = true;
+			}
+			if (order == FrontierOrder.DEPTH_FIRST) {
+				return findDepthFirst();
+			} else {
+				return findBreadthFirst();
+			}
+		}
+
+		private Path findDepthFirst() {
+			outer: while (!nodes.isEmpty()) {
+				PathTreeNode node = nodes.peek();
+				if (node.isComplete()) {
+					nodes.pop();
+					continue;
+				}
+				int n = node.getChildCount();
+				for (int i = 0; i < n; i++) {
+					PathTreeNode child = node.getChild(i);
+					if ((child != null) && !child.isComplete()) {
+						nodes.push(child);
+						continue outer;
+					}
+				}
+				for (int i = 0; i < n; i++) {
+					if (node.getChild(i) == null) {
+						return node.getPathForChild(i);
+					}
+				}
+				// All children are complete, but the node has not been marked yet
+				nodes.pop();
+			}
+			return null;
+		}
+
+		private Path findBreadthFirst() {
+			while (!slots.isEmpty()) {
+				FrontierSlots range = slots.peekFirst();
+				if (range.from >= range.to) {
+					slots.removeFirst();
+					continue;
+				}
+				PathTreeNode child = range.node.getChild(range.from);
+				if (child == null) {
+					return range.node.getPathForChild(range.from);
+				}
+				slots.removeFirst();
+				slots.addFirst(new FrontierSlots(range.node, range.from + 1, range.to));
+				if (!child.isComplete()) {
+					slots.addLast(new FrontierSlots(child, 0, child.getChildCount()));
+				}
+			}
+			return null;
+		}
+
+	}
+
+	/**
+	 * Return the path to an unexplored child slot in the tree. The slot is not
+	 * removed from the frontier: the same path is returned until it is inserted
+	 * into the tree (either as a feasible or as an infeasible path).
+	 * 
+	 * @param order
+	 *              the order in which slots should be explored
+	 * @return the path to an unexplored slot or {@code null} if there is none
+	 */
+	public Path findFrontierPath(FrontierOrder order) {
+		Frontier frontier;
+		synchronized (frontiers) {
+			frontier = frontiers.get(order);
+			if (frontier == null) {
+				frontier = new Frontier(order);
+				frontiers.put(order, frontier);
+			}
+		}
+		return frontier.findPath();
+	}
+
+	// ======================================================================
+	//
+	// REFERENCE INPUTS
+	//
+	// ======================================================================
+
+	/**
+	 * Find the input of an earlier execution that followed the given path up to,
+	 * but not including, its last choice. Such an input satisfies all the
+	 * conjuncts of the path condition except the last one.
+	 * 
+	 * @param path
+	 *             the path whose prefix must be followed
+	 * @return an input that follows the prefix or {@code null} if none is known
+	 */
+	public Input findReferenceInput(Path path) {
+		if ((path == null) || (root == null)) {
+			return null;
+		}
+		final int depth = path.getDepth();
+		final Path[] paths = new Path[depth];
+		int idx = depth;
+		for (Path p = path; p != null; p = p.getParent()) {
+			paths[--idx] = p;
+		}
+		PathTreeNode node = root;
+		for (int j = 1; j < depth; j++) {
+			node = node.getChild(paths[j - 1].getChoice().getAlternative());
+			if (node == null) {
+				return null;
+			}
+		}
+		Deque<PathTreeNode> nodes = new ArrayDeque<>();
+		nodes.push(node);
+		while (!nodes.isEmpty()) {
+			node = nodes.pop();
+			if (node.isLeaf()) {
+				Execution execution = node.getExecution();
+				if ((execution != null) && (execution.getInput() != null)) {
+					return execution.getInput();
+				}
+			} else if (!node.isInfeasible()) {
+				for (int i = node.getChildCount() - 1; i >= 0; i--) {
+					PathTreeNode child = node.getChild(i);
+					if (child != null) {
+						nodes.push(child);
+					}
+				}
+			}
+		}
+		return null;
+	}
+
 	// ======================================================================
 	//
 	// STRING REPRESENTATION
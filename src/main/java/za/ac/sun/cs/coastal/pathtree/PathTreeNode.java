@@ -1,7 +1,9 @@
 package za.ac.sun.cs.coastal.pathtree;
 
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock.WriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import za.ac.sun.cs.coastal.diver.SegmentedPC;
 import za.ac.sun.cs.coastal.pathtree.PathTree.Lines;
@@ -19,12 +21,12 @@ public abstract class PathTreeNode {
 	/**
 	 * Global counter for path tree nodes.
 	 */
-	private static int pathTreeNodeCounter = -1;
+	private static final AtomicInteger pathTreeNodeCounter = new AtomicInteger(-1);
 
 	/**
 	 * The id for this path tree node.
 	 */
-	private final int id = ++pathTreeNodeCounter;
+	private final int id = pathTreeNodeCounter.incrementAndGet();
 
 	/**
 	 * The parent of this node.
@@ -47,14 +49,18 @@ public abstract class PathTreeNode {
 	}
 
 	/**
-	 * Create a child node for this node.
+	 * Create a child node for this node. The child is installed with a single
+	 * compare-and-set operation. If another thread has already installed a child
+	 * at the same index, that child is returned instead.
 	 * 
 	 * @param path  the path associated with the child node
 	 * @param index the index of the child node of its parent
-	 * @return the node child node
+	 * @return the child node at the given index
 	 */
 	public final PathTreeNode createChild(Path path, long index) {
-		return new PathTreeNodeInner((PathTreeNodeInner) this, path, index);
+		PathTreeNodeInner inner = (PathTreeNodeInner) this;
+		PathTreeNode child = new PathTreeNodeInner(inner, path, index);
+		return inner.installChild(index, child) ? child : inner.getChild(index);
 	}
 
 	/**
@@ -62,10 +68,13 @@ public abstract class PathTreeNode {
 	 * 
 	 * @param index the index of the child node of its parent
 	 * @param execution the execution that corresponds to this node
-	 * @return the node child node
+	 * @return the new child node, or {@code null} if there already is a child at
+	 *         the given index
 	 */
 	public final PathTreeNode createLeaf(long index, Execution execution) {
-		return new PathTreeNodeLeaf((PathTreeNodeInner) this, index, execution);
+		PathTreeNodeInner inner = (PathTreeNodeInner) this;
+		PathTreeNode child = new PathTreeNodeLeaf(inner, index, execution);
+		return inner.installChild(index, child) ? child : null;
 	}
 
 	/**
@@ -73,10 +82,13 @@ public abstract class PathTreeNode {
 	 * 
 	 * @param index the index of the child node of its parent
 	 * @param execution the execution that corresponds to this node
-	 * @return the node child node
+	 * @return the new child node, or {@code null} if there already is a child at
+	 *         the given index
 	 */
 	public final PathTreeNode createInfeasible(long index, Execution execution) {
-		return new PathTreeNodeInfeasible((PathTreeNodeInner) this, index, execution);
+		PathTreeNodeInner inner = (PathTreeNodeInner) this;
+		PathTreeNode child = new PathTreeNodeInfeasible(inner, index, execution);
+		return inner.installChild(index, child) ? child : null;
 	}
 
 	/**
@@ -174,9 +186,21 @@ public abstract class PathTreeNode {
 	public abstract boolean isFullyExplored();
 
 	/**
-	 * Mark this node as fully explored.
+	 * Mark this node as fully explored. Once set, the status can never be
+	 * cleared.
+	 * 
+	 * @return {@code true} if and only if this call changed the status
+	 */
+	public abstract boolean setFullyExplored();
+
+	/**
+	 * Record that one more child of this node has become complete. When the last
+	 * child becomes complete, the node is marked as fully explored.
+	 * 
+	 * @return {@code true} if and only if this node became fully explored as a
+	 *         result of this call
 	 */
-	public abstract void setFullyExplored();
+	public abstract boolean childCompleted();
 
 	/**
 	 * Return the "completed" status of this node. A node is complete if it has been
@@ -200,16 +224,6 @@ public abstract class PathTreeNode {
 	 */
 	public abstract void setGenerated();
 
-	/**
-	 * Request the lock for this node.
-	 */
-	public abstract void lock();
-
-	/**
-	 * Release the lock for this node.
-	 */
-	public abstract void unlock();
-
 	/**
 	 * Return the execution associated with this node. This only makes sense if this
 	 * node is either a leaf or an infeasible terminal node.
@@ -381,6 +395,118 @@ public abstract class PathTreeNode {
 		return b.toString();
 	}
 
+	// ======================================================================
+	//
+	// CHILD CONTAINERS
+	//
+	// ======================================================================
+
+	/**
+	 * Branches with more alternatives than this use a sparse child container.
+	 */
+	private static final int DENSE_LIMIT = 16;
+
+	/**
+	 * Container for the children of an inner node. Binary (and other narrow)
+	 * branches store their children in an array. Wide branches, such as
+	 * {@code tableswitch} and {@code lookupswitch} instructions over large ranges,
+	 * usually have only a few of their alternatives explored, and store their
+	 * children in a map to avoid allocating large, mostly-empty arrays.
+	 */
+	private abstract static class Children {
+
+		/**
+		 * Create a child container of the appropriate kind.
+		 * 
+		 * @param length the number of alternatives
+		 * @return a new, empty child container
+		 */
+		static Children create(int length) {
+			if (length <= DENSE_LIMIT) {
+				return new DenseChildren(length);
+			} else {
+				return new SparseChildren(length);
+			}
+		}
+
+		/**
+		 * Return the number of child slots.
+		 * 
+		 * @return the number of child slots
+		 */
+		abstract int length();
+
+		/**
+		 * Return the child in a given slot.
+		 * 
+		 * @param index the slot index (assumed to be in range)
+		 * @return the child or {@code null} if the slot is empty
+		 */
+		abstract PathTreeNode get(int index);
+
+		/**
+		 * Install a child in an empty slot.
+		 * 
+		 * @param index the slot index (assumed to be in range)
+		 * @param child the new child
+		 * @return {@code true} if and only if the slot was empty
+		 */
+		abstract boolean install(int index, PathTreeNode child);
+
+	}
+
+	private static final class DenseChildren extends Children {
+
+		private final AtomicReferenceArray<PathTreeNode> children;
+
+		DenseChildren(int length) {
+			children = new AtomicReferenceArray<>(length);
+		}
+
+		@Override
+		int length() {
+			return children.length();
+		}
+
+		@Override
+		PathTreeNode get(int index) {
+			return children.get(index);
+		}
+
+		@Override
+		boolean install(int index, PathTreeNode child) {
+			return children.compareAndSet(index, null, child);
+		}
+
+	}
+
+	private static final class SparseChildren extends Children {
+
+		private final int length;
+
+		private final ConcurrentHashMap<Integer, PathTreeNode> children = new ConcurrentHashMap<>(4);
+
+		SparseChildren(int length) {
+			this.length = length;
+		}
+
+		@Override
+		int length() {
+			return length;
+		}
+
+		@Override
+		PathTreeNode get(int index) {
+			return children.get(index);
+		}
+
+		@Override
+		boolean install(int index, PathTreeNode child) {
+			return children.putIfAbsent(index, child) == null;
+		}
+
+	}
+
 	// ======================================================================
 	//
 	// REGULAR NODE
@@ -404,27 +530,30 @@ public abstract class PathTreeNode {
 		private Path path;
 
 		/**
-		 * The child nodes of this node.
+		 * The child nodes of this node. Because all changes to the path tree are
+		 * monotone (in other words, we only add children, or change fields in one
+		 * direction), children are installed with compare-and-set operations and no
+		 * locking is needed.
 		 */
-		private final PathTreeNode[] children;
+		private final Children children;
 
 		/**
 		 * Has all executions that pass through this node been fully explored?
 		 */
-		private boolean fullyExplored = false;
+		private final AtomicBoolean fullyExplored = new AtomicBoolean(false);
 
 		/**
-		 * Flag used for generational search: has the negation of this execution been
-		 * generated?
+		 * The number of children that are not yet complete. Each child slot is
+		 * counted down exactly once: when a terminal node is installed in it, or
+		 * when the inner node in it becomes fully explored.
 		 */
-		private boolean isGenerated = false;
+		private final AtomicInteger incompleteChildren;
 
 		/**
-		 * A lock used when adding children to this node. Because all changes to the
-		 * path tree are monotone (in other words, we only add children, or change
-		 * fields in one direction), we do not need much locking.
+		 * Flag used for generational search: has the negation of this execution been
+		 * generated?
 		 */
-		private final WriteLock lock = new ReentrantReadWriteLock(false).writeLock();
+		private volatile boolean isGenerated = false;
 
 		/**
 		 * Create a new path tree node. This constructor is private; public node
@@ -438,8 +567,8 @@ public abstract class PathTreeNode {
 			super(parent, index);
 			this.branch = path.getChoice().getBranch();
 			this.path = path;
-			this.children = new PathTreeNode[(int) branch.getNumberOfAlternatives()];
-			parent.children[(int) index] = this;
+			this.children = Children.create((int) branch.getNumberOfAlternatives());
+			this.incompleteChildren = new AtomicInteger(children.length());
 		}
 
 		/**
@@ -453,7 +582,8 @@ public abstract class PathTreeNode {
 			super(null, 0);
 			this.branch = path.getChoice().getBranch();
 			this.path = path;
-			this.children = new PathTreeNode[(int) branch.getNumberOfAlternatives()];
+			this.children = Children.create((int) branch.getNumberOfAlternatives());
+			this.incompleteChildren = new AtomicInteger(children.length());
 		}
 
 		/*
@@ -483,7 +613,7 @@ public abstract class PathTreeNode {
 		 */
 		@Override
 		public int getChildCount() {
-			return children.length;
+			return children.length();
 		}
 
 		/*
@@ -492,71 +622,73 @@ public abstract class PathTreeNode {
 		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#getChild(long)
 		 */
 		public PathTreeNode getChild(long childIndex) {
-			if ((childIndex < 0) || (childIndex >= children.length)) {
+			if ((childIndex < 0) || (childIndex >= children.length())) {
 				return null;
 			} else {
-				return children[(int) childIndex];
+				return children.get((int) childIndex);
 			}
 		}
 
-		/*
-		 * (non-Javadoc)
+		/**
+		 * Install a new child node, provided that there is no child at the given
+		 * index yet.
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#isFullyExplored()
+		 * @param childIndex the index of the new child
+		 * @param child      the new child
+		 * @return {@code true} if and only if the child was installed
 		 */
-		@Override
-		public boolean isFullyExplored() {
-			return fullyExplored;
+		private boolean installChild(long childIndex, PathTreeNode child) {
+			return children.install((int) childIndex, child);
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#setFullyExplored()
+		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#isFullyExplored()
 		 */
 		@Override
-		public void setFullyExplored() {
-			fullyExplored = true;
+		public boolean isFullyExplored() {
+			return fullyExplored.get();
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#hasBeenGenerated()
+		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#setFullyExplored()
 		 */
 		@Override
-		public boolean hasBeenGenerated() {
-			return isGenerated;
+		public boolean setFullyExplored() {
+			return fullyExplored.compareAndSet(false, true);
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#setGenerated()
+		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#childCompleted()
 		 */
 		@Override
-		public void setGenerated() {
-			isGenerated = true;
+		public boolean childCompleted() {
+			return (incompleteChildren.decrementAndGet() == 0) && setFullyExplored();
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#lock()
+		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#hasBeenGenerated()
 		 */
 		@Override
-		public void lock() {
-			lock.lock();
+		public boolean hasBeenGenerated() {
+			return isGenerated;
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#unlock()
+		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#setGenerated()
 		 */
 		@Override
-		public void unlock() {
-			lock.unlock();
+		public void setGenerated() {
+			isGenerated = true;
 		}
 
 		/*
@@ -592,7 +724,6 @@ public abstract class PathTreeNode {
 		private PathTreeNodeTerminal(PathTreeNodeInner parent, long index, Execution execution) {
 			super(parent, index);
 			this.execution = execution;
-			parent.children[(int) index] = this;
 		}
 
 		/*
@@ -650,48 +781,38 @@ public abstract class PathTreeNode {
 		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#setFullyExplored()
 		 */
 		@Override
-		public final void setFullyExplored() {
+		public final boolean setFullyExplored() {
 			throw new RuntimeException("CANNOT SET THE FULLY-EXPLORED STATUS OF A TERMINAL NODE");
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#hasBeenGenerated()
+		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#childCompleted()
 		 */
 		@Override
-		public final boolean hasBeenGenerated() {
-			return true;
+		public final boolean childCompleted() {
+			throw new RuntimeException("TERMINAL NODES DO NOT HAVE CHILDREN");
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#setGenerated()
-		 */
-		@Override
-		public final void setGenerated() {
-			throw new RuntimeException("CANNOT SET THE GENERATED STATUS OF A TERMINAL NODE");
-		}
-
-		/*
-		 * (non-Javadoc)
-		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#lock()
+		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#hasBeenGenerated()
 		 */
 		@Override
-		public final void lock() {
-			throw new RuntimeException("CANNOT LOCK A TERMINAL NODE");
+		public final boolean hasBeenGenerated() {
+			return true;
 		}
 
 		/*
 		 * (non-Javadoc)
 		 * 
-		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#unlock()
+		 * @see za.ac.sun.cs.coastal.pathtree.PathTreeNode#setGenerated()
 		 */
 		@Override
-		public final void unlock() {
-			throw new RuntimeException("CANNOT UNLOCK A TERMINAL NODE");
+		public final void setGenerated() {
+			throw new RuntimeException("CANNOT SET THE GENERATED STATUS OF A TERMINAL NODE");
 		}
 
 		/*
@@ -0,0 +1,147 @@
+package za.ac.sun.cs.coastal.solver;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Logger;
+
+import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.Configuration;
+import za.ac.sun.cs.coastal.messages.Broker;
+import za.ac.sun.cs.coastal.messages.Tuple;
+import za.ac.sun.cs.coastal.symbolic.Input;
+
+/**
+ * A solver that remembers the results of earlier queries. Each query is first
+ * canonicalized (see {@link Canonicalizer}) so that path conditions that differ
+ * only in the order of their conjuncts or the names of their variables share
+ * the same cache entry. Both models and unsatisfiable results are cached in a
+ * bounded least-recently-used map. Queries that miss the cache are passed on to
+ * the underlying solver. A query is only cached as unsatisfiable if the
+ * underlying solver says so definitely (see {@link Solver#check(Expression)});
+ * failures and timeouts are not cached, so that the query is tried again the
+ * next time.
+ */
+public class CachingSolver extends Solver {
+
+	/**
+	 * Marker for queries without a model.
+	 */
+	private static final Map<String, Object> UNSAT = new HashMap<>();
+
+	protected final Logger log;
+
+	/**
+	 * The solver that handles cache misses.
+	 */
+	protected final Solver delegate;
+
+	/**
+	 * Map from canonical queries to models. Models are stored in terms of the
+	 * canonical variable names.
+	 */
+	private final Map<String, Map<String, Object>> cache;
+
+	private final AtomicLong hitCount = new AtomicLong(0);
+
+	private final AtomicLong missCount = new AtomicLong(0);
+
+	private final AtomicLong failureCount = new AtomicLong(0);
+
+	public CachingSolver(COASTAL coastal, Configuration configuration, Solver delegate, final int cacheSize) {
+		super(coastal, configuration);
+		log = coastal.getLog();
+		this.delegate = delegate;
+		cache = new LinkedHashMap<String, Map<String, Object>>(cacheSize / 4 + 16, 0.75f, true) {
+			private static final long serialVersionUID = -1812335064125307361L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Map<String, Object>> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * za.ac.sun.cs.coastal.solver.Solver#solve(za.ac.sun.cs.coastal.solver.Expression)
+	 */
+	@Override
+	public Input solve(Expression expression) {
+		Input input = check(expression);
+		return (input == UNSATISFIABLE) ? null : input;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see
+	 * za.ac.sun.cs.coastal.solver.Solver#check(za.ac.sun.cs.coastal.solver.Expression)
+	 */
+	@Override
+	public Input check(Expression expression) {
+		Canonicalizer canonicalizer;
+		try {
+			canonicalizer = new Canonicalizer(expression);
+		} catch (VisitorException x) {
+			log.trace("CANONICALIZATION EXCEPTION", x);
+			return delegate.check(expression);
+		}
+		String key = canonicalizer.getCanonical();
+		Map<String, Object> model;
+		synchronized (cache) {
+			model = cache.get(key);
+		}
+		if (model != null) {
+			hitCount.incrementAndGet();
+			if (model == UNSAT) {
+				return UNSATISFIABLE;
+			}
+			Input input = new Input();
+			for (Map.Entry<String, Object> entry : model.entrySet()) {
+				input.put(canonicalizer.fromCanonical(entry.getKey()), entry.getValue());
+			}
+			return input;
+		}
+		missCount.incrementAndGet();
+		Input input = delegate.check(expression);
+		if (input == null) {
+			// The solver failed; the query may succeed when it is repeated
+			failureCount.incrementAndGet();
+			return null;
+		} else if (input == UNSATISFIABLE) {
+			model = UNSAT;
+		} else {
+			model = new HashMap<>();
+			for (String name : input.getNames()) {
+				String canonicalName = canonicalizer.toCanonical(name);
+				if (canonicalName != null) {
+					model.put(canonicalName, input.get(name));
+				}
+			}
+		}
+		synchronized (cache) {
+			cache.put(key, model);
+		}
+		return input;
+	}
+
+	@Override
+	public void shutdown() {
+		delegate.shutdown();
+	}
+
+	@Override
+	public void issueReport() {
+		Broker broker = coastal.getBroker();
+		broker.publish("report", new Tuple("Solver.cache-hits", hitCount.get()));
+		broker.publish("report", new Tuple("Solver.cache-misses", missCount.get()));
+		broker.publish("report", new Tuple("Solver.failures", failureCount.get()));
+		delegate.issueReport();
+	}
+
+}
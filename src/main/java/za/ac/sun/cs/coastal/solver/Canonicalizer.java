@@ -0,0 +1,304 @@
+package za.ac.sun.cs.coastal.solver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Stack;
+
+import za.ac.sun.cs.coastal.solver.Operation.Operator;
+
+/**
+ * Translate an expression to a canonical string that does not depend on the
+ * names of its variables or on the order of the operands of commutative
+ * operators. Two expressions with the same canonical string are equisatisfiable
+ * and a model for the one can be turned into a model for the other by renaming
+ * the variables.
+ *
+ * The canonical form is computed in two steps. First, the expression is
+ * converted to a tree where nested conjunctions and disjunctions are flattened.
+ * Second, the tree is traversed, the operands of commutative operators are
+ * sorted according to their "shape" (their string representation with
+ * variables replaced by their type and bounds), and the variables are renamed
+ * in the order in which they are encountered.
+ */
+public class Canonicalizer extends Visitor {
+
+	/**
+	 * The canonical representation of the expression.
+	 */
+	private String canonical = null;
+
+	/**
+	 * Map from original variable names to canonical names.
+	 */
+	private final Map<String, String> toCanonical = new HashMap<>();
+
+	/**
+	 * Map from canonical variable names to original names.
+	 */
+	private final Map<String, String> fromCanonical = new HashMap<>();
+
+	/**
+	 * Stack of partially constructed terms.
+	 */
+	private final Stack<Term> stack = new Stack<>();
+
+	/**
+	 * Construct the canonical form of an expression.
+	 *
+	 * @param expression
+	 *                   the expression to canonicalize
+	 * @throws VisitorException
+	 *                          if the expression could not be traversed
+	 */
+	public Canonicalizer(Expression expression) throws VisitorException {
+		expression.accept(this);
+		Term term = stack.pop();
+		StringBuilder declarations = new StringBuilder();
+		StringBuilder body = new StringBuilder();
+		rename(term, declarations, body);
+		canonical = declarations.append(body).toString();
+	}
+
+	/**
+	 * Return the canonical representation of the expression.
+	 *
+	 * @return the canonical string
+	 */
+	public String getCanonical() {
+		return canonical;
+	}
+
+	/**
+	 * Return the canonical name for an original variable name.
+	 *
+	 * @param name
+	 *             the original variable name
+	 * @return the canonical name or {@code null} if the variable does not occur
+	 */
+	public String toCanonical(String name) {
+		return toCanonical.get(name);
+	}
+
+	/**
+	 * Return the original name for a canonical variable name.
+	 *
+	 * @param name
+	 *             the canonical variable name
+	 * @return the original name or {@code null} if there is no such variable
+	 */
+	public String fromCanonical(String name) {
+		return fromCanonical.get(name);
+	}
+
+	// ======================================================================
+	//
+	// TERMS
+	//
+	// ======================================================================
+
+	/**
+	 * A node in the normalized expression tree.
+	 */
+	private static class Term {
+
+		/**
+		 * The operator label or the type of the variable.
+		 */
+		final String label;
+
+		/**
+		 * The original name of the variable or {@code null} if this is not a
+		 * variable.
+		 */
+		final String variable;
+
+		/**
+		 * The operands of an operation, or {@code null}.
+		 */
+		final List<Term> operands;
+
+		/**
+		 * Whether the operands must be sorted.
+		 */
+		final boolean isCommutative;
+
+		/**
+		 * The shape of the term: its string representation with all variables
+		 * replaced by their types. It is only computed when it is needed, so that
+		 * conjunctions and disjunctions that are flattened into their parents never
+		 * compute it.
+		 */
+		private String shape = null;
+
+		private boolean isSorted = false;
+
+		Term(String label, String variable, List<Term> operands, boolean isCommutative) {
+			this.label = label;
+			this.variable = variable;
+			this.operands = operands;
+			this.isCommutative = isCommutative;
+		}
+
+		String getShape() {
+			if (shape == null) {
+				if (operands == null) {
+					shape = label;
+				} else {
+					sort();
+					StringBuilder b = new StringBuilder();
+					b.append(label).append('(');
+					boolean isFirst = true;
+					for (Term operand : operands) {
+						if (isFirst) {
+							isFirst = false;
+						} else {
+							b.append(',');
+						}
+						b.append(operand.getShape());
+					}
+					shape = b.append(')').toString();
+				}
+			}
+			return shape;
+		}
+
+		void sort() {
+			if (isCommutative && !isSorted) {
+				Collections.sort(operands, SHAPE_ORDER);
+				isSorted = true;
+			}
+		}
+
+	}
+
+	private static final Comparator<Term> SHAPE_ORDER = new Comparator<Term>() {
+		@Override
+		public int compare(Term t1, Term t2) {
+			return t1.getShape().compareTo(t2.getShape());
+		}
+	};
+
+	private static boolean isCommutative(Operator operator) {
+		switch (operator) {
+		case AND:
+		case OR:
+		case EQ:
+		case NE:
+		case ADD:
+		case MUL:
+		case BITAND:
+		case BITOR:
+		case BITXOR:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	private void rename(Term term, StringBuilder declarations, StringBuilder body) {
+		if (term.variable != null) {
+			String name = toCanonical.get(term.variable);
+			if (name == null) {
+				name = "v" + toCanonical.size();
+				toCanonical.put(term.variable, name);
+				fromCanonical.put(name, term.variable);
+				declarations.append(name).append(':').append(term.label).append(';');
+			}
+			body.append(name);
+		} else if (term.operands == null) {
+			body.append(term.label);
+		} else {
+			term.sort();
+			body.append(term.label).append('(');
+			boolean isFirst = true;
+			for (Term operand : term.operands) {
+				if (isFirst) {
+					isFirst = false;
+				} else {
+					body.append(',');
+				}
+				rename(operand, declarations, body);
+			}
+			body.append(')');
+		}
+	}
+
+	// ======================================================================
+	//
+	// VISITOR METHODS
+	//
+	// ======================================================================
+
+	@Override
+	public void postVisit(IntegerConstant constant) {
+		stack.push(new Term("#" + constant.getSize() + ":" + constant.toString(), null, null, false));
+	}
+
+	@Override
+	public void postVisit(RealConstant constant) {
+		stack.push(new Term("#F" + constant.getSize() + ":" + constant.toString(), null, null, false));
+	}
+
+	@Override
+	public void postVisit(IntegerVariable variable) {
+		String type = "I" + variable.getSize() + "[" + variable.getLowerBound() + ".." + variable.getUpperBound() + "]";
+		stack.push(new Term(type, variable.getName(), null, false));
+	}
+
+	@Override
+	public void postVisit(RealVariable variable) {
+		String type = "F" + variable.getSize() + "[" + variable.getLowerBound() + ".." + variable.getUpperBound() + "]";
+		stack.push(new Term(type, variable.getName(), null, false));
+	}
+
+	@Override
+	public void postVisit(Operation operation) {
+		Operator op = operation.getOperator();
+		int n = operation.getOperandCount();
+		List<Term> operands = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			operands.add(stack.pop());
+		}
+		Collections.reverse(operands);
+		if ((op == Operator.GT) || (op == Operator.GE)) {
+			// a > b is the same as b < a
+			Collections.reverse(operands);
+			op = (op == Operator.GT) ? Operator.LT : Operator.LE;
+		}
+		String label = op.name();
+		if (operation.getResultingSize() != 0) {
+			label = label + operation.getResultingSize();
+		}
+		if ((op == Operator.AND) || (op == Operator.OR)) {
+			// Extend the operand list of the largest nested conjunction (or
+			// disjunction) in place, so that long chains are flattened in linear
+			// time; the operands are only sorted once, in the outermost term
+			List<Term> flattened = null;
+			for (Term operand : operands) {
+				if (label.equals(operand.label) && (operand.operands != null)
+						&& ((flattened == null) || (operand.operands.size() > flattened.size()))) {
+					flattened = operand.operands;
+				}
+			}
+			if (flattened == null) {
+				flattened = new ArrayList<>(n);
+			}
+			for (Term operand : operands) {
+				if (operand.operands == flattened) {
+					continue;
+				} else if (label.equals(operand.label) && (operand.operands != null)) {
+					flattened.addAll(operand.operands);
+				} else {
+					flattened.add(operand);
+				}
+			}
+			operands = flattened;
+		}
+		stack.push(new Term(label, null, operands, isCommutative(op)));
+	}
+
+}
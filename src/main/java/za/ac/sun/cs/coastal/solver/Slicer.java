@@ -0,0 +1,182 @@
+package za.ac.sun.cs.coastal.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import za.ac.sun.cs.coastal.solver.Operation.Operator;
+
+/**
+ * Remove the conjuncts of a path condition that are independent of a given
+ * (flipped) conjunct. The path condition is split into conjuncts and the
+ * conjuncts are grouped into components that are connected by shared variables.
+ * Only the conjuncts in the components that share variables with the flipped
+ * conjunct are kept, together with conjuncts that contain no variables at all.
+ *
+ * If all the conjuncts except the flipped one are known to be satisfied by some
+ * input (for example, the input of the execution from which the path condition
+ * was derived), a model for the slice can be extended to a model for the whole
+ * path condition by copying the values of the remaining variables from that
+ * input.
+ */
+public class Slicer {
+
+	/**
+	 * The sliced path condition.
+	 */
+	private final Expression slice;
+
+	/**
+	 * The names of the variables that occur in the slice.
+	 */
+	private final Set<String> variables = new HashSet<>();
+
+	/**
+	 * Whether or not any conjuncts were removed.
+	 */
+	private final boolean isSliced;
+
+	/**
+	 * Union-find structure over variable names.
+	 */
+	private final Map<String, String> parents = new HashMap<>();
+
+	/**
+	 * Slice a path condition.
+	 *
+	 * @param expression
+	 *                   the path condition to slice
+	 * @param flipped
+	 *                   the conjunct (or conjunction) that must be part of the
+	 *                   slice
+	 * @throws VisitorException
+	 *                          if the path condition could not be traversed
+	 */
+	public Slicer(Expression expression, Expression flipped) throws VisitorException {
+		List<Expression> conjuncts = new ArrayList<>();
+		flatten(expression, conjuncts);
+		List<Set<String>> conjunctVariables = new ArrayList<>(conjuncts.size());
+		for (Expression conjunct : conjuncts) {
+			Set<String> names = collectVariables(conjunct);
+			conjunctVariables.add(names);
+			String first = null;
+			for (String name : names) {
+				if (first == null) {
+					first = find(name);
+				} else {
+					union(first, name);
+				}
+			}
+		}
+		Set<String> roots = new HashSet<>();
+		for (String name : collectVariables(flipped)) {
+			roots.add(find(name));
+		}
+		if (roots.isEmpty()) {
+			slice = expression;
+			isSliced = false;
+			for (Set<String> names : conjunctVariables) {
+				variables.addAll(names);
+			}
+			return;
+		}
+		Expression result = null;
+		int kept = 0;
+		for (int i = conjuncts.size() - 1; i >= 0; i--) {
+			Set<String> names = conjunctVariables.get(i);
+			if (names.isEmpty() || roots.contains(find(names.iterator().next()))) {
+				Expression conjunct = conjuncts.get(i);
+				result = (result == null) ? conjunct : Operation.and(conjunct, result);
+				variables.addAll(names);
+				kept++;
+			}
+		}
+		isSliced = (kept < conjuncts.size());
+		slice = isSliced ? result : expression;
+	}
+
+	/**
+	 * Return the sliced path condition. If no conjuncts were removed, this is the
+	 * original path condition.
+	 *
+	 * @return the sliced path condition
+	 */
+	public Expression getSlice() {
+		return slice;
+	}
+
+	/**
+	 * Return the names of the variables that occur in the slice.
+	 *
+	 * @return set of variable names
+	 */
+	public Set<String> getVariables() {
+		return variables;
+	}
+
+	/**
+	 * Check whether any conjuncts were removed from the path condition.
+	 *
+	 * @return {@code true} if and only if the slice is smaller than the original
+	 */
+	public boolean isSliced() {
+		return isSliced;
+	}
+
+	// ======================================================================
+	//
+	// HELPER ROUTINES
+	//
+	// ======================================================================
+
+	private static void flatten(Expression expression, List<Expression> conjuncts) {
+		while ((expression instanceof Operation) && (((Operation) expression).getOperator() == Operator.AND)) {
+			Operation operation = (Operation) expression;
+			flatten(operation.getOperand(0), conjuncts);
+			expression = operation.getOperand(1);
+		}
+		conjuncts.add(expression);
+	}
+
+	private static Set<String> collectVariables(Expression expression) throws VisitorException {
+		final Set<String> names = new HashSet<>();
+		expression.accept(new Visitor() {
+			@Override
+			public void postVisit(Variable variable) {
+				names.add(variable.getName());
+			}
+		});
+		return names;
+	}
+
+	private String find(String name) {
+		String root = name;
+		String parent = parents.get(root);
+		if (parent == null) {
+			parents.put(name, name);
+			return name;
+		}
+		while (!parent.equals(root)) {
+			root = parent;
+			parent = parents.get(root);
+		}
+		while (!name.equals(root)) {
+			String next = parents.get(name);
+			parents.put(name, root);
+			name = next;
+		}
+		return root;
+	}
+
+	private void union(String name1, String name2) {
+		String root1 = find(name1);
+		String root2 = find(name2);
+		if (!root1.equals(root2)) {
+			parents.put(root2, root1);
+		}
+	}
+
+}
@@ -1,5 +1,7 @@
 package za.ac.sun.cs.coastal.solver;
 
+import java.util.Set;
+
 import za.ac.sun.cs.coastal.COASTAL;
 import za.ac.sun.cs.coastal.Configuration;
 import za.ac.sun.cs.coastal.symbolic.Input;
@@ -12,13 +14,83 @@ public abstract class Solver {
 
 	protected static Solver solver = null;
 
+	/**
+	 * Whether or not independent conjuncts are removed before a path condition is
+	 * solved.
+	 */
+	protected final boolean slicing;
+
 	public Solver(COASTAL coastal, Configuration configuration) {
 		this.coastal = coastal;
 		this.configuration = configuration;
+		slicing = configuration.getBoolean("slicing", true);
 	}
 
+	/**
+	 * Marker returned by {@link #check(Expression)} for expressions that are
+	 * known to have no model.
+	 */
+	protected static final Input UNSATISFIABLE = new Input();
+
 	public abstract Input solve(Expression expression);
 
+	/**
+	 * Solve an expression, distinguishing between expressions that have no model
+	 * and queries that the solver could not answer (because of an error or a
+	 * timeout, for instance). By default, the solver is not trusted to make this
+	 * distinction, and {@code null} is returned in both cases.
+	 * 
+	 * @param expression
+	 *                   the expression to solve
+	 * @return a model for the expression, {@link #UNSATISFIABLE} if the expression
+	 *         definitely has no model, or {@code null} if the solver failed
+	 */
+	public Input check(Expression expression) {
+		return solve(expression);
+	}
+
+	/**
+	 * Solve a path condition that was derived from an earlier execution by
+	 * flipping one of its conjuncts. All the other conjuncts are known to be
+	 * satisfied by the input of the earlier execution. If slicing is switched on,
+	 * only the conjuncts that are (transitively) connected to the flipped conjunct
+	 * via shared variables are passed to the solver, and the values of the
+	 * remaining variables are copied from the reference input.
+	 * 
+	 * @param expression
+	 *                   the path condition to solve
+	 * @param flipped
+	 *                   the flipped conjunct or {@code null} if it is unknown
+	 * @param reference
+	 *                   the input that satisfies all the other conjuncts or
+	 *                   {@code null} if there is no such input
+	 * @return a model for the path condition or {@code null} if there is none
+	 */
+	public Input solve(Expression expression, Expression flipped, Input reference) {
+		if (!slicing || (flipped == null) || (reference == null)) {
+			return solve(expression);
+		}
+		Slicer slicer;
+		try {
+			slicer = new Slicer(expression, flipped);
+		} catch (VisitorException x) {
+			return solve(expression);
+		}
+		if (!slicer.isSliced()) {
+			return solve(expression);
+		}
+		Input input = solve(slicer.getSlice());
+		if (input != null) {
+			Set<String> sliceVariables = slicer.getVariables();
+			for (String name : reference.getNames()) {
+				if (!sliceVariables.contains(name)) {
+					input.put(name, reference.get(name));
+				}
+			}
+		}
+		return input;
+	}
+
 	public static Solver getSolver(COASTAL coastal) {
 		if (solver == null) {
 			String solverName = coastal.getConfig().getString("coastal.settings.solver");
@@ -27,6 +99,10 @@ public abstract class Solver {
 				Object s = Configuration.createInstance(coastal, solverConfiguration, solverName.trim());
 				if ((s != null) && (s instanceof Solver)) {
 					solver = (Solver) s;
+					int cacheSize = solverConfiguration.getInt("cache-size", 10000, 0, Integer.MAX_VALUE);
+					if (cacheSize > 0) {
+						solver = new CachingSolver(coastal, solverConfiguration, solver, cacheSize);
+					}
 				}
 			}
 		}
@@ -37,8 +113,21 @@ public abstract class Solver {
 		if (solver != null) {
 			solver.issueReport();
 		}
+		SolverService.report();
 	}
 	
 	public void issueReport() { }
 
+	public static void stop() {
+		if (solver != null) {
+			solver.shutdown();
+		}
+	}
+
+	/**
+	 * Release any resources (such as external processes) held by the solver. This
+	 * is called at the end of an analysis run.
+	 */
+	public void shutdown() { }
+
 }
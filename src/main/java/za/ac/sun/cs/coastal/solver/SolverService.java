@@ -0,0 +1,145 @@
+package za.ac.sun.cs.coastal.solver;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.messages.Broker;
+import za.ac.sun.cs.coastal.messages.TimeTuple;
+import za.ac.sun.cs.coastal.messages.Tuple;
+import za.ac.sun.cs.coastal.symbolic.Input;
+import za.ac.sun.cs.coastal.symbolic.Path;
+
+/**
+ * A pool of threads that solve path conditions on behalf of the strategies.
+ * Strategies submit paths and receive futures for the models, so that several
+ * path conditions can be solved at the same time, and solving can overlap with
+ * the work of the strategy and the divers.
+ *
+ * Each pool thread uses the shared {@link Solver}; solvers such as
+ * {@link SolverZ3} keep per-thread state, so each pool thread ends up with its
+ * own Z3 process.
+ */
+public class SolverService {
+
+	/**
+	 * The one-and-only solver service.
+	 */
+	private static SolverService service = null;
+
+	private final COASTAL coastal;
+
+	private final Solver solver;
+
+	private final ExecutorService executor;
+
+	/**
+	 * Number of pool threads.
+	 */
+	private final int threadCount;
+
+	/**
+	 * Number of paths submitted.
+	 */
+	private final AtomicLong submitCount = new AtomicLong(0);
+
+	/**
+	 * Accumulator of the time (in milliseconds) that submitted paths waited
+	 * before a pool thread started solving them.
+	 */
+	private final AtomicLong queueTime = new AtomicLong(0);
+
+	private SolverService(COASTAL coastal, Solver solver, int threadCount) {
+		this.coastal = coastal;
+		this.solver = solver;
+		this.threadCount = threadCount;
+		executor = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+			private final AtomicInteger counter = new AtomicInteger(0);
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "solver-" + counter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Return the solver service for the current analysis run, creating it if
+	 * necessary. The size of the thread pool is given by the setting
+	 * {@code coastal.settings.solver.threads}; a value of 0 means one thread per
+	 * available processor.
+	 *
+	 * @param coastal
+	 *                instance of COASTAL
+	 * @return the solver service or {@code null} if there is no solver
+	 */
+	public static synchronized SolverService getService(COASTAL coastal) {
+		if ((service == null) || service.executor.isShutdown()) {
+			Solver solver = Solver.getSolver(coastal);
+			if (solver == null) {
+				return null;
+			}
+			int threadCount = coastal.getConfig().getInt("coastal.settings.solver.threads", 0, 0, 1024);
+			if (threadCount == 0) {
+				threadCount = Runtime.getRuntime().availableProcessors();
+			}
+			service = new SolverService(coastal, solver, threadCount);
+		}
+		return service;
+	}
+
+	/**
+	 * Shut down the solver service at the end of an analysis run. Paths that have
+	 * not yet been solved are abandoned.
+	 */
+	public static synchronized void stop() {
+		if (service != null) {
+			service.executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Publish the statistics of the solver service (if it was used).
+	 */
+	public static synchronized void report() {
+		if (service != null) {
+			service.issueReport();
+		}
+	}
+
+	/**
+	 * Submit a path for solving.
+	 *
+	 * @param path
+	 *                  the path whose path condition must be solved
+	 * @param flipped
+	 *                  the flipped conjunct or {@code null}
+	 * @param reference
+	 *                  the input that satisfies all the other conjuncts or
+	 *                  {@code null}
+	 * @return a future for the model, which is {@code null} if there is none
+	 * @see Solver#solve(Expression, Expression, Input)
+	 */
+	public CompletableFuture<Input> submit(final Path path, final Expression flipped, final Input reference) {
+		submitCount.incrementAndGet();
+		final long t0 = System.currentTimeMillis();
+		return CompletableFuture.supplyAsync(() -> {
+			queueTime.addAndGet(System.currentTimeMillis() - t0);
+			return solver.solve(path.getPathCondition(), flipped, reference);
+		}, executor);
+	}
+
+	private void issueReport() {
+		Broker broker = coastal.getBroker();
+		broker.publish("report", new Tuple("SolverService.threads", threadCount));
+		broker.publish("report", new Tuple("SolverService.submitted", submitCount.get()));
+		broker.publish("report", new TimeTuple("SolverService.queue-time", queueTime.get()));
+	}
+
+}
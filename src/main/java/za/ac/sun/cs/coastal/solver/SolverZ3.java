@@ -8,11 +8,16 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -22,6 +27,9 @@ import org.apache.logging.log4j.Logger;
 import za.ac.sun.cs.coastal.Banner;
 import za.ac.sun.cs.coastal.COASTAL;
 import za.ac.sun.cs.coastal.Configuration;
+import za.ac.sun.cs.coastal.messages.Broker;
+import za.ac.sun.cs.coastal.messages.TimeTuple;
+import za.ac.sun.cs.coastal.messages.Tuple;
 import za.ac.sun.cs.coastal.solver.Operation.Operator;
 import za.ac.sun.cs.coastal.symbolic.Input;
 
@@ -40,69 +48,369 @@ public class SolverZ3 extends Solver {
 
 	protected final String z3Command;
 
+	/**
+	 * Whether or not long-lived Z3 processes are used. If not, a new Z3 process is
+	 * started for every query.
+	 */
+	protected final boolean persistent;
+
+	/**
+	 * The Z3 session owned by the current thread. Each strategy thread talks to its
+	 * own Z3 process, so no synchronization is needed inside a session.
+	 */
+	private final ThreadLocal<Z3Session> session = new ThreadLocal<>();
+
+	/**
+	 * All sessions that are still alive. This is used to shut down the Z3
+	 * processes at the end of the analysis run.
+	 */
+	private final Set<Z3Session> sessions = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Number of queries sent to Z3.
+	 */
+	private final AtomicLong queryCount = new AtomicLong(0);
+
+	/**
+	 * Accumulator of the time (in nanoseconds) spent in {@link #solve(Expression)}.
+	 */
+	private final AtomicLong solveTime = new AtomicLong(0);
+
+	/**
+	 * Number of Z3 processes started.
+	 */
+	private final AtomicLong processCount = new AtomicLong(0);
+
+	/**
+	 * Accumulator of the time (in nanoseconds) spent starting Z3 processes.
+	 */
+	private final AtomicLong processTime = new AtomicLong(0);
+
 	public SolverZ3(COASTAL coastal, Configuration configuration) {
 		super(coastal, configuration);
 		log = coastal.getLog();
 		String z3Path = configuration.getString("z3-path", DEFAULT_Z3_PATH);
 		String z3Args = configuration.getString("z3-args", DEFAULT_Z3_ARGS);
 		z3Command = z3Path + ' ' + z3Args;
+		persistent = configuration.getBoolean("z3-persistent", true);
 	}
 
 	public Input solve(Expression expression) {
+		Input input = check(expression);
+		return (input == UNSATISFIABLE) ? null : input;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * za.ac.sun.cs.coastal.solver.Solver#check(za.ac.sun.cs.coastal.solver.Expression)
+	 */
+	@Override
+	public Input check(Expression expression) {
+		long t0 = System.nanoTime();
 		try {
 			Translator t = new Translator();
 			expression.accept(t);
-			String smt = t.getTranslation();
-
-			log.trace("SMT generated: {}", smt.replace('\n', ' '));
-			Process process = Runtime.getRuntime().exec(z3Command);
-			OutputStream stdin = process.getOutputStream();
-			InputStream stdout = process.getInputStream();
-			BufferedReader outReader = new BufferedReader(new InputStreamReader(stdout));
-
-			stdin.write((smt + "\n").getBytes());
-			stdin.flush();
-			String output = outReader.readLine();
-
-			if (output.equals("unsat")) {
-				stdin.close();
-				stdout.close();
-				process.destroy();
-				return null;
-			} else if (!output.equals("sat")) {
-				Banner bn = new Banner('#');
-				bn.println("Z3 RETURNED A NULL:\n");
-				bn.println(output);
-				bn.display(log);
-				stdin.close();
-				stdout.close();
-				process.destroy();
-				String filename = Z3_FILE + problemCounter++;
-				PrintWriter writer = new PrintWriter(filename, "UTF-8");
-				writer.println(smt);
-				writer.close();
-				log.trace("SMT input written to \"{}\"", filename);
-				return null;
+			queryCount.incrementAndGet();
+			if (persistent) {
+				return solveInSession(t);
+			} else {
+				return solveOnce(t);
 			}
-
-			stdin.write("(get-model)(exit)\n".getBytes());
-			stdin.flush();
-			stdin.close();
-			output = outReader.lines().collect(Collectors.joining());
-			stdout.close();
-			process.destroy();
-			log.trace("Z3 output: {}", output);
-			return retrieveModel(output, t.getVariables());
 		} catch (AssertionError x) {
 			log.trace("VISITOR ASSERTION EXCEPTION", x);
 		} catch (VisitorException x) {
 			log.trace("VISITOR EXCEPTION", x);
 		} catch (IOException x) {
 			log.trace("IO EXCEPTION", x);
+		} finally {
+			solveTime.addAndGet(System.nanoTime() - t0);
 		}
 		return null;
 	}
 
+	/**
+	 * Solve a translated query by starting a new Z3 process.
+	 * 
+	 * @param t
+	 *          the translated query
+	 * @return the model, {@link #UNSATISFIABLE} if there is none, or {@code null}
+	 *         if Z3 failed
+	 * @throws IOException
+	 *                     if communication with Z3 failed
+	 */
+	private Input solveOnce(Translator t) throws IOException {
+		String smt = t.getTranslation();
+		log.trace("SMT generated: {}", smt.replace('\n', ' '));
+		Process process = startProcess();
+		OutputStream stdin = process.getOutputStream();
+		InputStream stdout = process.getInputStream();
+		BufferedReader outReader = new BufferedReader(new InputStreamReader(stdout));
+
+		stdin.write((smt + "\n").getBytes());
+		stdin.flush();
+		String output = outReader.readLine();
+
+		if ("unsat".equals(output)) {
+			stdin.close();
+			stdout.close();
+			process.destroy();
+			return UNSATISFIABLE;
+		} else if (!"sat".equals(output)) {
+			stdin.close();
+			stdout.close();
+			process.destroy();
+			reportFailure(output, smt);
+			return null;
+		}
+
+		stdin.write("(get-model)(exit)\n".getBytes());
+		stdin.flush();
+		stdin.close();
+		output = outReader.lines().collect(Collectors.joining());
+		stdout.close();
+		process.destroy();
+		log.trace("Z3 output: {}", output);
+		return retrieveModel(output, t.getVariables());
+	}
+
+	/**
+	 * Solve a translated query in the Z3 session of the current thread. If the
+	 * thread does not yet have a session, or if the session cannot accommodate the
+	 * query (because a variable was declared with a different sort), a new session
+	 * is started.
+	 * 
+	 * @param t
+	 *          the translated query
+	 * @return the model, {@link #UNSATISFIABLE} if there is none, or {@code null}
+	 *         if Z3 failed
+	 * @throws IOException
+	 *                     if communication with Z3 failed
+	 */
+	private Input solveInSession(Translator t) throws IOException {
+		Z3Session z3 = session.get();
+		if ((z3 != null) && !sessions.contains(z3)) {
+			z3 = null;
+		} else if ((z3 != null) && !z3.accepts(t)) {
+			log.trace("Z3 session cannot accept query -- restarting");
+			z3.close();
+			z3 = null;
+		}
+		if (z3 == null) {
+			z3 = new Z3Session();
+			session.set(z3);
+		}
+		try {
+			return z3.solve(t);
+		} catch (IOException x) {
+			z3.close();
+			throw x;
+		}
+	}
+
+	/**
+	 * Start a new Z3 process and record how long it took.
+	 * 
+	 * @return the new Z3 process
+	 * @throws IOException
+	 *                     if the process could not be started
+	 */
+	private Process startProcess() throws IOException {
+		long t0 = System.nanoTime();
+		Process process = Runtime.getRuntime().exec(z3Command);
+		processTime.addAndGet(System.nanoTime() - t0);
+		processCount.incrementAndGet();
+		return process;
+	}
+
+	/**
+	 * Display the unexpected output produced by Z3, and write the offending query
+	 * to a file.
+	 * 
+	 * @param output
+	 *               the unexpected output
+	 * @param smt
+	 *               the complete query
+	 * @throws IOException
+	 *                     if the query could not be written
+	 */
+	private void reportFailure(String output, String smt) throws IOException {
+		Banner bn = new Banner('#');
+		bn.println("Z3 RETURNED A NULL:\n");
+		bn.println(String.valueOf(output));
+		bn.display(log);
+		String filename = Z3_FILE + problemCounter++;
+		PrintWriter writer = new PrintWriter(filename, "UTF-8");
+		writer.println(smt);
+		writer.close();
+		log.trace("SMT input written to \"{}\"", filename);
+	}
+
+	@Override
+	public void shutdown() {
+		for (Z3Session z3 : sessions) {
+			z3.close();
+		}
+	}
+
+	@Override
+	public void issueReport() {
+		Broker broker = coastal.getBroker();
+		broker.publish("report", new Tuple("SolverZ3.queries", queryCount.get()));
+		broker.publish("report", new TimeTuple("SolverZ3.solve-time", solveTime.get() / 1000000.0));
+		broker.publish("report", new Tuple("SolverZ3.processes", processCount.get()));
+		broker.publish("report", new TimeTuple("SolverZ3.process-time", processTime.get() / 1000000.0));
+	}
+
+	// ======================================================================
+	//
+	// PERSISTENT Z3 SESSION
+	//
+	// ======================================================================
+
+	/**
+	 * A long-lived Z3 process. Variables and helper functions are declared at the
+	 * outermost level and remain declared for the lifetime of the process. Each
+	 * query (variable bounds and path condition) is wrapped in
+	 * {@code (push)}/{@code (pop)} so that it does not affect later queries.
+	 */
+	private final class Z3Session {
+
+		private final Process process;
+
+		private final OutputStream stdin;
+
+		private final BufferedReader stdout;
+
+		/**
+		 * Map from declared variable names to their declarations.
+		 */
+		private final Map<String, String> declared = new HashMap<>();
+
+		/**
+		 * Names of helper functions that have been defined.
+		 */
+		private final Set<String> defined = new HashSet<>();
+
+		Z3Session() throws IOException {
+			process = startProcess();
+			stdin = process.getOutputStream();
+			stdout = new BufferedReader(new InputStreamReader(process.getInputStream()));
+			sessions.add(this);
+			send("(set-option :produce-models true)\n");
+		}
+
+		/**
+		 * Check that none of the variables in the query has been declared with a
+		 * different sort in this session.
+		 * 
+		 * @param t
+		 *          the translated query
+		 * @return {@code true} if and only if the query can be solved in this session
+		 */
+		boolean accepts(Translator t) {
+			for (Map.Entry<String, String> entry : t.getDeclarations().entrySet()) {
+				String declaration = declared.get(entry.getKey());
+				if ((declaration != null) && !declaration.equals(entry.getValue())) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		Input solve(Translator t) throws IOException {
+			StringBuilder b = new StringBuilder();
+			for (Map.Entry<String, String> entry : t.getDeclarations().entrySet()) {
+				if (!declared.containsKey(entry.getKey())) {
+					b.append(entry.getValue()).append('\n');
+					declared.put(entry.getKey(), entry.getValue());
+				}
+			}
+			for (Map.Entry<String, String> entry : t.getFunctions().entrySet()) {
+				if (defined.add(entry.getKey())) {
+					b.append(entry.getValue()).append('\n');
+				}
+			}
+			b.append("(push)\n");
+			for (String bound : t.getBounds()) {
+				b.append(bound).append('\n');
+			}
+			b.append("(assert ").append(t.getAssertion()).append(")\n");
+			b.append("(check-sat)\n");
+			String smt = b.toString();
+			log.trace("SMT generated: {}", smt.replace('\n', ' '));
+			send(smt);
+			String output = stdout.readLine();
+			if ("unsat".equals(output)) {
+				send("(pop)\n");
+				return UNSATISFIABLE;
+			} else if (!"sat".equals(output)) {
+				close();
+				reportFailure(output, t.getTranslation());
+				return null;
+			}
+			send("(get-model)\n");
+			output = readExpression();
+			send("(pop)\n");
+			log.trace("Z3 output: {}", output);
+			return retrieveModel(output, t.getVariables());
+		}
+
+		/**
+		 * Read one complete s-expression from the output of Z3. Lines are read until
+		 * the parentheses balance, and are joined without separators.
+		 * 
+		 * @return the s-expression
+		 * @throws IOException
+		 *                     if the output ended prematurely
+		 */
+		private String readExpression() throws IOException {
+			StringBuilder b = new StringBuilder();
+			int depth = 0;
+			boolean started = false;
+			while (!started || (depth > 0)) {
+				String line = stdout.readLine();
+				if (line == null) {
+					throw new IOException("Z3 output ended prematurely");
+				}
+				for (int i = 0, n = line.length(); i < n; i++) {
+					char ch = line.charAt(i);
+					if (ch == '(') {
+						depth++;
+						started = true;
+					} else if (ch == ')') {
+						depth--;
+					}
+				}
+				b.append(line);
+			}
+			return b.toString();
+		}
+
+		private void send(String smt) throws IOException {
+			stdin.write(smt.getBytes());
+			stdin.flush();
+		}
+
+		void close() {
+			if (sessions.remove(this)) {
+				try {
+					stdin.write("(exit)\n".getBytes());
+					stdin.close();
+					stdout.close();
+				} catch (IOException x) {
+					// ignore, the process is destroyed anyway
+				}
+				process.destroy();
+			}
+			if (session.get() == this) {
+				session.remove();
+			}
+		}
+
+	}
+
 	// ======================================================================
 	//
 	// TRANSLATOR VISITOR
@@ -117,6 +425,14 @@ public class SolverZ3 extends Solver {
 
 		private final Map<String, Variable> variables = new HashMap<>();
 
+		private final Map<String, String> declarations = new LinkedHashMap<>();
+
+		private final List<String> bounds = new LinkedList<>();
+
+		private final Map<String, String> functions = new LinkedHashMap<>();
+
+		private String assertion = null;
+
 		private boolean addedLcmp = false;
 
 		private boolean addedFcmpl = false, addedFcmpg = false;
@@ -127,11 +443,30 @@ public class SolverZ3 extends Solver {
 			return variables;
 		}
 
+		public Map<String, String> getDeclarations() {
+			return declarations;
+		}
+
+		public List<String> getBounds() {
+			return bounds;
+		}
+
+		public Map<String, String> getFunctions() {
+			return functions;
+		}
+
+		public String getAssertion() {
+			if (assertion == null) {
+				assertion = stack.pop().getEntry();
+			}
+			return assertion;
+		}
+
 		public String getTranslation() {
 			StringBuilder b = new StringBuilder();
 			b.append("(set-option :produce-models true)\n");
 			b.append(join(variableDefs, "\n"));
-			b.append("\n(assert ").append(stack.pop().getEntry()).append(")\n");
+			b.append("\n(assert ").append(getAssertion()).append(")\n");
 			b.append("(check-sat)");
 			return b.toString();
 		}
@@ -168,20 +503,19 @@ public class SolverZ3 extends Solver {
 		public void postVisit(IntegerVariable v) {
 			String n = v.getName();
 			if (!variables.containsKey(n)) {
-				StringBuilder b = new StringBuilder();
-				b.append("(declare-const ").append(n).append(" (_ BitVec ").append(v.getSize()).append("))\n");
+				String decl = "(declare-const " + n + " (_ BitVec " + v.getSize() + "))";
+				String lo, hi;
 				if (v.getLowerBound() >= 0) {
-					b.append("(assert (bvuge ").append(n).append(' ').append(literal(v.getLowerBound(), v.getSize()))
-							.append("))\n");
-					b.append("(assert (bvule ").append(n).append(' ').append(literal(v.getUpperBound(), v.getSize()))
-							.append("))");
+					lo = "(assert (bvuge " + n + ' ' + literal(v.getLowerBound(), v.getSize()) + "))";
+					hi = "(assert (bvule " + n + ' ' + literal(v.getUpperBound(), v.getSize()) + "))";
 				} else {
-					b.append("(assert (bvsge ").append(n).append(' ').append(literal(v.getLowerBound(), v.getSize()))
-							.append("))\n");
-					b.append("(assert (bvsle ").append(n).append(' ').append(literal(v.getUpperBound(), v.getSize()))
-							.append("))");
+					lo = "(assert (bvsge " + n + ' ' + literal(v.getLowerBound(), v.getSize()) + "))";
+					hi = "(assert (bvsle " + n + ' ' + literal(v.getUpperBound(), v.getSize()) + "))";
 				}
-				variableDefs.add(b.toString());
+				variableDefs.add(decl + '\n' + lo + '\n' + hi);
+				declarations.put(n, decl);
+				bounds.add(lo);
+				bounds.add(hi);
 				variables.put(n, v);
 			}
 			stack.push(new StackEntry(n, IntegerVariable.class, v.getSize()));
@@ -191,13 +525,13 @@ public class SolverZ3 extends Solver {
 		public void postVisit(RealVariable v) {
 			String n = v.getName();
 			if (!variables.containsKey(n)) {
-				StringBuilder b = new StringBuilder();
-				b.append("(declare-const ").append(n).append(" Float").append(v.getSize()).append(")\n");
-				b.append("(assert (fp.geq ").append(n).append(' ').append(literal(v.getLowerBound(), v.getSize()))
-						.append("))\n");
-				b.append("(assert (fp.leq ").append(n).append(' ').append(literal(v.getUpperBound(), v.getSize()))
-						.append("))");
-				variableDefs.add(b.toString());
+				String decl = "(declare-const " + n + " Float" + v.getSize() + ")";
+				String lo = "(assert (fp.geq " + n + ' ' + literal(v.getLowerBound(), v.getSize()) + "))";
+				String hi = "(assert (fp.leq " + n + ' ' + literal(v.getUpperBound(), v.getSize()) + "))";
+				variableDefs.add(decl + '\n' + lo + '\n' + hi);
+				declarations.put(n, decl);
+				bounds.add(lo);
+				bounds.add(hi);
 				variables.put(n, v);
 			}
 			stack.push(new StackEntry(n, RealVariable.class, v.getSize()));
@@ -455,6 +789,7 @@ public class SolverZ3 extends Solver {
 				b.append("(ite (bvsgt l!l r!r) #x00000001 ");
 				b.append("(ite (bvslt l!l r!r) #xffffffff #x00000000)))");
 				variableDefs.add(b.toString());
+				functions.put("lcmp!", b.toString());
 				addedLcmp = true;
 			}
 		}
@@ -467,6 +802,7 @@ public class SolverZ3 extends Solver {
 				b.append("(ite (fp.lt l!l r!r) #xffffffff ");
 				b.append("(ite (fp.eq l!l r!r) #x00000000 #xffffffff))))");
 				variableDefs.add(b.toString());
+				functions.put("fcmpl!", b.toString());
 				addedFcmpl = true;
 			}
 		}
@@ -479,6 +815,7 @@ public class SolverZ3 extends Solver {
 				b.append("(ite (fp.lt l!l r!r) #xffffffff ");
 				b.append("(ite (fp.eq l!l r!r) #x00000000 #x00000001))))");
 				variableDefs.add(b.toString());
+				functions.put("fcmpg!", b.toString());
 				addedFcmpg = true;
 			}
 		}
@@ -491,6 +828,7 @@ public class SolverZ3 extends Solver {
 				b.append("(ite (fp.lt l!l r!r) #xffffffff ");
 				b.append("(ite (fp.eq l!l r!r) #x00000000 #xffffffff))))");
 				variableDefs.add(b.toString());
+				functions.put("dcmpl!", b.toString());
 				addedDcmpl = true;
 			}
 		}
@@ -503,6 +841,7 @@ public class SolverZ3 extends Solver {
 				b.append("(ite (fp.lt l!l r!r) #xffffffff ");
 				b.append("(ite (fp.eq l!l r!r) #x00000000 #x00000001))))");
 				variableDefs.add(b.toString());
+				functions.put("dcmpg!", b.toString());
 				addedDcmpg = true;
 			}
 		}
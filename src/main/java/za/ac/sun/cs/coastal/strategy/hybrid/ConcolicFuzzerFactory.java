@@ -355,9 +355,7 @@ public class ConcolicFuzzerFactory implements StrategyFactory {
 				incValues.addAll((Set<Integer>) execution0.getPayload("incValues"));
 				refine(execution0, score0);
 				while (true) {
-					while (coastal.getSurferModelQueueLength() > queueLimit) {
-						Thread.sleep(200);
-					}
+					coastal.awaitSurferModelQueueLength(queueLimit);
 					keepers.clear();
 					int eliminate = Math.max(eliminationCount,
 							(int) (eliminationRatio * coastal.getTraceQueueLength()));
@@ -703,7 +701,8 @@ public class ConcolicFuzzerFactory implements StrategyFactory {
 					Choice lastChoice = path.getChoice();
 					long alternative = lastChoice.getAlternative();
 					Path newPath = new Path(path.getParent(), lastChoice.getAlternative(1 - alternative));
-					Input input = solver.solve(newPath.getPathCondition());
+					Input input = solver.solve(newPath.getPathCondition(), newPath.getChoice().getPCContribution(),
+							execution.getInput());
 					int d = -1;
 					if (input != null) {
 						input.copyPayload(execution.getInput());
@@ -1,12 +1,9 @@
 package za.ac.sun.cs.coastal.strategy.pathbased;
 
-import java.util.LinkedList;
-import java.util.Queue;
-
 import za.ac.sun.cs.coastal.COASTAL;
 import za.ac.sun.cs.coastal.Configuration;
 import za.ac.sun.cs.coastal.pathtree.PathTree;
-import za.ac.sun.cs.coastal.pathtree.PathTreeNode;
+import za.ac.sun.cs.coastal.pathtree.PathTree.FrontierOrder;
 import za.ac.sun.cs.coastal.symbolic.Path;
 
 public class BreadthFirstFactory extends PathBasedFactory {
@@ -69,25 +66,7 @@ public class BreadthFirstFactory extends PathBasedFactory {
 
 		@Override
 		public Path findNewPath(PathTree pathTree) {
-			Queue<PathTreeNode> workingSet = new LinkedList<>();
-			PathTreeNode root = pathTree.getRoot();
-			if (root == null) {
-				return null;
-			}
-			workingSet.add(root);
-			while (!workingSet.isEmpty()) {
-				PathTreeNode node = workingSet.remove();
-				int n = node.getChildCount();
-				for (int i = 0; i < n; i++) {
-					PathTreeNode childNode = node.getChild(i);
-					if (childNode == null) {
-						return node.getPathForChild(i);
-					} else if (!childNode.isComplete()) {
-						workingSet.add(childNode);
-					}
-				}
-			}
-			return null;
+			return pathTree.findFrontierPath(FrontierOrder.BREADTH_FIRST);
 		}
 
 	}
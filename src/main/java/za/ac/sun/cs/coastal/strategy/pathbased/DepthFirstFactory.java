@@ -3,7 +3,7 @@ package za.ac.sun.cs.coastal.strategy.pathbased;
 import za.ac.sun.cs.coastal.COASTAL;
 import za.ac.sun.cs.coastal.Configuration;
 import za.ac.sun.cs.coastal.pathtree.PathTree;
-import za.ac.sun.cs.coastal.pathtree.PathTreeNode;
+import za.ac.sun.cs.coastal.pathtree.PathTree.FrontierOrder;
 import za.ac.sun.cs.coastal.symbolic.Path;
 
 public class DepthFirstFactory extends PathBasedFactory {
@@ -66,27 +66,7 @@ public class DepthFirstFactory extends PathBasedFactory {
 
 		@Override
 		public Path findNewPath(PathTree pathTree) {
-			PathTreeNode curNode = pathTree.getRoot();
-			if (curNode == null) {
-				return null;
-			}
-			outer: while (true) {
-				int n = curNode.getChildCount();
-				for (int i = 0; i < n; i++) {
-					PathTreeNode childNode = curNode.getChild(i);
-					if ((childNode != null) && !childNode.isComplete()) {
-						curNode = childNode;
-						continue outer;
-					}
-				}
-				for (int i = 0; i < n; i++) {
-					PathTreeNode childNode = curNode.getChild(i);
-					if (childNode == null) {
-						return curNode.getPathForChild(i);
-					}
-				}
-				return null;
-			}
+			return pathTree.findFrontierPath(FrontierOrder.DEPTH_FIRST);
 		}
 
 	}
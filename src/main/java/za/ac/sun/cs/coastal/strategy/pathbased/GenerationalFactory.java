@@ -1,13 +1,17 @@
 package za.ac.sun.cs.coastal.strategy.pathbased;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import za.ac.sun.cs.coastal.COASTAL;
 import za.ac.sun.cs.coastal.Configuration;
 import za.ac.sun.cs.coastal.pathtree.PathTree;
 import za.ac.sun.cs.coastal.pathtree.PathTreeNode;
 import za.ac.sun.cs.coastal.solver.Expression;
+import za.ac.sun.cs.coastal.solver.SolverService;
 import za.ac.sun.cs.coastal.symbolic.Choice;
 import za.ac.sun.cs.coastal.symbolic.Execution;
 import za.ac.sun.cs.coastal.symbolic.Input;
@@ -120,51 +124,185 @@ public class GenerationalFactory extends PathBasedFactory {
 			if (execution == null) {
 				return null;
 			}
-			List<Input> inputs = new ArrayList<>();
 			Path path = execution.getPath();
-			log.trace("explored path <{}> {}", path.getSignature(), path.getPathCondition().toString());
+			log.trace("explored path <{}> {}", path.getSignature(), path.getPathCondition());
 			PathTreeNode bottom = manager.insertPath0(execution, false);
 			if (bottom != null) {
 				List<Path> altPaths = new ArrayList<>();
+				List<Expression> flipped = new ArrayList<>();
 				bottom = bottom.getParent();
 				int depth = bottom.getPath().getDepth();
 				for (Path pointer = path; (pointer != null) && !bottom.hasBeenGenerated(); pointer = pointer.getParent(), depth--) {
-					altPaths.addAll(generateAltPaths(path, pointer, depth));
+					for (Path altPath : generateAltPaths(path, pointer, depth)) {
+						altPaths.add(altPath);
+						flipped.add(getFlippedConjunct(path, altPath));
+					}
 					bottom.setGenerated();
 					bottom = bottom.getParent();
 				}
-				int priority = priorityStart;
-				for (Path altPath : altPaths) {
-					Expression pc = altPath.getPathCondition();
-					String sig = altPath.getSignature();
-					log.trace("about to explore path <{}> {}", sig, pc.toString());
-					long t = System.currentTimeMillis();
-					Input input = solver.solve(pc);
-					manager.recordSolverTime(System.currentTimeMillis() - t);
-					if (input == null) {
-						log.trace("no model was found for this path");
-						log.trace("the path condition is {}", altPath.getPathCondition().toString());
-						manager.insertPath(altPath, true);
-					} else {
-						String modelString = input.toString();
-						log.trace("new model found for this path: {}", modelString);
-						if (visitedInputs.add(modelString)) {
-							input.setPayload("priority", priority);
-							inputs.add(input);
-							priority += priorityDelta;
-						} else {
-							log.trace("model {} has been visited before, retrying", modelString);
+				Input reference = execution.getInput();
+				SolverService service = SolverService.getService(coastal);
+				ModelCollector collector = new ModelCollector(altPaths);
+				@SuppressWarnings("unchecked")
+				CompletableFuture<Void>[] futures = new CompletableFuture[altPaths.size()];
+				for (int i = 0, n = altPaths.size(); i < n; i++) {
+					final int index = i;
+					final Path altPath = altPaths.get(i);
+					log.trace("about to explore path <{}> {}", altPath.getSignature(), altPath.getPathCondition());
+					final long t = System.currentTimeMillis();
+					futures[i] = service.submit(altPath, flipped.get(i), reference).handle((input, x) -> {
+						manager.recordSolverTime(System.currentTimeMillis() - t);
+						if (x != null) {
+							log.warn("SOLVER SERVICE EXCEPTION", x);
 						}
+						collector.solved(index, input, x != null);
+						return null;
+					});
+				}
+				try {
+					CompletableFuture.allOf(futures).get();
+				} catch (InterruptedException e) {
+					for (CompletableFuture<Void> future : futures) {
+						future.cancel(true);
 					}
+					Thread.currentThread().interrupt();
+				} catch (ExecutionException e) {
+					log.error("MODEL PROCESSING EXCEPTION", e.getCause());
 				}
 			} else {
 				log.trace("revisited path -- no new models generated");
 			}
-			return inputs;
+			return Collections.emptyList();
+		}
+
+		/**
+		 * Adds the models for the alternative paths of one execution to the diver
+		 * input queue in the order in which the paths were generated, as soon as
+		 * the models of all the earlier paths are known. Divers can therefore start
+		 * on new inputs while later alternative paths are still being solved, but
+		 * the priorities are the same as when the paths are solved one by one: the
+		 * priority only advances when an input is actually added.
+		 */
+		private class ModelCollector {
+
+			private final List<Path> altPaths;
+
+			private final Input[] models;
+
+			/**
+			 * Whether the solver has finished with each path.
+			 */
+			private final boolean[] isSolved;
+
+			/**
+			 * Whether the solver failed on each path.
+			 */
+			private final boolean[] isFailed;
+
+			/**
+			 * The index of the first path whose model has not been added yet.
+			 */
+			private int next = 0;
+
+			/**
+			 * The priority of the next input that is added.
+			 */
+			private int priority = priorityStart;
+
+			ModelCollector(List<Path> altPaths) {
+				this.altPaths = altPaths;
+				int n = altPaths.size();
+				models = new Input[n];
+				isSolved = new boolean[n];
+				isFailed = new boolean[n];
+			}
+
+			/**
+			 * Record the outcome for one alternative path and add the models that are
+			 * now next in line.
+			 * 
+			 * @param index
+			 *                 the index of the alternative path
+			 * @param input
+			 *                 the model for the path or {@code null} if there is none
+			 * @param isFailure
+			 *                 whether the solver failed on the path
+			 */
+			synchronized void solved(int index, Input input, boolean isFailure) {
+				models[index] = input;
+				isFailed[index] = isFailure;
+				isSolved[index] = true;
+				while ((next < isSolved.length) && isSolved[next]) {
+					if (!isFailed[next] && addInput(altPaths.get(next), models[next], priority)) {
+						priority += priorityDelta;
+					}
+					models[next++] = null;
+				}
+			}
+
+		}
+
+		/**
+		 * Process the model for an alternative path.
+		 * 
+		 * @param altPath
+		 *                 the alternative path
+		 * @param input
+		 *                 the model for the path or {@code null} if there is none
+		 * @param priority
+		 *                 the priority for the new input
+		 * @return {@code true} if and only if a new input was added
+		 */
+		private boolean addInput(Path altPath, Input input, int priority) {
+			if (input == null) {
+				log.trace("no model was found for this path");
+				log.trace("the path condition is {}", altPath.getPathCondition());
+				manager.insertPath(altPath, true);
+			} else {
+				String modelString = input.toString();
+				log.trace("new model found for this path: {}", modelString);
+				if (visitedInputs.add(modelString)) {
+					input.setPayload("priority", priority);
+					coastal.updateWork(coastal.addDiverInputs(Collections.singletonList(input)));
+					return true;
+				} else {
+					log.trace("model {} has been visited before, retrying", modelString);
+				}
+			}
+			return false;
 		}
 
 		protected abstract List<Path> generateAltPaths(Path path, Path pointer, int depth);
 
+		/**
+		 * Return the path condition contribution of the choice that was flipped to
+		 * produce an alternative path. If the alternative path differs from the
+		 * explored path in more than one choice, {@code null} is returned.
+		 * 
+		 * @param path
+		 *                the explored path
+		 * @param altPath
+		 *                an alternative path generated from the explored path
+		 * @return the contribution of the flipped choice or {@code null}
+		 */
+		private Expression getFlippedConjunct(Path path, Path altPath) {
+			while ((path != null) && (path.getDepth() > altPath.getDepth())) {
+				path = path.getParent();
+			}
+			Choice flippedChoice = null;
+			while ((path != null) && (altPath != null) && (path != altPath)) {
+				if (path.getChoice() != altPath.getChoice()) {
+					if (flippedChoice != null) {
+						return null;
+					}
+					flippedChoice = altPath.getChoice();
+				}
+				path = path.getParent();
+				altPath = altPath.getParent();
+			}
+			return (flippedChoice == null) ? null : flippedChoice.getPCContribution();
+		}
+
 		@Override
 		public final Path findNewPath(PathTree pathTree) {
 			return null;
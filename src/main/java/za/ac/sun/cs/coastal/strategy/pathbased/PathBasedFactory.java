@@ -1,9 +1,9 @@
 package za.ac.sun.cs.coastal.strategy.pathbased;
 
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import za.ac.sun.cs.coastal.COASTAL;
@@ -182,7 +182,7 @@ public abstract class PathBasedFactory implements StrategyFactory {
 
 		protected final Solver solver;
 
-		protected final Set<String> visitedInputs = new HashSet<>();
+		protected final Set<String> visitedInputs = ConcurrentHashMap.newKeySet();
 
 		public PathBasedStrategy(COASTAL coastal, StrategyManager manager) {
 			super(coastal, manager);
@@ -250,7 +250,7 @@ public abstract class PathBasedFactory implements StrategyFactory {
 				manager.insertPath(execution, false); // ignore revisited return value
 				return null;
 			} else {
-				log.trace("explored path <{}> {}", path.getSignature(), path.getPathCondition().toString());
+				log.trace("explored path <{}> {}", path.getSignature(), path.getPathCondition());
 				manager.insertPath(execution, false); // ignore revisited return value
 				return refine1();
 			}
@@ -266,13 +266,14 @@ public abstract class PathBasedFactory implements StrategyFactory {
 				}
 				Expression pc = path.getPathCondition();
 				String sig = path.getSignature();
-				log.trace("about to explore path <{}> {}", sig, pc.toString());
+				log.trace("about to explore path <{}> {}", sig, pc);
 				long t = System.currentTimeMillis();
-				Input input = solver.solve(pc);
+				Input reference = manager.getPathTree().findReferenceInput(path);
+				Input input = solver.solve(pc, path.getChoice().getPCContribution(), reference);
 				manager.recordSolverTime(System.currentTimeMillis() - t);
 				if (input == null) {
 					log.trace("no model was found for this path");
-					log.trace("the path condition is {}", path.getPathCondition().toString());
+					log.trace("the path condition is {}", path.getPathCondition());
 					manager.insertPath(path, true);
 				} else {
 					String inputString = input.toMapString();
@@ -75,6 +75,9 @@ public class RandomPathFactory extends PathBasedFactory {
 		@Override
 		public Path findNewPath(PathTree pathTree) {
 			PathTreeNode curNode = pathTree.getRoot();
+			if (curNode == null) {
+				return null;
+			}
 			outer: while (true) {
 				int n = curNode.getChildCount();
 				int i = rng.nextInt(n);
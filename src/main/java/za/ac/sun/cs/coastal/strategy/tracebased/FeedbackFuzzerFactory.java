@@ -348,9 +348,7 @@ public class FeedbackFuzzerFactory implements StrategyFactory {
 				incValues.addAll((Set<Integer>) execution0.getPayload("incValues"));
 				refine(execution0, score0);
 				while (true) {
-					while (coastal.getSurferModelQueueLength() > queueLimit) {
-						Thread.sleep(200);
-					}
+					coastal.awaitSurferModelQueueLength(queueLimit);
 					keepers.clear();
 					int eliminate = Math.max(eliminationCount,
 							(int) (eliminationRatio * coastal.getTraceQueueLength()));
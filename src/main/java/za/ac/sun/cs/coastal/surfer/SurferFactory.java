@@ -142,7 +142,7 @@ public class SurferFactory implements TaskFactory {
 
 		public void report(Object object) {
 			double swt = surferWaitTime.get() / surferWaitCount.doubleValue();
-			broker.publish("report", new Tuple("Surfers.tasks", surferTaskCount));
+			broker.publish("report", new Tuple("Surfers.tasks", getSurferTaskCount()));
 			broker.publish("report", new FreqTuple("Surfers.count", getSurfCount()));
 			broker.publish("report", new Tuple("Surfers.aborted", abortCount.get()));
 			broker.publish("report", new TimeTuple("Surfers.total-time", surferTime.get()));
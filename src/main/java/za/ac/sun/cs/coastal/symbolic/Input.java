@@ -24,6 +24,13 @@ public final class Input extends PayloadCarrierImpl {
 	 */
 	private final InputVector inputVector;
 
+	/**
+	 * The priority of this input, derived from the "priority" or "score" payload.
+	 * It is kept as a primitive so that input queues can compare inputs without
+	 * looking up and unboxing the payload.
+	 */
+	private volatile int priority = 0;
+
 	public static final Input DONE_INPUT = new Input();
 
 	/**
@@ -49,20 +56,52 @@ public final class Input extends PayloadCarrierImpl {
 	}
 
 	/**
-	 * Return the priority of this input. First the method checks is there is a
-	 * "priority" payload. If not, it checks for a "score" payload. If either is
-	 * present, it is returned. Otherwise, the method returns 0.
+	 * Return the priority of this input. If there is a "priority" payload, it is
+	 * returned. Otherwise, if there is a "score" payload, it is returned.
+	 * Otherwise, the method returns 0.
 	 * 
 	 * @return priority of this input
 	 */
 	public int getPriority() {
-		Integer priority = (Integer) getPayload("priority");
-		if (priority == null) {
-			priority = (Integer) getPayload("score");
-		}
 		return priority;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * za.ac.sun.cs.coastal.symbolic.PayloadCarrierImpl#setPayload(java.lang.String,
+	 * java.lang.Object)
+	 */
+	@Override
+	public void setPayload(String key, Object value) {
+		super.setPayload(key, value);
+		if ("priority".equals(key) || "score".equals(key)) {
+			updatePriority();
+		}
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * za.ac.sun.cs.coastal.symbolic.PayloadCarrierImpl#copyPayload(za.ac.sun.cs.
+	 * coastal.symbolic.PayloadCarrier)
+	 */
+	@Override
+	public void copyPayload(PayloadCarrier carrier) {
+		super.copyPayload(carrier);
+		updatePriority();
+	}
+
+	private void updatePriority() {
+		Integer value = (Integer) getPayload("priority");
+		if (value == null) {
+			value = (Integer) getPayload("score");
+		}
+		priority = (value == null) ? 0 : value;
+	}
+
 	/**
 	 * Return the variable value associated with a name.
 	 * 
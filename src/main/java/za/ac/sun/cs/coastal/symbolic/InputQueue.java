@@ -0,0 +1,269 @@
+package za.ac.sun.cs.coastal.symbolic;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A queue of inputs that are waiting to be processed by divers or surfers.
+ * Inputs with a lower priority value (see {@link Input#getPriority()}) are
+ * removed before inputs with a higher priority value.
+ *
+ * To avoid a single lock that all producers and consumers contend for, the
+ * queue is split into shards. Each shard is a bucketed priority queue: a sorted
+ * map from priority values to first-in-first-out buckets of inputs, guarded by
+ * its own lock. Producers spread their inputs over the shards in round-robin
+ * fashion. A consumer compares the heads of all the shards and removes the
+ * input with the lowest priority value, so that the order is by priority across
+ * shards. When shards have heads with the same priority value, each consumer
+ * thread prefers its own home shard, to spread the contention over the locks.
+ *
+ * Each shard publishes the priority value of its head in a volatile field, so
+ * that a consumer compares the shards without locking them and then locks only
+ * the shard it removes an input from. The price is that the comparison is made
+ * on a snapshot: an input that is added to another shard, or a head that is
+ * taken by another consumer, while the heads are compared may leave the
+ * consumer with an input that is not the lowest one at the moment it is
+ * removed. The order is therefore strict only in the absence of concurrent
+ * updates. The alternative, polling the home shard and stealing from the
+ * others only when it is empty, would avoid reading the other heads at all,
+ * but lets the order drift arbitrarily far from the priorities.
+ *
+ * The number of available inputs is tracked by a semaphore, so that consumers
+ * block without holding a lock when the queue is empty. An input is always
+ * added to a shard before its permit is released, and a permit is always
+ * acquired before its input is removed, so a permit guarantees that an input
+ * can be found.
+ */
+public class InputQueue {
+
+	/**
+	 * The head priority value of an empty shard.
+	 */
+	private static final long EMPTY = Long.MAX_VALUE;
+
+	/**
+	 * The shards of the queue.
+	 */
+	private final Shard[] shards;
+
+	/**
+	 * The number of inputs that have been added but not yet claimed by a consumer.
+	 */
+	private final Semaphore available = new Semaphore(0);
+
+	/**
+	 * Counter used to distribute new inputs over the shards.
+	 */
+	private final AtomicInteger nextShard = new AtomicInteger(0);
+
+	/**
+	 * The number of threads waiting in {@link #awaitSize(int)}.
+	 */
+	private final AtomicInteger sizeWaiterCount = new AtomicInteger(0);
+
+	/**
+	 * Monitor for threads waiting in {@link #awaitSize(int)}.
+	 */
+	private final Object sizeMonitor = new Object();
+
+	/**
+	 * Counter used to assign home shards to consumer threads.
+	 */
+	private final AtomicInteger nextHome = new AtomicInteger(0);
+
+	/**
+	 * The home shard of the current thread.
+	 */
+	private final ThreadLocal<Integer> home = new ThreadLocal<Integer>() {
+		@Override
+		protected Integer initialValue() {
+			return (nextHome.getAndIncrement() & Integer.MAX_VALUE) % shards.length;
+		}
+	};
+
+	/**
+	 * Construct a new, empty queue.
+	 *
+	 * @param shardCount
+	 *                   the number of shards
+	 */
+	public InputQueue(int shardCount) {
+		shards = new Shard[Math.max(1, shardCount)];
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new Shard();
+		}
+	}
+
+	/**
+	 * Add an input to the queue.
+	 *
+	 * @param input
+	 *              the input to add
+	 */
+	public void put(Input input) {
+		int index = (nextShard.getAndIncrement() & Integer.MAX_VALUE) % shards.length;
+		shards[index].add(input);
+		available.release();
+	}
+
+	/**
+	 * Remove an input from the queue, waiting if necessary until one becomes
+	 * available.
+	 *
+	 * @return the input with the lowest priority value
+	 * @throws InterruptedException
+	 *                              if the thread was interrupted while waiting
+	 */
+	public Input take() throws InterruptedException {
+		available.acquire();
+		if (sizeWaiterCount.get() > 0) {
+			synchronized (sizeMonitor) {
+				sizeMonitor.notifyAll();
+			}
+		}
+		// The permit guarantees that some shard holds an input for us, but
+		// another consumer may get to it first, so scan until one is found.
+		int start = home.get();
+		while (true) {
+			Input input = poll(start);
+			if (input != null) {
+				return input;
+			}
+			if (Thread.interrupted()) {
+				available.release();
+				throw new InterruptedException();
+			}
+			Thread.yield();
+		}
+	}
+
+	/**
+	 * Remove the input with the lowest priority value from the shard with the
+	 * lowest head. Ties are broken in favour of the first shard, counting from a
+	 * given starting shard. Only the chosen shard is locked.
+	 *
+	 * @param start
+	 *              the index of the starting shard
+	 * @return the input or {@code null} if all shards are empty
+	 */
+	private Input poll(int start) {
+		if (shards.length == 1) {
+			return shards[0].poll();
+		}
+		Shard best = null;
+		long bestHead = EMPTY;
+		for (int i = 0; i < shards.length; i++) {
+			Shard shard = shards[(start + i) % shards.length];
+			long head = shard.head;
+			if (head < bestHead) {
+				best = shard;
+				bestHead = head;
+			}
+		}
+		return (best == null) ? null : best.poll();
+	}
+
+	/**
+	 * Return the number of inputs in the queue.
+	 *
+	 * @return the number of inputs
+	 */
+	public int size() {
+		return available.availablePermits();
+	}
+
+	/**
+	 * Wait until the queue holds at most a given number of inputs.
+	 *
+	 * @param limit
+	 *              the maximum number of inputs
+	 * @throws InterruptedException
+	 *                              if the thread was interrupted while waiting
+	 */
+	public void awaitSize(int limit) throws InterruptedException {
+		sizeWaiterCount.incrementAndGet();
+		try {
+			synchronized (sizeMonitor) {
+				while (size() > limit) {
+					sizeMonitor.wait();
+				}
+			}
+		} finally {
+			sizeWaiterCount.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Remove all inputs from the queue. Like {@link #take()}, this claims the
+	 * permits first and then removes one input per permit, so that inputs that
+	 * are added concurrently are either removed together with their permits or
+	 * kept together with them.
+	 */
+	public void clear() {
+		for (int count = available.drainPermits(); count > 0; count--) {
+			while (poll(0) == null) {
+				Thread.yield();
+			}
+		}
+		synchronized (sizeMonitor) {
+			sizeMonitor.notifyAll();
+		}
+	}
+
+	// ======================================================================
+	//
+	// SHARDS
+	//
+	// ======================================================================
+
+	/**
+	 * A bucketed priority queue.
+	 */
+	private static class Shard {
+
+		/**
+		 * Map from priority values to the inputs with that priority value, in the
+		 * order in which they were added.
+		 */
+		private final TreeMap<Integer, ArrayDeque<Input>> buckets = new TreeMap<>();
+
+		/**
+		 * The lowest priority value in this shard, or {@link InputQueue#EMPTY} if
+		 * the shard is empty. It is only written while holding the lock of the
+		 * shard, but it is read without the lock.
+		 */
+		private volatile long head = EMPTY;
+
+		synchronized void add(Input input) {
+			Integer priority = input.getPriority();
+			ArrayDeque<Input> bucket = buckets.get(priority);
+			if (bucket == null) {
+				bucket = new ArrayDeque<>();
+				buckets.put(priority, bucket);
+			}
+			bucket.addLast(input);
+			if (priority < head) {
+				head = priority;
+			}
+		}
+
+		synchronized Input poll() {
+			Map.Entry<Integer, ArrayDeque<Input>> entry = buckets.firstEntry();
+			if (entry == null) {
+				return null;
+			}
+			ArrayDeque<Input> bucket = entry.getValue();
+			Input input = bucket.pollFirst();
+			if (bucket.isEmpty()) {
+				buckets.remove(entry.getKey());
+				head = buckets.isEmpty() ? EMPTY : buckets.firstKey();
+			}
+			return input;
+		}
+
+	}
+
+}
@@ -1,5 +1,9 @@
 package za.ac.sun.cs.coastal.symbolic;
 
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
 import za.ac.sun.cs.coastal.solver.Expression;
 import za.ac.sun.cs.coastal.solver.Operation;
 import za.ac.sun.cs.coastal.solver.Operation.Operator;
@@ -10,6 +14,32 @@ import za.ac.sun.cs.coastal.solver.Operation.Operator;
  */
 public final class Path {
 
+	/**
+	 * Whether or not paths are kept lean. Lean paths do not hold on to their path
+	 * conditions (which are rebuilt from the parent chain on demand and cached
+	 * only behind soft references), and their signatures are rolling 64-bit hashes
+	 * instead of strings that grow with the depth of the path.
+	 */
+	private static volatile boolean isLean = false;
+
+	/**
+	 * Switch lean paths on or off.
+	 * 
+	 * @param lean whether or not paths should be lean
+	 */
+	public static void setLean(boolean lean) {
+		isLean = lean;
+	}
+
+	/**
+	 * Return whether or not paths are lean.
+	 * 
+	 * @return {@code true} if and only if paths are lean
+	 */
+	public static boolean isLean() {
+		return isLean;
+	}
+
 	/**
 	 * The prefix of this path, or {@code null} is this is the root of other paths.
 	 * Many paths may have this path as a prefix.
@@ -77,6 +107,12 @@ public final class Path {
 	 * is only computed when needed.
 	 */
 	protected Expression pathCondition = null;
+
+	/**
+	 * The path condition of a lean path. The garbage collector may clear it at any
+	 * time, in which case it is rebuilt.
+	 */
+	private SoftReference<Expression> leanPathCondition = null;
 	
 	/**
 	 * Return the path condition that corresponds to this path.
@@ -84,23 +120,70 @@ public final class Path {
 	 * @return the path's path condition
 	 */
 	public Expression getPathCondition() {
+		if (isLean) {
+			return getLeanPathCondition();
+		}
 		if (pathCondition == null) {
 			Path parent = getParent();
-			if (parent != null) {
-				pathCondition = parent.getPathCondition();
+			pathCondition = extend((parent == null) ? null : parent.getPathCondition(), getChoice());
+		}
+		return pathCondition;
+	}
+
+	/**
+	 * Return the path condition of a lean path. The path condition is built
+	 * iteratively from the nearest ancestor whose path condition is still cached,
+	 * and only the final result is cached.
+	 * 
+	 * @return the path's path condition
+	 */
+	private Expression getLeanPathCondition() {
+		Expression pc = getCachedPathCondition();
+		if (pc != null) {
+			return pc;
+		}
+		Deque<Path> pending = new ArrayDeque<>();
+		for (Path p = this; p != null; p = p.getParent()) {
+			pc = p.getCachedPathCondition();
+			if (pc != null) {
+				break;
 			}
-			Expression c = getChoice().getPCContribution();
-			if (c != null) {
-				if (pathCondition == null) {
-					pathCondition = c;
-				} else {
-					while ((c != null) && (c instanceof Operation) && (((Operation) c).getOperator() == Operator.AND)) {
-						pathCondition = Operation.and(((Operation) c).getOperand(0), pathCondition);
-						c = ((Operation) c).getOperand(1);
-					}
-					if (c != null) {
-						pathCondition = Operation.and(c, pathCondition);
-					}
+			pending.push(p);
+		}
+		while (!pending.isEmpty()) {
+			pc = extend(pc, pending.pop().getChoice());
+		}
+		leanPathCondition = new SoftReference<>(pc);
+		return pc;
+	}
+
+	private Expression getCachedPathCondition() {
+		if (pathCondition != null) {
+			return pathCondition;
+		}
+		SoftReference<Expression> ref = leanPathCondition;
+		return (ref == null) ? null : ref.get();
+	}
+
+	/**
+	 * Add the contribution of a choice to a path condition.
+	 * 
+	 * @param pathCondition the path condition of the prefix (may be {@code null})
+	 * @param choice        the choice to add
+	 * @return the extended path condition
+	 */
+	private static Expression extend(Expression pathCondition, Choice choice) {
+		Expression c = choice.getPCContribution();
+		if (c != null) {
+			if (pathCondition == null) {
+				pathCondition = c;
+			} else {
+				while ((c != null) && (c instanceof Operation) && (((Operation) c).getOperator() == Operator.AND)) {
+					pathCondition = Operation.and(((Operation) c).getOperand(0), pathCondition);
+					c = ((Operation) c).getOperand(1);
+				}
+				if (c != null) {
+					pathCondition = Operation.and(c, pathCondition);
 				}
 			}
 		}
@@ -120,11 +203,29 @@ public final class Path {
 	protected String signature = null;
 
 	/**
-	 * Return the signature that corresponds to this path.
+	 * The rolling hash of the signature of a lean path.
+	 */
+	private long signatureHash;
+
+	/**
+	 * Whether or not {@link #signatureHash} has been computed.
+	 */
+	private volatile boolean hasSignatureHash = false;
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Return the signature that corresponds to this path. For lean paths, this is
+	 * the hexadecimal representation of {@link #getSignatureHash()}.
 	 * 
 	 * @return the path's signature
 	 */
 	public String getSignature() {
+		if (isLean) {
+			return Long.toHexString(getSignatureHash());
+		}
 		if (signature == null) {
 			Path parent = getParent();
 			if (parent != null) {
@@ -142,6 +243,41 @@ public final class Path {
 		return signature;
 	}
 
+	/**
+	 * Return a 64-bit FNV-1a hash of the signature contributions along this path,
+	 * starting at the root. The hash of a path is computed from the hash of its
+	 * parent, so that no signature strings need to be stored.
+	 * 
+	 * @return the hash of the path's signature
+	 */
+	public long getSignatureHash() {
+		if (hasSignatureHash) {
+			return signatureHash;
+		}
+		Deque<Path> pending = new ArrayDeque<>();
+		long hash = FNV_OFFSET;
+		for (Path p = this; p != null; p = p.getParent()) {
+			if (p.hasSignatureHash) {
+				hash = p.signatureHash;
+				break;
+			}
+			pending.push(p);
+		}
+		while (!pending.isEmpty()) {
+			Path p = pending.pop();
+			String c = p.getChoice().getSignatureContribution();
+			if (c != null) {
+				for (int i = 0, n = c.length(); i < n; i++) {
+					hash ^= c.charAt(i);
+					hash *= FNV_PRIME;
+				}
+			}
+			p.signatureHash = hash;
+			p.hasSignatureHash = true;
+		}
+		return hash;
+	}
+
 	// ======================================================================
 	//
 	// STRING REPRESENTATION
@@ -160,6 +296,9 @@ public final class Path {
 	 */
 	@Override
 	public String toString() {
+		if (isLean) {
+			return toString0();
+		}
 		if (stringRep == null) {
 			stringRep = toString0();
 		}
@@ -9,6 +9,7 @@
 package za.ac.sun.cs.coastal.symbolic;
 
 import org.apache.logging.log4j.Logger;
+import org.objectweb.asm.Opcodes;
 
 import za.ac.sun.cs.coastal.COASTAL;
 import za.ac.sun.cs.coastal.Symbolic;
@@ -763,6 +764,397 @@ public abstract class State {
 	 */
 	public abstract void varInsn(int instr, int opcode, int var) throws COASTALException;
 
+	/*
+	 * The following callbacks are emitted instead of the generic ones above for
+	 * the most common instructions, so that each call site refers to a small
+	 * method that handles one opcode. By default, they simply fall back to the
+	 * generic callbacks.
+	 */
+
+	/**
+	 * Handle an {@code IADD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void iadd(int instr) throws COASTALException {
+		insn(instr, Opcodes.IADD);
+	}
+
+	/**
+	 * Handle an {@code LADD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void ladd(int instr) throws COASTALException {
+		insn(instr, Opcodes.LADD);
+	}
+
+	/**
+	 * Handle an {@code FADD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void fadd(int instr) throws COASTALException {
+		insn(instr, Opcodes.FADD);
+	}
+
+	/**
+	 * Handle an {@code DADD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void dadd(int instr) throws COASTALException {
+		insn(instr, Opcodes.DADD);
+	}
+
+	/**
+	 * Handle an {@code ISUB} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void isub(int instr) throws COASTALException {
+		insn(instr, Opcodes.ISUB);
+	}
+
+	/**
+	 * Handle an {@code LSUB} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void lsub(int instr) throws COASTALException {
+		insn(instr, Opcodes.LSUB);
+	}
+
+	/**
+	 * Handle an {@code IMUL} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void imul(int instr) throws COASTALException {
+		insn(instr, Opcodes.IMUL);
+	}
+
+	/**
+	 * Handle an {@code LMUL} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void lmul(int instr) throws COASTALException {
+		insn(instr, Opcodes.LMUL);
+	}
+
+	/**
+	 * Handle an {@code FMUL} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void fmul(int instr) throws COASTALException {
+		insn(instr, Opcodes.FMUL);
+	}
+
+	/**
+	 * Handle an {@code DMUL} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void dmul(int instr) throws COASTALException {
+		insn(instr, Opcodes.DMUL);
+	}
+
+	/**
+	 * Handle an {@code IAND} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void iand(int instr) throws COASTALException {
+		insn(instr, Opcodes.IAND);
+	}
+
+	/**
+	 * Handle an {@code LAND} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void land(int instr) throws COASTALException {
+		insn(instr, Opcodes.LAND);
+	}
+
+	/**
+	 * Handle an {@code IOR} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void ior(int instr) throws COASTALException {
+		insn(instr, Opcodes.IOR);
+	}
+
+	/**
+	 * Handle an {@code LOR} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void lor(int instr) throws COASTALException {
+		insn(instr, Opcodes.LOR);
+	}
+
+	/**
+	 * Handle an {@code IXOR} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void ixor(int instr) throws COASTALException {
+		insn(instr, Opcodes.IXOR);
+	}
+
+	/**
+	 * Handle an {@code LXOR} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void lxor(int instr) throws COASTALException {
+		insn(instr, Opcodes.LXOR);
+	}
+
+	/**
+	 * Handle an {@code ISHL} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void ishl(int instr) throws COASTALException {
+		insn(instr, Opcodes.ISHL);
+	}
+
+	/**
+	 * Handle an {@code LSHL} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void lshl(int instr) throws COASTALException {
+		insn(instr, Opcodes.LSHL);
+	}
+
+	/**
+	 * Handle an {@code ISHR} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void ishr(int instr) throws COASTALException {
+		insn(instr, Opcodes.ISHR);
+	}
+
+	/**
+	 * Handle an {@code LSHR} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void lshr(int instr) throws COASTALException {
+		insn(instr, Opcodes.LSHR);
+	}
+
+	/**
+	 * Handle an {@code IUSHR} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void iushr(int instr) throws COASTALException {
+		insn(instr, Opcodes.IUSHR);
+	}
+
+	/**
+	 * Handle an {@code LUSHR} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void lushr(int instr) throws COASTALException {
+		insn(instr, Opcodes.LUSHR);
+	}
+
+	/**
+	 * Handle an {@code POP} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void pop(int instr) throws COASTALException {
+		insn(instr, Opcodes.POP);
+	}
+
+	/**
+	 * Handle an {@code DUP} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #insn(int, int)
+	 */
+	public void dup(int instr) throws COASTALException {
+		insn(instr, Opcodes.DUP);
+	}
+
+	/**
+	 * Handle an {@code ILOAD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void iload(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.ILOAD, var);
+	}
+
+	/**
+	 * Handle an {@code LLOAD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void lload(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.LLOAD, var);
+	}
+
+	/**
+	 * Handle an {@code FLOAD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void fload(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.FLOAD, var);
+	}
+
+	/**
+	 * Handle an {@code DLOAD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void dload(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.DLOAD, var);
+	}
+
+	/**
+	 * Handle an {@code ALOAD} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void aload(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.ALOAD, var);
+	}
+
+	/**
+	 * Handle an {@code ISTORE} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void istore(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.ISTORE, var);
+	}
+
+	/**
+	 * Handle an {@code LSTORE} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void lstore(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.LSTORE, var);
+	}
+
+	/**
+	 * Handle an {@code FSTORE} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void fstore(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.FSTORE, var);
+	}
+
+	/**
+	 * Handle an {@code DSTORE} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void dstore(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.DSTORE, var);
+	}
+
+	/**
+	 * Handle an {@code ASTORE} instruction.
+	 * 
+	 * @param instr  the number of the instruction
+	 * @param var    the identifier of the local variable
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 * @see #varInsn(int, int, int)
+	 */
+	public void astore(int instr, int var) throws COASTALException {
+		varInsn(instr, Opcodes.ASTORE, var);
+	}
+
 	/**
 	 * Handle a type instruction. A type instruction is an instruction that takes
 	 * the internal name of a class as parameter.
@@ -811,6 +1203,64 @@ public abstract class State {
 	public abstract void methodInsn(int instr, int opcode, String owner, String name, String descriptor)
 			throws COASTALException;
 
+	/**
+	 * Handle the invocation of a method that has been elided because it can never
+	 * touch symbolic data. The elided method is not instrumented, so that its
+	 * arguments must be discarded here. By default, the invocation is handled
+	 * like any other.
+	 * 
+	 * @param instr      the number of the instruction
+	 * @param opcode     the instruction opcode
+	 * @param owner      the internal name of the method's owner class
+	 * @param name       the name of the method
+	 * @param descriptor the type descriptor of the method
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 */
+	public void concreteInvoke(int instr, int opcode, String owner, String name, String descriptor)
+			throws COASTALException {
+		methodInsn(instr, opcode, owner, name, descriptor);
+	}
+
+	/**
+	 * Handle the concrete result of a method that has been elided. By default,
+	 * nothing is done.
+	 * 
+	 * @param value the result of the method
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 */
+	public void concreteReturn(int value) throws COASTALException {
+	}
+
+	/**
+	 * Handle the concrete result of a method that has been elided. By default,
+	 * nothing is done.
+	 * 
+	 * @param value the result of the method
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 */
+	public void concreteReturn(long value) throws COASTALException {
+	}
+
+	/**
+	 * Handle the concrete result of a method that has been elided. By default,
+	 * nothing is done.
+	 * 
+	 * @param value the result of the method
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 */
+	public void concreteReturn(float value) throws COASTALException {
+	}
+
+	/**
+	 * Handle the concrete result of a method that has been elided. By default,
+	 * nothing is done.
+	 * 
+	 * @param value the result of the method
+	 * @throws COASTALException if a symbolic exception occurs during the method
+	 */
+	public void concreteReturn(double value) throws COASTALException {
+	}
+
 	/**
 	 * Handle an {@code INVOKEDYNAMIC} instruction.
 	 * 
@@ -8,6 +8,10 @@
  */
 package za.ac.sun.cs.coastal.symbolic;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
 import za.ac.sun.cs.coastal.solver.Expression;
 import za.ac.sun.cs.coastal.symbolic.ValueFactory.Value;
 import za.ac.sun.cs.coastal.symbolic.exceptions.COASTALException;
@@ -36,6 +40,94 @@ public class VM {
 		VM.state = state;
 	}
 
+	/**
+	 * Per-thread states, used when the classes of the system-under-test are
+	 * shared by all divers and surfers (see {@link #useThreadState()}). Threads
+	 * started by the system-under-test inherit the state of their parent.
+	 */
+	private static final InheritableThreadLocal<State> threadState = new InheritableThreadLocal<>();
+
+	/**
+	 * Whether the per-thread states are used instead of {@link #state}. This is
+	 * set once, before any divers or surfers are started.
+	 */
+	private static boolean isThreadState = false;
+
+	/**
+	 * Switch this copy of the class to per-thread states. This is used when the
+	 * classes of the system-under-test are instrumented by the Java agent, and
+	 * there is only one copy of this class.
+	 */
+	public static void useThreadState() {
+		isThreadState = true;
+	}
+
+	/**
+	 * Set the state for the current thread (and the threads it starts).
+	 *
+	 * @param state
+	 *              state for the current thread, or {@code null} to clear it
+	 */
+	public static void setThreadState(State state) {
+		if (state == null) {
+			threadState.remove();
+		} else {
+			threadState.set(state);
+		}
+	}
+
+	/**
+	 * Return the state that the instrumentation callbacks of the current thread
+	 * should be forwarded to.
+	 *
+	 * @return the current state
+	 */
+	private static State getState() {
+		return isThreadState ? threadState.get() : state;
+	}
+
+	/**
+	 * The classes of the system-under-test whose static initializers have
+	 * completed, in the order in which they completed. Only classes that were
+	 * instrumented to be reset are recorded.
+	 */
+	private static final List<Class<?>> initializedClasses = new ArrayList<>();
+
+	/**
+	 * Record that the static initializer of a class has completed. Called by the
+	 * static initializer added by the {@code StaticResetAdapter}.
+	 *
+	 * @param clas
+	 *             the class whose static initializer has completed
+	 */
+	public static void registerStaticInit(Class<?> clas) {
+		synchronized (initializedClasses) {
+			initializedClasses.add(clas);
+		}
+	}
+
+	/**
+	 * Reset the static fields of all initialized classes and run their static
+	 * initializers again, in the order in which they first completed. The reset
+	 * methods are made accessible first, since the classes that declare them need
+	 * not be public.
+	 *
+	 * @throws ReflectiveOperationException
+	 *                                      if a reset method cannot be found or
+	 *                                      throws an exception
+	 */
+	public static void resetStatics() throws ReflectiveOperationException {
+		List<Class<?>> classes;
+		synchronized (initializedClasses) {
+			classes = new ArrayList<>(initializedClasses);
+		}
+		for (Class<?> clas : classes) {
+			Method reset = clas.getDeclaredMethod("__coastal_reset");
+			reset.setAccessible(true);
+			reset.invoke(null);
+		}
+	}
+
 	// ======================================================================
 	//
 	// STATE ROUTINES
@@ -52,7 +144,7 @@ public class VM {
 	 */
 	public static String getNewVariableName() throws COASTALException {
 		try {
-			return state.getNewVariableName();
+			return getState().getNewVariableName();
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -72,7 +164,7 @@ public class VM {
 	 */
 	public static Value getStringLength(int stringId) throws COASTALException {
 		try {
-			return state.getStringLength(stringId);
+			return getState().getStringLength(stringId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -95,7 +187,7 @@ public class VM {
 	 */
 	public static Value getStringChar(int stringId, int index) throws COASTALException {
 		try {
-			return state.getStringChar(stringId, index);
+			return getState().getStringChar(stringId, index);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -114,7 +206,7 @@ public class VM {
 	 */
 	public static void push(Value expr) throws COASTALException {
 		try {
-			state.push(expr);
+			getState().push(expr);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -132,7 +224,7 @@ public class VM {
 	 */
 	public static Value pop() throws COASTALException {
 		try {
-			return state.pop();
+			return getState().pop();
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -153,7 +245,7 @@ public class VM {
 	 */
 	public static void pushExtraConjunct(Expression extraConjunct) throws COASTALException {
 		try {
-			state.pushExtraCondition(extraConjunct);
+			getState().pushExtraCondition(extraConjunct);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -181,7 +273,7 @@ public class VM {
 	 */
 	public static int createSymbolicInt(int oldValue, int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicInt(oldValue, uniqueId);
+			return getState().createSymbolicInt(oldValue, uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -209,7 +301,7 @@ public class VM {
 	 */
 	public static short createSymbolicShort(short oldValue, int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicShort(oldValue, uniqueId);
+			return getState().createSymbolicShort(oldValue, uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -238,7 +330,7 @@ public class VM {
 	 */
 	public static boolean createSymbolicBoolean(boolean oldValue, int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicBoolean(oldValue, uniqueId);
+			return getState().createSymbolicBoolean(oldValue, uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -266,7 +358,7 @@ public class VM {
 	 */
 	public static byte createSymbolicByte(byte oldValue, int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicByte(oldValue, uniqueId);
+			return getState().createSymbolicByte(oldValue, uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -294,7 +386,7 @@ public class VM {
 	 */
 	public static char createSymbolicChar(char oldValue, int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicChar(oldValue, uniqueId);
+			return getState().createSymbolicChar(oldValue, uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -322,7 +414,7 @@ public class VM {
 	 */
 	public static long createSymbolicLong(long oldValue, int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicLong(oldValue, uniqueId);
+			return getState().createSymbolicLong(oldValue, uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -350,7 +442,7 @@ public class VM {
 	 */
 	public static float createSymbolicFloat(float oldValue, int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicFloat(oldValue, uniqueId);
+			return getState().createSymbolicFloat(oldValue, uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -378,7 +470,7 @@ public class VM {
 	 */
 	public static double createSymbolicDouble(double oldValue, int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicDouble(oldValue, uniqueId);
+			return getState().createSymbolicDouble(oldValue, uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -398,7 +490,7 @@ public class VM {
 	 */
 	public static String createSymbolicString(int uniqueId) throws COASTALException {
 		try {
-			return state.createSymbolicString(uniqueId);
+			return getState().createSymbolicString(uniqueId);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -417,7 +509,7 @@ public class VM {
 	 */
 	public static void assume(boolean condition) throws COASTALException {
 		try {
-			state.assume(condition);
+			getState().assume(condition);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -437,7 +529,7 @@ public class VM {
 	 */
 	public static int makeSymbolicInt(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicInt(newName);
+			return getState().makeSymbolicInt(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -457,7 +549,7 @@ public class VM {
 	 */
 	public static short makeSymbolicShort(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicShort(newName);
+			return getState().makeSymbolicShort(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -478,7 +570,7 @@ public class VM {
 	 */
 	public static boolean makeSymbolicBoolean(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicBoolean(newName);
+			return getState().makeSymbolicBoolean(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -498,7 +590,7 @@ public class VM {
 	 */
 	public static byte makeSymbolicByte(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicByte(newName);
+			return getState().makeSymbolicByte(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -518,7 +610,7 @@ public class VM {
 	 */
 	public static char makeSymbolicChar(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicChar(newName);
+			return getState().makeSymbolicChar(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -538,7 +630,7 @@ public class VM {
 	 */
 	public static long makeSymbolicLong(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicLong(newName);
+			return getState().makeSymbolicLong(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -558,7 +650,7 @@ public class VM {
 	 */
 	public static float makeSymbolicFloat(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicFloat(newName);
+			return getState().makeSymbolicFloat(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -578,7 +670,7 @@ public class VM {
 	 */
 	public static double makeSymbolicDouble(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicDouble(newName);
+			return getState().makeSymbolicDouble(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -598,7 +690,7 @@ public class VM {
 	 */
 	public static String makeSymbolicString(String newName) throws COASTALException {
 		try {
-			return state.makeSymbolicString(newName);
+			return getState().makeSymbolicString(newName);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -623,7 +715,7 @@ public class VM {
 	 */
 	public static boolean getRecordingMode() throws COASTALException {
 		try {
-			return state.getRecordingMode();
+			return getState().getRecordingMode();
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -647,7 +739,7 @@ public class VM {
 	public static boolean getConcreteBoolean(int triggerIndex, int index, int address, boolean currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteBoolean(triggerIndex, index, address, currentValue);
+			return getState().getConcreteBoolean(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -671,7 +763,7 @@ public class VM {
 	public static byte getConcreteByte(int triggerIndex, int index, int address, byte currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteByte(triggerIndex, index, address, currentValue);
+			return getState().getConcreteByte(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -695,7 +787,7 @@ public class VM {
 	public static short getConcreteShort(int triggerIndex, int index, int address, short currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteShort(triggerIndex, index, address, currentValue);
+			return getState().getConcreteShort(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -719,7 +811,7 @@ public class VM {
 	public static char getConcreteChar(int triggerIndex, int index, int address, char currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteChar(triggerIndex, index, address, currentValue);
+			return getState().getConcreteChar(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -743,7 +835,7 @@ public class VM {
 	public static int getConcreteInt(int triggerIndex, int index, int address, int currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteInt(triggerIndex, index, address, currentValue);
+			return getState().getConcreteInt(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -767,7 +859,7 @@ public class VM {
 	public static long getConcreteLong(int triggerIndex, int index, int address, long currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteLong(triggerIndex, index, address, currentValue);
+			return getState().getConcreteLong(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -791,7 +883,7 @@ public class VM {
 	public static float getConcreteFloat(int triggerIndex, int index, int address, float currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteFloat(triggerIndex, index, address, currentValue);
+			return getState().getConcreteFloat(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -815,7 +907,7 @@ public class VM {
 	public static double getConcreteDouble(int triggerIndex, int index, int address, double currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteDouble(triggerIndex, index, address, currentValue);
+			return getState().getConcreteDouble(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -839,7 +931,7 @@ public class VM {
 	public static String getConcreteString(int triggerIndex, int index, int address, String currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteString(triggerIndex, index, address, currentValue);
+			return getState().getConcreteString(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -863,7 +955,7 @@ public class VM {
 	public static boolean[] getConcreteBooleanArray(int triggerIndex, int index, int address, boolean[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteBooleanArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteBooleanArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -887,7 +979,7 @@ public class VM {
 	public static byte[] getConcreteByteArray(int triggerIndex, int index, int address, byte[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteByteArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteByteArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -911,7 +1003,7 @@ public class VM {
 	public static short[] getConcreteShortArray(int triggerIndex, int index, int address, short[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteShortArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteShortArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -935,7 +1027,7 @@ public class VM {
 	public static char[] getConcreteCharArray(int triggerIndex, int index, int address, char[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteCharArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteCharArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -959,7 +1051,7 @@ public class VM {
 	public static int[] getConcreteIntArray(int triggerIndex, int index, int address, int[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteIntArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteIntArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -983,7 +1075,7 @@ public class VM {
 	public static long[] getConcreteLongArray(int triggerIndex, int index, int address, long[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteLongArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteLongArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1007,7 +1099,7 @@ public class VM {
 	public static float[] getConcreteFloatArray(int triggerIndex, int index, int address, float[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteFloatArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteFloatArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1031,7 +1123,7 @@ public class VM {
 	public static double[] getConcreteDoubleArray(int triggerIndex, int index, int address, double[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteDoubleArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteDoubleArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1055,7 +1147,7 @@ public class VM {
 	public static String[] getConcreteStringArray(int triggerIndex, int index, int address, String[] currentValue)
 			throws COASTALException {
 		try {
-			return state.getConcreteStringArray(triggerIndex, index, address, currentValue);
+			return getState().getConcreteStringArray(triggerIndex, index, address, currentValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1076,7 +1168,7 @@ public class VM {
 	 */
 	public static void triggerMethod(int methodNumber, int triggerIndex, boolean isStatic) throws COASTALException {
 		try {
-			state.triggerMethod(methodNumber, triggerIndex, isStatic);
+			getState().triggerMethod(methodNumber, triggerIndex, isStatic);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1097,7 +1189,7 @@ public class VM {
 	 */
 	public static void startMethod(int methodNumber, String methodName, int argCount) throws COASTALException {
 		try {
-			state.startMethod(methodNumber, methodName, argCount);
+			getState().startMethod(methodNumber, methodName, argCount);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1116,7 +1208,7 @@ public class VM {
 	 */
 	public static void returnValue(boolean returnValue) throws COASTALException {
 		try {
-			state.returnValue(returnValue);
+			getState().returnValue(returnValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1135,7 +1227,7 @@ public class VM {
 	 */
 	public static void returnValue(char returnValue) throws COASTALException {
 		try {
-			state.returnValue(returnValue);
+			getState().returnValue(returnValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1154,7 +1246,7 @@ public class VM {
 	 */
 	public static void returnValue(double returnValue) throws COASTALException {
 		try {
-			state.returnValue(returnValue);
+			getState().returnValue(returnValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1173,7 +1265,7 @@ public class VM {
 	 */
 	public static void returnValue(float returnValue) throws COASTALException {
 		try {
-			state.returnValue(returnValue);
+			getState().returnValue(returnValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1192,7 +1284,7 @@ public class VM {
 	 */
 	public static void returnValue(int returnValue) throws COASTALException {
 		try {
-			state.returnValue(returnValue);
+			getState().returnValue(returnValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1211,7 +1303,7 @@ public class VM {
 	 */
 	public static void returnValue(long returnValue) throws COASTALException {
 		try {
-			state.returnValue(returnValue);
+			getState().returnValue(returnValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1230,7 +1322,7 @@ public class VM {
 	 */
 	public static void returnValue(short returnValue) throws COASTALException {
 		try {
-			state.returnValue(returnValue);
+			getState().returnValue(returnValue);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1257,7 +1349,7 @@ public class VM {
 	 */
 	public static void linenumber(int instr, int line, String filename) throws COASTALException {
 		try {
-			state.linenumber(instr, line, filename);
+			getState().linenumber(instr, line, filename);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1277,7 +1369,7 @@ public class VM {
 	 */
 	public static void label(int instr, String label) throws COASTALException {
 		try {
-			state.label(instr, label);
+			getState().label(instr, label);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1297,7 +1389,7 @@ public class VM {
 	 */
 	public static void insn(int instr, int opcode) throws COASTALException {
 		try {
-			state.insn(instr, opcode);
+			getState().insn(instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1318,7 +1410,7 @@ public class VM {
 	 */
 	public static void intInsn(int instr, int opcode, int operand) throws COASTALException {
 		try {
-			state.intInsn(instr, opcode, operand);
+			getState().intInsn(instr, opcode, operand);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1339,7 +1431,7 @@ public class VM {
 	 */
 	public static void varInsn(int instr, int opcode, int var) throws COASTALException {
 		try {
-			state.varInsn(instr, opcode, var);
+			getState().varInsn(instr, opcode, var);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1348,19 +1440,36 @@ public class VM {
 	}
 
 	/**
-	 * TODO
+	 * Handle an {@code IADD} instruction.
 	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void iadd(int instr) throws COASTALException {
+		try {
+			getState().iadd(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LADD} instruction.
 	 *
 	 * @param instr
-	 * @param opcode
-	 * @param type
+	 *              the number of the instruction
 	 * @throws COASTALException
 	 *                          if any exception occurs during the execution of the
 	 *                          call
 	 */
-	public static void typeInsn(int instr, int opcode, String type) throws COASTALException {
+	public static void ladd(int instr) throws COASTALException {
 		try {
-			state.typeInsn(instr, opcode, type);
+			getState().ladd(instr);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1369,22 +1478,55 @@ public class VM {
 	}
 
 	/**
-	 * TODO
+	 * Handle an {@code FADD} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void fadd(int instr) throws COASTALException {
+		try {
+			getState().fadd(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code DADD} instruction.
 	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void dadd(int instr) throws COASTALException {
+		try {
+			getState().dadd(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code ISUB} instruction.
 	 *
 	 * @param instr
-	 * @param opcode
-	 * @param owner
-	 * @param name
-	 * @param descriptor
+	 *              the number of the instruction
 	 * @throws COASTALException
 	 *                          if any exception occurs during the execution of the
 	 *                          call
 	 */
-	public static void fieldInsn(int instr, int opcode, String owner, String name, String descriptor)
-			throws COASTALException {
+	public static void isub(int instr) throws COASTALException {
 		try {
-			state.fieldInsn(instr, opcode, owner, name, descriptor);
+			getState().isub(instr);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1393,22 +1535,743 @@ public class VM {
 	}
 
 	/**
-	 * TODO
+	 * Handle an {@code LSUB} instruction.
 	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lsub(int instr) throws COASTALException {
+		try {
+			getState().lsub(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code IMUL} instruction.
 	 *
 	 * @param instr
-	 * @param opcode
-	 * @param owner
-	 * @param name
-	 * @param descriptor
+	 *              the number of the instruction
 	 * @throws COASTALException
 	 *                          if any exception occurs during the execution of the
 	 *                          call
 	 */
-	public static void methodInsn(int instr, int opcode, String owner, String name, String descriptor)
-			throws COASTALException {
+	public static void imul(int instr) throws COASTALException {
+		try {
+			getState().imul(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LMUL} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lmul(int instr) throws COASTALException {
+		try {
+			getState().lmul(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code FMUL} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void fmul(int instr) throws COASTALException {
+		try {
+			getState().fmul(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code DMUL} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void dmul(int instr) throws COASTALException {
+		try {
+			getState().dmul(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code IAND} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void iand(int instr) throws COASTALException {
+		try {
+			getState().iand(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LAND} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void land(int instr) throws COASTALException {
+		try {
+			getState().land(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code IOR} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void ior(int instr) throws COASTALException {
+		try {
+			getState().ior(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LOR} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lor(int instr) throws COASTALException {
+		try {
+			getState().lor(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code IXOR} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void ixor(int instr) throws COASTALException {
+		try {
+			getState().ixor(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LXOR} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lxor(int instr) throws COASTALException {
+		try {
+			getState().lxor(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code ISHL} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void ishl(int instr) throws COASTALException {
+		try {
+			getState().ishl(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LSHL} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lshl(int instr) throws COASTALException {
+		try {
+			getState().lshl(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code ISHR} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void ishr(int instr) throws COASTALException {
+		try {
+			getState().ishr(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LSHR} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lshr(int instr) throws COASTALException {
+		try {
+			getState().lshr(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code IUSHR} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void iushr(int instr) throws COASTALException {
+		try {
+			getState().iushr(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LUSHR} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lushr(int instr) throws COASTALException {
+		try {
+			getState().lushr(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code POP} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void pop(int instr) throws COASTALException {
+		try {
+			getState().pop(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code DUP} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void dup(int instr) throws COASTALException {
+		try {
+			getState().dup(instr);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code ILOAD} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void iload(int instr, int var) throws COASTALException {
+		try {
+			getState().iload(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LLOAD} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lload(int instr, int var) throws COASTALException {
+		try {
+			getState().lload(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code FLOAD} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void fload(int instr, int var) throws COASTALException {
+		try {
+			getState().fload(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code DLOAD} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void dload(int instr, int var) throws COASTALException {
+		try {
+			getState().dload(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code ALOAD} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void aload(int instr, int var) throws COASTALException {
+		try {
+			getState().aload(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code ISTORE} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void istore(int instr, int var) throws COASTALException {
+		try {
+			getState().istore(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code LSTORE} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void lstore(int instr, int var) throws COASTALException {
+		try {
+			getState().lstore(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code FSTORE} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void fstore(int instr, int var) throws COASTALException {
+		try {
+			getState().fstore(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code DSTORE} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void dstore(int instr, int var) throws COASTALException {
+		try {
+			getState().dstore(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle an {@code ASTORE} instruction.
+	 *
+	 * @param instr
+	 *              the number of the instruction
+	 * @param var
+	 *              the identifier of the local variable
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void astore(int instr, int var) throws COASTALException {
+		try {
+			getState().astore(instr, var);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * TODO
+	 *
+	 *
+	 * @param instr
+	 * @param opcode
+	 * @param type
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void typeInsn(int instr, int opcode, String type) throws COASTALException {
+		try {
+			getState().typeInsn(instr, opcode, type);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * TODO
+	 *
+	 *
+	 * @param instr
+	 * @param opcode
+	 * @param owner
+	 * @param name
+	 * @param descriptor
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void fieldInsn(int instr, int opcode, String owner, String name, String descriptor)
+			throws COASTALException {
+		try {
+			getState().fieldInsn(instr, opcode, owner, name, descriptor);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * TODO
+	 *
+	 *
+	 * @param instr
+	 * @param opcode
+	 * @param owner
+	 * @param name
+	 * @param descriptor
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void methodInsn(int instr, int opcode, String owner, String name, String descriptor)
+			throws COASTALException {
+		try {
+			getState().methodInsn(instr, opcode, owner, name, descriptor);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle the invocation of a method that has been elided because it can never
+	 * touch symbolic data.
+	 *
+	 * @param instr
+	 *                   the number of the instruction
+	 * @param opcode
+	 *                   the instruction opcode
+	 * @param owner
+	 *                   the internal name of the method's owner class
+	 * @param name
+	 *                   the name of the method
+	 * @param descriptor
+	 *                   the type descriptor of the method
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void concreteInvoke(int instr, int opcode, String owner, String name, String descriptor)
+			throws COASTALException {
+		try {
+			getState().concreteInvoke(instr, opcode, owner, name, descriptor);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle the result of a method that has been elided.
+	 *
+	 * @param value
+	 *              the concrete result of the method
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void concreteReturn(int value) throws COASTALException {
+		try {
+			getState().concreteReturn(value);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle the result of a method that has been elided.
+	 *
+	 * @param value
+	 *              the concrete result of the method
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void concreteReturn(long value) throws COASTALException {
+		try {
+			getState().concreteReturn(value);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle the result of a method that has been elided.
+	 *
+	 * @param value
+	 *              the concrete result of the method
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void concreteReturn(float value) throws COASTALException {
+		try {
+			getState().concreteReturn(value);
+		} catch (ControlException x) {
+			throw x;
+		} catch (Throwable x) {
+			throw new ErrorException(x);
+		}
+	}
+
+	/**
+	 * Handle the result of a method that has been elided.
+	 *
+	 * @param value
+	 *              the concrete result of the method
+	 * @throws COASTALException
+	 *                          if any exception occurs during the execution of the
+	 *                          call
+	 */
+	public static void concreteReturn(double value) throws COASTALException {
 		try {
-			state.methodInsn(instr, opcode, owner, name, descriptor);
+			getState().concreteReturn(value);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1428,7 +2291,7 @@ public class VM {
 	 */
 	public static void invokeDynamicInsn(int instr, int opcode) throws COASTALException {
 		try {
-			state.invokeDynamicInsn(instr, opcode);
+			getState().invokeDynamicInsn(instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1448,7 +2311,7 @@ public class VM {
 	 */
 	public static void jumpInsn(int instr, int opcode) throws COASTALException {
 		try {
-			state.jumpInsn(instr, opcode);
+			getState().jumpInsn(instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1469,7 +2332,7 @@ public class VM {
 	 */
 	public static void jumpInsn(int value, int instr, int opcode) throws COASTALException {
 		try {
-			state.jumpInsn(value, instr, opcode);
+			getState().jumpInsn(value, instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1490,7 +2353,7 @@ public class VM {
 	 */
 	public static void jumpInsn(Object value, int instr, int opcode) throws COASTALException {
 		try {
-			state.jumpInsn(value, instr, opcode);
+			getState().jumpInsn(value, instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1512,7 +2375,7 @@ public class VM {
 	 */
 	public static void jumpInsn(int value1, int value2, int instr, int opcode) throws COASTALException {
 		try {
-			state.jumpInsn(value1, value2, instr, opcode);
+			getState().jumpInsn(value1, value2, instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1532,7 +2395,7 @@ public class VM {
 	 */
 	public static void postJumpInsn(int instr, int opcode) throws COASTALException {
 		try {
-			state.postJumpInsn(instr, opcode);
+			getState().postJumpInsn(instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1553,7 +2416,7 @@ public class VM {
 	 */
 	public static void ldcInsn(int instr, int opcode, int value) throws COASTALException {
 		try {
-			state.ldcInsn(instr, opcode, value);
+			getState().ldcInsn(instr, opcode, value);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1574,7 +2437,7 @@ public class VM {
 	 */
 	public static void ldcInsn(int instr, int opcode, long value) throws COASTALException {
 		try {
-			state.ldcInsn(instr, opcode, value);
+			getState().ldcInsn(instr, opcode, value);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1595,7 +2458,7 @@ public class VM {
 	 */
 	public static void ldcInsn(int instr, int opcode, float value) throws COASTALException {
 		try {
-			state.ldcInsn(instr, opcode, value);
+			getState().ldcInsn(instr, opcode, value);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1616,7 +2479,7 @@ public class VM {
 	 */
 	public static void ldcInsn(int instr, int opcode, double value) throws COASTALException {
 		try {
-			state.ldcInsn(instr, opcode, value);
+			getState().ldcInsn(instr, opcode, value);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1637,7 +2500,7 @@ public class VM {
 	 */
 	public static void ldcInsn(int instr, int opcode, Object value) throws COASTALException {
 		try {
-			state.ldcInsn(instr, opcode, value);
+			getState().ldcInsn(instr, opcode, value);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1658,7 +2521,7 @@ public class VM {
 	 */
 	public static void iincInsn(int instr, int var, int increment) throws COASTALException {
 		try {
-			state.iincInsn(instr, var, increment);
+			getState().iincInsn(instr, var, increment);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1678,7 +2541,7 @@ public class VM {
 	 */
 	public static void tableSwitchInsn(int instr, int opcode) throws COASTALException {
 		try {
-			state.tableSwitchInsn(instr, opcode);
+			getState().tableSwitchInsn(instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1699,7 +2562,7 @@ public class VM {
 	 */
 	public static void tableCaseInsn(int min, int max, int value) throws COASTALException {
 		try {
-			state.tableCaseInsn(min, max, value);
+			getState().tableCaseInsn(min, max, value);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1719,7 +2582,7 @@ public class VM {
 	 */
 	public static void lookupSwitchInsn(int instr, int opcode) throws COASTALException {
 		try {
-			state.lookupSwitchInsn(instr, opcode);
+			getState().lookupSwitchInsn(instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1739,7 +2602,7 @@ public class VM {
 	 */
 	public static void lookupCaseInsn(int id, int choice) throws COASTALException {
 		try {
-			state.lookupCaseInsn(id, choice);
+			getState().lookupCaseInsn(id, choice);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1759,7 +2622,7 @@ public class VM {
 	 */
 	public static void multiANewArrayInsn(int instr, int opcode) throws COASTALException {
 		try {
-			state.multiANewArrayInsn(instr, opcode);
+			getState().multiANewArrayInsn(instr, opcode);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1783,7 +2646,7 @@ public class VM {
 	 */
 	public static void noException() throws COASTALException {
 		try {
-			state.noException();
+			getState().noException();
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1802,7 +2665,7 @@ public class VM {
 	 */
 	public static void startCatch(int instr) throws COASTALException {
 		try {
-			state.startCatch(instr);
+			getState().startCatch(instr);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1826,7 +2689,7 @@ public class VM {
 	 */
 	public static void stop() throws COASTALException {
 		try {
-			state.stop();
+			getState().stop();
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1845,7 +2708,7 @@ public class VM {
 	 */
 	public static void stop(String message) throws COASTALException {
 		try {
-			state.stop(message);
+			getState().stop(message);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1864,7 +2727,7 @@ public class VM {
 	 */
 	public static void mark(int marker) throws COASTALException {
 		try {
-			state.mark(marker);
+			getState().mark(marker);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1883,7 +2746,7 @@ public class VM {
 	 */
 	public static void mark(String marker) throws COASTALException {
 		try {
-			state.mark(marker);
+			getState().mark(marker);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1902,7 +2765,7 @@ public class VM {
 	 */
 	public static void printPC(String label) throws COASTALException {
 		try {
-			state.printPC(label);
+			getState().printPC(label);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1919,7 +2782,7 @@ public class VM {
 	 */
 	public static void printPC() throws COASTALException {
 		try {
-			state.printPC();
+			getState().printPC();
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1944,7 +2807,7 @@ public class VM {
 	 */
 	public static void loadClasses(String descriptor) throws COASTALException {
 		try {
-			state.loadClasses(descriptor);
+			getState().loadClasses(descriptor);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -1969,7 +2832,7 @@ public class VM {
 	 */
 	public static void systemExit(int status) throws COASTALException {
 		try {
-			state.systemExit(status);
+			getState().systemExit(status);
 		} catch (ControlException x) {
 			throw x;
 		} catch (Throwable x) {
@@ -0,0 +1,275 @@
+package za.ac.sun.cs.coastal.symbolic;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A concurrent set of inputs that have been seen before. Instead of the inputs
+ * themselves (or their string representations), the set stores a 128-bit
+ * fingerprint of the variable values of each input. The payload of an input
+ * (such as its priority) is not part of the fingerprint, so that the same
+ * variable values with a different priority count as the same input.
+ *
+ * The fingerprints are kept in open-addressed tables of {@code long}s. The
+ * tables are split into stripes, each with its own lock, so that threads that
+ * add inputs at the same time seldom wait for one another.
+ *
+ * Optionally, the set can be replaced by a Bloom filter with a fixed number of
+ * bits. The filter uses much less memory and never blocks, but with a small
+ * probability it reports that a new input has been seen before. All the bits
+ * of an input lie in the same 64-bit word (a "blocked" Bloom filter), so that
+ * they are set with a single compare-and-set, and two threads that add the same
+ * input at the same time cannot both see it as new.
+ */
+public class VisitedInputs {
+
+	/**
+	 * Number of stripes. Must be a power of two.
+	 */
+	private static final int STRIPE_COUNT = 64;
+
+	/**
+	 * Number of bits of the Bloom filter that are set for each input.
+	 */
+	private static final int BLOOM_HASHES = 4;
+
+	/**
+	 * Seeds for the two halves of the fingerprint.
+	 */
+	private static final long SEED_HI = 0x9e3779b97f4a7c15L;
+
+	private static final long SEED_LO = 0xc2b2ae3d27d4eb4fL;
+
+	/**
+	 * The exact tables, or {@code null} if the Bloom filter is used.
+	 */
+	private final Stripe[] stripes;
+
+	/**
+	 * The bits of the Bloom filter, or {@code null} if the exact tables are used.
+	 */
+	private final AtomicLongArray bloom;
+
+	/**
+	 * The number of words in the Bloom filter.
+	 */
+	private final int bloomWords;
+
+	/**
+	 * Number of distinct inputs added to the set.
+	 */
+	private final AtomicLong size = new AtomicLong(0);
+
+	/**
+	 * Construct a new, empty set of visited inputs.
+	 *
+	 * @param bloomBits
+	 *                  the number of bits of the Bloom filter, or 0 to store
+	 *                  fingerprints exactly
+	 */
+	public VisitedInputs(long bloomBits) {
+		if (bloomBits > 0) {
+			bloomWords = (int) Math.min((bloomBits + 63) / 64, Integer.MAX_VALUE);
+			this.bloom = new AtomicLongArray(bloomWords);
+			this.stripes = null;
+		} else {
+			this.bloom = null;
+			this.bloomWords = 0;
+			this.stripes = new Stripe[STRIPE_COUNT];
+			for (int i = 0; i < STRIPE_COUNT; i++) {
+				stripes[i] = new Stripe();
+			}
+		}
+	}
+
+	/**
+	 * Add an input to the set.
+	 *
+	 * @param input
+	 *              the input to add
+	 * @return {@code true} if and only if the input has not been seen before
+	 */
+	public boolean add(Input input) {
+		long hi = SEED_HI;
+		long lo = SEED_LO;
+		for (String name : input.getNames()) {
+			Object value = input.get(name);
+			hi += mix(hashValue(hashString(SEED_HI ^ 'N', name), value));
+			lo += mix(hashValue(hashString(SEED_LO ^ 'N', name), value));
+		}
+		for (Integer index : input.getIndices()) {
+			Object value = input.get(index);
+			hi += mix(hashValue(combine(SEED_HI ^ 'V', index), value));
+			lo += mix(hashValue(combine(SEED_LO ^ 'V', index), value));
+		}
+		hi = mix(hi);
+		lo = mix(lo);
+		boolean added = (bloom == null) ? addExact(hi, lo) : addBloom(hi, lo);
+		if (added) {
+			size.incrementAndGet();
+		}
+		return added;
+	}
+
+	/**
+	 * Return the number of distinct inputs added to the set.
+	 *
+	 * @return the number of inputs
+	 */
+	public long size() {
+		return size.get();
+	}
+
+	// ======================================================================
+	//
+	// EXACT TABLES
+	//
+	// ======================================================================
+
+	/**
+	 * An open-addressed table of fingerprints. Each slot occupies two consecutive
+	 * {@code long}s; a slot where both are 0 is empty. (The fingerprint (0, 0) is
+	 * mapped to (0, 1) before it is stored.)
+	 */
+	static class Stripe {
+
+		private long[] table = new long[2 * 64];
+
+		private int count = 0;
+
+		synchronized boolean add(long hi, long lo) {
+			if (2 * (count + 1) > table.length / 2) {
+				grow();
+			}
+			if (insert(table, hi, lo)) {
+				count++;
+				return true;
+			}
+			return false;
+		}
+
+		private void grow() {
+			long[] newTable = new long[2 * table.length];
+			for (int i = 0; i < table.length; i += 2) {
+				if ((table[i] != 0) || (table[i + 1] != 0)) {
+					insert(newTable, table[i], table[i + 1]);
+				}
+			}
+			table = newTable;
+		}
+
+		private static boolean insert(long[] table, long hi, long lo) {
+			int mask = (table.length >>> 1) - 1;
+			int slot = (int) (lo ^ (lo >>> 32)) & mask;
+			while (true) {
+				int i = slot << 1;
+				if ((table[i] == 0) && (table[i + 1] == 0)) {
+					table[i] = hi;
+					table[i + 1] = lo;
+					return true;
+				}
+				if ((table[i] == hi) && (table[i + 1] == lo)) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+		}
+
+	}
+
+	private boolean addExact(long hi, long lo) {
+		if ((hi == 0) && (lo == 0)) {
+			lo = 1;
+		}
+		return stripes[(int) (hi >>> 58) & (STRIPE_COUNT - 1)].add(hi, lo);
+	}
+
+	// ======================================================================
+	//
+	// BLOOM FILTER
+	//
+	// ======================================================================
+
+	private boolean addBloom(long hi, long lo) {
+		int word = (int) ((hi & Long.MAX_VALUE) % bloomWords);
+		long mask = 0;
+		for (int i = 0; i < BLOOM_HASHES; i++) {
+			mask |= 1L << ((lo >>> (6 * i)) & 63);
+		}
+		long old = bloom.get(word);
+		while ((old & mask) != mask) {
+			if (bloom.compareAndSet(word, old, old | mask)) {
+				return true;
+			}
+			old = bloom.get(word);
+		}
+		return false;
+	}
+
+	// ======================================================================
+	//
+	// HASHING
+	//
+	// ======================================================================
+
+	/**
+	 * Scramble the bits of a 64-bit value (the finalizer of SplitMix64).
+	 */
+	private static long mix(long h) {
+		h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+		h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+		return h ^ (h >>> 31);
+	}
+
+	private static long combine(long h, long value) {
+		return mix(h ^ value) + 0x9e3779b97f4a7c15L;
+	}
+
+	private static long hashString(long h, String s) {
+		int n = s.length();
+		h = combine(h, n);
+		for (int i = 0; i < n; i++) {
+			h = combine(h, s.charAt(i));
+		}
+		return h;
+	}
+
+	/**
+	 * Hash a variable value. The type of the value is part of the hash, so that,
+	 * for example, the integer 1 and the character with code 1 are different.
+	 */
+	private static long hashValue(long h, Object value) {
+		if (value == null) {
+			return combine(h, 0);
+		} else if (value instanceof Long) {
+			return combine(combine(h, 'J'), (Long) value);
+		} else if (value instanceof Integer) {
+			return combine(combine(h, 'I'), (Integer) value);
+		} else if (value instanceof Short) {
+			return combine(combine(h, 'S'), (Short) value);
+		} else if (value instanceof Byte) {
+			return combine(combine(h, 'B'), (Byte) value);
+		} else if (value instanceof Character) {
+			return combine(combine(h, 'C'), (Character) value);
+		} else if (value instanceof Boolean) {
+			return combine(combine(h, 'Z'), ((Boolean) value) ? 1 : 0);
+		} else if (value instanceof Double) {
+			return combine(combine(h, 'D'), Double.doubleToLongBits((Double) value));
+		} else if (value instanceof Float) {
+			return combine(combine(h, 'F'), Float.floatToIntBits((Float) value));
+		} else if (value instanceof String) {
+			return hashString(combine(h, 's'), (String) value);
+		} else if (value.getClass().isArray()) {
+			int n = Array.getLength(value);
+			h = combine(combine(h, '['), n);
+			for (int i = 0; i < n; i++) {
+				h = hashValue(h, Array.get(value, i));
+			}
+			return h;
+		} else {
+			return hashString(combine(h, 'L'), value.toString());
+		}
+	}
+
+}
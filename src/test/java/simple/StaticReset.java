@@ -0,0 +1,33 @@
+package simple;
+
+import java.net.HttpURLConnection;
+
+public class StaticReset {
+
+	public static void main(String[] args) {
+		int result = run(0);
+		System.out.println(result);
+	}
+
+	private static int run(int x) {
+		Counter.count++;
+		// HttpURLConnection is renamed and instrumented as ins.java.net.HttpURLConnection
+		if (HttpURLConnection.getFollowRedirects()) {
+			HttpURLConnection.setFollowRedirects(false);
+		} else {
+			Counter.count += 10;
+		}
+		if (x > Counter.count) {
+			return 1;
+		} else {
+			return 0;
+		}
+	}
+
+}
+
+class Counter {
+
+	static int count = 1;
+
+}
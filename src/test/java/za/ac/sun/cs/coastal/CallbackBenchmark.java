@@ -0,0 +1,65 @@
+package za.ac.sun.cs.coastal;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Compare the number of dives per second with generic and with
+ * opcode-specialized instrumentation callbacks. This is not a unit test; run it
+ * by hand with the test classpath:
+ *
+ * <pre>
+ * java za.ac.sun.cs.coastal.CallbackBenchmark [rounds] [config ...]
+ * </pre>
+ *
+ * Each configuration is run once for warm-up and then {@code rounds} times
+ * (default 5) in each mode, alternating between the modes. The default
+ * configuration is {@code simple/Choice04.properties}.
+ */
+public class CallbackBenchmark {
+
+	private static final String SETTING = "coastal.settings.specialize-callbacks";
+
+	public static void main(String[] args) {
+		final Logger log = LogManager.getLogger("COASTAL-BENCHMARK");
+		int rounds = (args.length > 0) ? Integer.parseInt(args[0]) : 5;
+		String[] configs = (args.length > 1) ? new String[args.length - 1]
+				: new String[] { "simple/Choice04.properties" };
+		if (args.length > 1) {
+			System.arraycopy(args, 1, configs, 0, configs.length);
+		}
+		for (String config : configs) {
+			run(log, config, false);
+			run(log, config, true);
+			long[] dives = new long[2];
+			long[] time = new long[2];
+			for (int i = 0; i < rounds; i++) {
+				for (int mode = 0; mode < 2; mode++) {
+					long t0 = System.nanoTime();
+					dives[mode] += run(log, config, mode == 1);
+					time[mode] += System.nanoTime() - t0;
+				}
+			}
+			if (dives[0] <= rounds) {
+				System.out.println(config + ": only one dive per run, the timings measure start-up only"
+						+ " (check that the solver is available)");
+			}
+			double generic = dives[0] * 1e9 / time[0];
+			double specialized = dives[1] * 1e9 / time[1];
+			System.out.println(String.format("%s: generic %.1f dives/s, specialized %.1f dives/s (%+.1f%%)", config,
+					generic, specialized, 100 * (specialized - generic) / generic));
+		}
+	}
+
+	private static long run(Logger log, String config, boolean specialize) {
+		Configuration cfg = Configuration.load(log, new String[] { "Test01.properties", config },
+				SETTING + " = " + specialize);
+		if (cfg == null) {
+			throw new IllegalArgumentException("cannot load configuration " + config);
+		}
+		COASTAL coastal = new COASTAL(log, cfg);
+		coastal.start(false);
+		return coastal.getReporter().getLong("Divers.count");
+	}
+
+}
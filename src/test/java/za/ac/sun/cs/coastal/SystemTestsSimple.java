@@ -1,11 +1,26 @@
 package za.ac.sun.cs.coastal;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.Test;
 
+import za.ac.sun.cs.coastal.pathtree.PathTree;
+import za.ac.sun.cs.coastal.pathtree.PathTreeNode;
+
 public class SystemTestsSimple extends SystemTests {
 
 	/*
@@ -90,4 +105,110 @@ public class SystemTestsSimple extends SystemTests {
 		checkPathTree(reporter, 6, 0, 1);
 	}
 
+	@Test
+	public void testChoice04SpecializedCallbacks() {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		List<List<String>> pathConditions = new ArrayList<>();
+		for (boolean specialize : new boolean[] { false, true }) {
+			Configuration config = Configuration.load(log, new String[] { "Test01.properties", "simple/Choice04.properties" },
+					"coastal.settings.specialize-callbacks = " + specialize);
+			assertNotNull(config);
+			COASTAL coastal = new COASTAL(log, config);
+			coastal.start(false);
+			Reporter reporter = coastal.getReporter();
+			checkDivers(reporter, 1, 5);
+			checkPathTree(reporter, 6, 0, 1);
+			pathConditions.add(getPathConditions(coastal.getPathTree()));
+		}
+		assertEquals(pathConditions.get(0), pathConditions.get(1));
+	}
+
+	private static List<String> getPathConditions(PathTree pathTree) {
+		List<String> pathConditions = new ArrayList<>();
+		Deque<PathTreeNode> pending = new ArrayDeque<>();
+		if (pathTree.getRoot() != null) {
+			pending.push(pathTree.getRoot());
+		}
+		while (!pending.isEmpty()) {
+			PathTreeNode node = pending.pop();
+			for (int i = 0; i < node.getChildCount(); i++) {
+				PathTreeNode child = node.getChild(i);
+				if (child != null) {
+					pathConditions.add(node.getPathForChild(i).getPathCondition().toString());
+					pending.push(child);
+				}
+			}
+		}
+		Collections.sort(pathConditions);
+		return pathConditions;
+	}
+
+	@Test
+	public void testStaticReset() {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		Configuration config = Configuration.load(log, new String[] { "Test01.properties", "simple/StaticReset.properties" });
+		assertNotNull(config);
+		COASTAL coastal = new COASTAL(log, config);
+		coastal.start(false);
+		Reporter reporter = coastal.getReporter();
+		checkDivers(reporter, 1, 2);
+		checkSurfers(reporter, 0, 0);
+		checkDFStrategy(reporter, 1);
+		checkPathTree(reporter, 2, 0, 0);
+		assertEquals(1, reporter.getLong("Instrumentation.reused-loader-count"));
+	}
+
+	@Test
+	public void testChoice04AgentWithSurfer() {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		Configuration config = Configuration.load(log, new String[] { "Test01.properties", "simple/Choice04.properties" },
+				"coastal.settings.agent = true\n" //
+						+ "coastal.divers.threads = 0\n" //
+						+ "coastal.surfers.threads = 1\n" //
+						+ "coastal.strategies = S\n" //
+						+ "coastal.strategies.S = za.ac.sun.cs.coastal.strategy.tracebased.RandomTestingFactory\n" //
+						+ "coastal.strategies.S.max-models = 20\n" //
+						+ "coastal.strategies.S.seed = 1");
+		assertNotNull(config);
+		COASTAL coastal = new COASTAL(log, config);
+		assertFalse(coastal.getClassManager().isAgentMode());
+		coastal.start(false);
+		Reporter reporter = coastal.getReporter();
+		checkDivers(reporter, 0, 0);
+		checkSurfers(reporter, 1, 21);
+		checkRandomTestingStrategy(reporter, 1);
+		checkPathTree(reporter, 20, 16, 0);
+	}
+
+	@Test
+	public void testChoice01DiskCache() throws IOException {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		File cacheDirectory = Files.createTempDirectory("coastal-cache").toFile();
+		try {
+			String extra = "coastal.settings.instrumentation-cache = " + cacheDirectory.getPath();
+			long[] misses = new long[2];
+			long[] hits = new long[2];
+			for (int run = 0; run < 2; run++) {
+				Configuration config = Configuration.load(log,
+						new String[] { "Test01.properties", "simple/Choice01.properties" }, extra);
+				assertNotNull(config);
+				COASTAL coastal = new COASTAL(log, config);
+				coastal.start(false);
+				Reporter reporter = coastal.getReporter();
+				checkDivers(reporter, 1, 2);
+				misses[run] = reporter.getLong("Instrumentation.disk-cache-miss-count");
+				hits[run] = reporter.getLong("Instrumentation.disk-cache-hit-count");
+			}
+			assertEquals(0, hits[0]);
+			assertTrue(misses[0] > 0);
+			assertEquals(misses[0], hits[1]);
+			assertEquals(0, misses[1]);
+		} finally {
+			for (File file : cacheDirectory.listFiles()) {
+				file.delete();
+			}
+			cacheDirectory.delete();
+		}
+	}
+
 }
@@ -0,0 +1,148 @@
+package za.ac.sun.cs.coastal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TargetMatcherTest {
+
+	@Test
+	public void testPrefix() {
+		TargetMatcher matcher = new TargetMatcher();
+		matcher.addPrefix("simple.");
+		assertTrue(matcher.matches("simple.Choice01"));
+		assertTrue(matcher.matches("simple.sub.Choice01"));
+		assertTrue(matcher.matches("simple.Choice01$Inner"));
+		assertFalse(matcher.matches("simple"));
+		assertFalse(matcher.matches("simpler.Choice01"));
+		assertFalse(matcher.matches("other.simple.Choice01"));
+		assertFalse(matcher.matches("Choice01"));
+	}
+
+	@Test
+	public void testFullName() {
+		TargetMatcher matcher = new TargetMatcher();
+		matcher.addFullName("simple.Choice01");
+		assertTrue(matcher.matches("simple.Choice01"));
+		assertFalse(matcher.matches("simple.Choice010"));
+		assertFalse(matcher.matches("simple.Choice0"));
+		assertFalse(matcher.matches("simple.Choice01$Inner"));
+		assertFalse(matcher.matches("simple.Choice02"));
+	}
+
+	@Test
+	public void testNested() {
+		// This is how COASTAL adds a class given by its full name
+		TargetMatcher matcher = new TargetMatcher();
+		matcher.addFullName("simple.Choice01");
+		matcher.addPrefix("simple.Choice01$");
+		assertTrue(matcher.matches("simple.Choice01"));
+		assertTrue(matcher.matches("simple.Choice01$Inner"));
+		assertTrue(matcher.matches("simple.Choice01$1"));
+		assertTrue(matcher.matches("simple/Choice01$Inner$Deeper"));
+		assertFalse(matcher.matches("simple.Choice010"));
+		assertFalse(matcher.matches("simple.Choice01Inner"));
+	}
+
+	@Test
+	public void testPackageless() {
+		TargetMatcher matcher = new TargetMatcher();
+		matcher.addPackageless();
+		assertTrue(matcher.matches("Choice01"));
+		assertTrue(matcher.matches("Choice01$Inner"));
+		assertFalse(matcher.matches("simple.Choice01"));
+		assertFalse(matcher.matches("simple/Choice01"));
+		matcher.addPrefix("sim");
+		assertTrue(matcher.matches("simple.Choice01"));
+		assertTrue(matcher.matches("Choice01"));
+		assertFalse(matcher.matches("other.Choice01"));
+	}
+
+	@Test
+	public void testSlashes() {
+		TargetMatcher matcher = new TargetMatcher();
+		matcher.addPrefix("simple.sub.");
+		matcher.addFullName("other.Straight01");
+		assertTrue(matcher.matches("simple/sub/Choice01"));
+		assertTrue(matcher.matches("other/Straight01"));
+		assertFalse(matcher.matches("simple/Choice01"));
+		assertFalse(matcher.matches("other/Straight01$Inner"));
+		// Decisions for one form must not leak into the other
+		assertTrue(matcher.matches("simple.sub.Choice01"));
+		assertFalse(matcher.matches("simple/subChoice01"));
+	}
+
+	@Test
+	public void testEverything() {
+		TargetMatcher matcher = new TargetMatcher();
+		assertFalse(matcher.matches("simple.Choice01"));
+		matcher.addEverything();
+		assertTrue(matcher.matches("simple.Choice01"));
+		assertTrue(matcher.matches("Choice01"));
+	}
+
+	@Test
+	public void testLateAddition() {
+		TargetMatcher matcher = new TargetMatcher();
+		matcher.addPrefix("simple.");
+		assertFalse(matcher.matches("other.Choice01"));
+		matcher.addFullName("other.Choice01");
+		assertTrue(matcher.matches("other.Choice01"));
+	}
+
+	/**
+	 * Compare the matcher with a straightforward scan of the prefixes and full
+	 * names on random class names.
+	 */
+	@Test
+	public void testRandomNames() {
+		final String alphabet = "ab.$/";
+		Random random = new Random(20190401);
+		for (int round = 0; round < 200; round++) {
+			TargetMatcher matcher = new TargetMatcher();
+			List<String> prefixes = new ArrayList<>();
+			List<String> fullNames = new ArrayList<>();
+			boolean packageless = random.nextInt(4) == 0;
+			if (packageless) {
+				matcher.addPackageless();
+			}
+			for (int i = random.nextInt(5); i > 0; i--) {
+				String prefix = randomName(random, alphabet, 1 + random.nextInt(5)).replace('/', '.');
+				prefixes.add(prefix);
+				matcher.addPrefix(prefix);
+			}
+			for (int i = random.nextInt(5); i > 0; i--) {
+				String fullName = randomName(random, alphabet, 1 + random.nextInt(6)).replace('/', '.');
+				fullNames.add(fullName);
+				matcher.addFullName(fullName);
+			}
+			for (int i = 0; i < 200; i++) {
+				String name = randomName(random, alphabet, 1 + random.nextInt(8));
+				String dotted = name.replace('/', '.');
+				boolean expected = packageless && (dotted.indexOf('.') == -1);
+				for (String prefix : prefixes) {
+					expected |= dotted.startsWith(prefix);
+				}
+				for (String fullName : fullNames) {
+					expected |= dotted.equals(fullName);
+				}
+				assertEquals(name, expected, matcher.matches(name));
+			}
+		}
+	}
+
+	private static String randomName(Random random, String alphabet, int length) {
+		StringBuilder b = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			b.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return b.toString();
+	}
+
+}
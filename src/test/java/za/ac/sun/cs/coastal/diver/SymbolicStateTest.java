@@ -0,0 +1,90 @@
+package za.ac.sun.cs.coastal.diver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.Opcodes;
+
+import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.Configuration;
+import za.ac.sun.cs.coastal.solver.IntegerConstant;
+import za.ac.sun.cs.coastal.solver.RealConstant;
+import za.ac.sun.cs.coastal.symbolic.Input;
+
+public class SymbolicStateTest {
+
+	private SymbolicState state;
+
+	@Before
+	public void setUp() {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		Configuration config = Configuration.load(log,
+				new String[] { "Test01.properties", "simple/Choice01.properties" });
+		assertNotNull(config);
+		state = new SymbolicState(new COASTAL(log, config), new Input());
+		state.setTrackingMode(true);
+		state.startMethod(0, "run", 0);
+	}
+
+	private int getStackSize() {
+		return state.frames.peek().size();
+	}
+
+	@Test
+	public void testConcreteIntResult() throws Exception {
+		state.push(new IntegerConstant(1, 32));
+		state.push(new IntegerConstant(2, 32));
+		state.push(new IntegerConstant(3, 32));
+		state.concreteInvoke(0, Opcodes.INVOKESTATIC, "T", "f", "(II)I");
+		assertEquals(1, getStackSize());
+		state.concreteReturn(42);
+		assertEquals(2, getStackSize());
+		assertEquals(new IntegerConstant(42, 32), state.pop().toExpression());
+		assertEquals(new IntegerConstant(1, 32), state.pop().toExpression());
+	}
+
+	@Test
+	public void testConcreteWideArguments() throws Exception {
+		state.push(new IntegerConstant(1, 64));
+		state.push(new RealConstant(2.0, 64));
+		state.push(new IntegerConstant(3, 32));
+		state.concreteInvoke(0, Opcodes.INVOKESTATIC, "T", "f", "(JDI)J");
+		assertEquals(0, getStackSize());
+		state.concreteReturn(42L);
+		assertEquals(1, getStackSize());
+		assertEquals(new IntegerConstant(42, 64), state.pop().toExpression());
+	}
+
+	@Test
+	public void testConcreteFloatingResults() throws Exception {
+		state.push(new RealConstant(1.0, 32));
+		state.concreteInvoke(0, Opcodes.INVOKESTATIC, "T", "f", "(F)F");
+		state.concreteReturn(2.0f);
+		state.concreteInvoke(0, Opcodes.INVOKESTATIC, "T", "g", "(F)D");
+		state.concreteReturn(3.0);
+		assertEquals(1, getStackSize());
+		assertEquals(new RealConstant(3.0, 64), state.pop().toExpression());
+	}
+
+	@Test
+	public void testConcreteVoidResult() throws Exception {
+		state.push(new IntegerConstant(1, 32));
+		state.concreteInvoke(0, Opcodes.INVOKESTATIC, "T", "f", "(I)V");
+		assertEquals(0, getStackSize());
+	}
+
+	@Test
+	public void testNotTracking() throws Exception {
+		state.push(new IntegerConstant(1, 32));
+		state.setTrackingMode(false);
+		state.concreteInvoke(0, Opcodes.INVOKESTATIC, "T", "f", "(I)I");
+		state.concreteReturn(42);
+		state.setTrackingMode(true);
+		assertEquals(1, getStackSize());
+	}
+
+}
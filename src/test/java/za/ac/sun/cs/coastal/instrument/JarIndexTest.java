@@ -0,0 +1,207 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JarIndexTest {
+
+	private static final int EOCD_SIGNATURE = 0x06054b50;
+
+	private static final byte[] EXTRA = { 0x34, 0x12, 0x04, 0x00, 'x', 't', 'r', 'a' };
+
+	private File directory;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("jarindex").toFile();
+	}
+
+	@After
+	public void tearDown() {
+		for (File file : directory.listFiles()) {
+			file.delete();
+		}
+		directory.delete();
+	}
+
+	@Test
+	public void testMapped() throws IOException {
+		File file = write("plain.jar", createJar());
+		JarIndex index = JarIndex.open(file);
+		assertNotNull(index);
+		assertTrue(index.isMapped());
+		checkAgainstJarFile(index, file);
+		index.close();
+	}
+
+	@Test
+	public void testZip64() throws IOException {
+		File file = write("zip64.jar", toZip64(createJar()));
+		JarIndex index = JarIndex.open(file);
+		assertNotNull(index);
+		assertFalse(index.isMapped());
+		checkAgainstJarFile(index, file);
+		index.close();
+	}
+
+	@Test
+	public void testNoEndOfCentralDirectory() throws IOException {
+		byte[] jar = createJar();
+		File file = write("truncated.jar", Arrays.copyOf(jar, findEndOfCentralDirectory(jar)));
+		assertNull(JarIndex.open(file));
+	}
+
+	@Test
+	public void testMissingFile() {
+		assertNull(JarIndex.open(new File(directory, "missing.jar")));
+	}
+
+	// ======================================================================
+	//
+	// HELPER ROUTINES
+	//
+	// ======================================================================
+
+	/**
+	 * Create a jar file with stored and deflated entries, each with an extra
+	 * field and a comment, and with a comment for the whole file.
+	 *
+	 * @return the contents of the jar file
+	 */
+	private static byte[] createJar() throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+			out.setComment("a comment for the whole jar file");
+			addEntry(out, "a/Stored.class", ZipEntry.STORED, contents(1000));
+			addEntry(out, "a/Deflated.class", ZipEntry.DEFLATED, contents(5000));
+			addEntry(out, "b/Empty.class", ZipEntry.STORED, new byte[0]);
+			addEntry(out, "b/EmptyDeflated.class", ZipEntry.DEFLATED, new byte[0]);
+			addEntry(out, "b/c/Large.class", ZipEntry.DEFLATED, contents(100000));
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void addEntry(ZipOutputStream out, String name, int method, byte[] data) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(method);
+		entry.setExtra(EXTRA);
+		entry.setComment("comment for " + name);
+		if (method == ZipEntry.STORED) {
+			CRC32 crc = new CRC32();
+			crc.update(data);
+			entry.setSize(data.length);
+			entry.setCompressedSize(data.length);
+			entry.setCrc(crc.getValue());
+		}
+		out.putNextEntry(entry);
+		out.write(data);
+		out.closeEntry();
+	}
+
+	private static byte[] contents(int size) {
+		byte[] data = new byte[size];
+		for (int i = 0; i < size; i++) {
+			data[i] = (byte) ((i * 31) ^ (i >>> 7));
+		}
+		return data;
+	}
+
+	/**
+	 * Rewrite the end of central directory record of a jar file so that it
+	 * refers to a ZIP64 end of central directory record, as it would for a jar
+	 * file with too many entries.
+	 *
+	 * @param jar
+	 *            the contents of the jar file
+	 * @return the contents of the ZIP64 jar file
+	 */
+	private static byte[] toZip64(byte[] jar) {
+		int eocd = findEndOfCentralDirectory(jar);
+		ByteBuffer in = ByteBuffer.wrap(jar).order(ByteOrder.LITTLE_ENDIAN);
+		int count = in.getShort(eocd + 10) & 0xffff;
+		long cenSize = in.getInt(eocd + 12) & 0xffffffffL;
+		long cenOffset = in.getInt(eocd + 16) & 0xffffffffL;
+		int commentLength = in.getShort(eocd + 20) & 0xffff;
+		ByteBuffer out = ByteBuffer.allocate(eocd + 56 + 20 + 22 + commentLength).order(ByteOrder.LITTLE_ENDIAN);
+		out.put(jar, 0, eocd);
+		// ZIP64 end of central directory record
+		out.putInt(0x06064b50).putLong(44).putShort((short) 45).putShort((short) 45).putInt(0).putInt(0);
+		out.putLong(count).putLong(count).putLong(cenSize).putLong(cenOffset);
+		// ZIP64 end of central directory locator
+		out.putInt(0x07064b50).putInt(0).putLong(eocd).putInt(1);
+		// End of central directory record
+		out.putInt(EOCD_SIGNATURE).putShort((short) 0).putShort((short) 0);
+		out.putShort((short) 0xffff).putShort((short) 0xffff).putInt((int) cenSize).putInt(0xffffffff);
+		out.putShort((short) commentLength).put(jar, eocd + 22, commentLength);
+		return out.array();
+	}
+
+	private static int findEndOfCentralDirectory(byte[] jar) {
+		ByteBuffer b = ByteBuffer.wrap(jar).order(ByteOrder.LITTLE_ENDIAN);
+		for (int p = jar.length - 22; p >= 0; p--) {
+			if (b.getInt(p) == EOCD_SIGNATURE) {
+				return p;
+			}
+		}
+		throw new IllegalArgumentException("no end of central directory record");
+	}
+
+	private File write(String name, byte[] contents) throws IOException {
+		File file = new File(directory, name);
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(contents);
+		}
+		return file;
+	}
+
+	private static void checkAgainstJarFile(JarIndex index, File file) throws IOException {
+		try (JarFile jarFile = new JarFile(file)) {
+			assertEquals("a comment for the whole jar file", jarFile.getComment());
+			Set<String> names = new HashSet<>();
+			for (Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements();) {
+				JarEntry entry = e.nextElement();
+				names.add(entry.getName());
+				try (InputStream in = jarFile.getInputStream(entry)) {
+					assertArrayEquals(entry.getName(), IOUtils.toByteArray(in), index.read(entry.getName()));
+				}
+			}
+			assertEquals(5, names.size());
+			assertEquals(names, index.getNames());
+			assertEquals(jarFile.size(), index.size());
+			assertNull(index.read("a/Missing.class"));
+			assertEquals(1000, index.read("a/Stored.class").length);
+			assertEquals("comment for a/Stored.class", jarFile.getEntry("a/Stored.class").getComment());
+			assertEquals(new String(EXTRA, StandardCharsets.ISO_8859_1),
+					new String(jarFile.getEntry("a/Deflated.class").getExtra(), StandardCharsets.ISO_8859_1));
+		}
+	}
+
+}
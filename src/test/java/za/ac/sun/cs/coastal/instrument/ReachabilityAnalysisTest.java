@@ -0,0 +1,156 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.IntSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.Configuration;
+
+public class ReachabilityAnalysisTest {
+
+	private static final String PREFIX = "za/ac/sun/cs/coastal/instrument/ReachabilityAnalysisTest$";
+
+	private static final String[] FIXTURES = { "Shape", "Base", "Square", "Callback", "Printable", "Unused", "Main" };
+
+	interface Shape {
+		int area();
+	}
+
+	static class Base {
+		public int area() {
+			return 1;
+		}
+	}
+
+	static class Square extends Base implements Shape {
+	}
+
+	static class Callback implements Runnable {
+		@Override
+		public void run() {
+		}
+
+		private void helper() {
+		}
+	}
+
+	static class Printable {
+		@Override
+		public String toString() {
+			return "printable";
+		}
+
+		public int other() {
+			return 0;
+		}
+	}
+
+	static class Unused {
+		static void unused() {
+		}
+	}
+
+	static class Main {
+		public static void main(String[] args) {
+			Shape shape = new Square();
+			shape.area();
+			Runnable runnable = Main::handleTarget;
+			runnable.run();
+			IntSupplier supplier = () -> 1;
+			supplier.getAsInt();
+		}
+
+		static void handleTarget() {
+		}
+
+		static void unreachable() {
+		}
+	}
+
+	private ReachabilityAnalysis analysis;
+
+	@Before
+	public void setUp() throws IOException {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		Configuration config = Configuration.load(log,
+				new String[] { "Test01.properties", "simple/Choice01.properties" });
+		assertNotNull(config);
+		analysis = new ReachabilityAnalysis(new COASTAL(log, config));
+		for (String fixture : FIXTURES) {
+			analysis.addClass(readClass(PREFIX + fixture));
+		}
+		analysis.analyze();
+	}
+
+	@Test
+	public void testInheritedImplementation() {
+		assertTrue(analysis.isReachable(PREFIX + "Shape", "area", "()I"));
+		assertTrue(analysis.isReachable(PREFIX + "Base", "area", "()I"));
+		assertTrue(analysis.isReachable(PREFIX + "Square", "<init>", "()V"));
+		assertTrue(analysis.isReachable(PREFIX + "Base", "<init>", "()V"));
+	}
+
+	@Test
+	public void testHandleRoots() throws IOException {
+		assertTrue(analysis.isReachable(PREFIX + "Main", "main", "([Ljava/lang/String;)V"));
+		assertTrue(analysis.isReachable(PREFIX + "Main", "handleTarget", "()V"));
+		assertFalse(analysis.isReachable(PREFIX + "Main", "unreachable", "()V"));
+		int lambdaCount = 0;
+		for (MethodNode mn : readClassNode(PREFIX + "Main").methods) {
+			if (mn.name.startsWith("lambda$")) {
+				assertTrue(analysis.isReachable(PREFIX + "Main", mn.name, mn.desc));
+				lambdaCount++;
+			}
+		}
+		assertEquals(1, lambdaCount);
+	}
+
+	@Test
+	public void testCallbackRoots() {
+		assertTrue(analysis.isReachable(PREFIX + "Callback", "run", "()V"));
+		assertFalse(analysis.isReachable(PREFIX + "Callback", "helper", "()V"));
+		assertFalse(analysis.isReachable(PREFIX + "Callback", "<init>", "()V"));
+		assertTrue(analysis.isReachable(PREFIX + "Printable", "toString", "()Ljava/lang/String;"));
+		assertFalse(analysis.isReachable(PREFIX + "Printable", "other", "()I"));
+	}
+
+	@Test
+	public void testUnreachable() {
+		assertFalse(analysis.isReachable(PREFIX + "Unused", "unused", "()V"));
+		assertTrue(analysis.isReachable("not/Analyzed", "anything", "()V"));
+	}
+
+	private static ClassNode readClassNode(String name) throws IOException {
+		ClassNode cn = new ClassNode();
+		new ClassReader(readClass(name)).accept(cn, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+		return cn;
+	}
+
+	private static byte[] readClass(String name) throws IOException {
+		try (InputStream in = ReachabilityAnalysisTest.class.getResourceAsStream("/" + name + ".class")) {
+			assertNotNull(in);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		}
+	}
+
+}
@@ -0,0 +1,138 @@
+package za.ac.sun.cs.coastal.instrument;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Before;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.Configuration;
+
+public class TaintAnalysisTest {
+
+	private static final String TARGET = "za/ac/sun/cs/coastal/instrument/TaintAnalysisTest$Target";
+
+	static class Target {
+
+		static int field;
+
+		static int square(int x) {
+			return x * x;
+		}
+
+		static int twice(int x) {
+			return x + x;
+		}
+
+		static int readField() {
+			return field;
+		}
+
+		static int callsReadField() {
+			return readField() + 1;
+		}
+
+		static int callsSquare() {
+			return square(3) + 1;
+		}
+
+		static int handleTarget(int x) {
+			return x + 1;
+		}
+
+		static int run(int y) {
+			IntUnaryOperator op = Target::handleTarget;
+			IntSupplier supplier = () -> 7;
+			return square(4) + twice(field) + callsSquare() + callsReadField() + op.applyAsInt(y)
+					+ supplier.getAsInt();
+		}
+
+		int instance(int y) {
+			return twice(y);
+		}
+
+	}
+
+	private TaintAnalysis analysis;
+
+	@Before
+	public void setUp() throws IOException {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		Configuration config = Configuration.load(log,
+				new String[] { "Test01.properties", "simple/Choice01.properties" });
+		assertNotNull(config);
+		analysis = new TaintAnalysis(new COASTAL(log, config));
+		analysis.addClass(readClass(TARGET));
+		analysis.analyze();
+	}
+
+	@Test
+	public void testConstantArguments() {
+		assertTrue(analysis.isElided(TARGET, "square", "(I)I"));
+		assertTrue(analysis.isElided(TARGET, "callsSquare", "()I"));
+	}
+
+	@Test
+	public void testTaintedArguments() {
+		assertFalse(analysis.isElided(TARGET, "twice", "(I)I"));
+	}
+
+	@Test
+	public void testImpureMethods() {
+		assertFalse(analysis.isElided(TARGET, "readField", "()I"));
+		assertFalse(analysis.isElided(TARGET, "callsReadField", "()I"));
+		assertFalse(analysis.isElided(TARGET, "run", "(I)I"));
+		assertFalse(analysis.isElided(TARGET, "instance", "(I)I"));
+	}
+
+	@Test
+	public void testHandleTargets() throws IOException {
+		assertFalse(analysis.isElided(TARGET, "handleTarget", "(I)I"));
+		int lambdaCount = 0;
+		for (MethodNode mn : readClassNode(TARGET).methods) {
+			if (mn.name.startsWith("lambda$")) {
+				assertFalse(analysis.isElided(TARGET, mn.name, mn.desc));
+				lambdaCount++;
+			}
+		}
+		assertEquals(1, lambdaCount);
+	}
+
+	@Test
+	public void testElidedCount() {
+		assertEquals(2, analysis.getElidedCount());
+	}
+
+	private static ClassNode readClassNode(String name) throws IOException {
+		ClassNode cn = new ClassNode();
+		new ClassReader(readClass(name)).accept(cn, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+		return cn;
+	}
+
+	private static byte[] readClass(String name) throws IOException {
+		try (InputStream in = TaintAnalysisTest.class.getResourceAsStream("/" + name + ".class")) {
+			assertNotNull(in);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+				out.write(buffer, 0, n);
+			}
+			return out.toByteArray();
+		}
+	}
+
+}
@@ -0,0 +1,414 @@
+package za.ac.sun.cs.coastal.pathtree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.Configuration;
+import za.ac.sun.cs.coastal.pathtree.PathTree.FrontierOrder;
+import za.ac.sun.cs.coastal.solver.Expression;
+import za.ac.sun.cs.coastal.solver.Operation;
+import za.ac.sun.cs.coastal.symbolic.Branch;
+import za.ac.sun.cs.coastal.symbolic.Choice;
+import za.ac.sun.cs.coastal.symbolic.Execution;
+import za.ac.sun.cs.coastal.symbolic.Path;
+
+public class PathTreeTest {
+
+	/**
+	 * The number of alternatives of the branches at each depth of the simulated
+	 * program. The third branch is wide enough to use a sparse child container.
+	 */
+	private static final int[] WIDTHS = { 2, 3, 20, 2 };
+
+	private static final Branch[] BRANCHES = new Branch[WIDTHS.length];
+
+	static {
+		for (int i = 0; i < WIDTHS.length; i++) {
+			BRANCHES[i] = new TestBranch(WIDTHS[i]);
+		}
+	}
+
+	private static class TestBranch extends Branch {
+
+		private final int width;
+
+		TestBranch(int width) {
+			this.width = width;
+		}
+
+		@Override
+		public long getNumberOfAlternatives() {
+			return width;
+		}
+
+		@Override
+		public String getAlternativeRepr(long alternative) {
+			return Long.toString(alternative);
+		}
+
+		@Override
+		public Expression getAlternative(long alternative) {
+			return Operation.TRUE;
+		}
+
+		@Override
+		protected Expression getPCContribution(long alternative) {
+			return Operation.TRUE;
+		}
+
+		@Override
+		protected String toString0() {
+			return "B" + width;
+		}
+
+	}
+
+	// ======================================================================
+	//
+	// SIMULATED PROGRAM
+	//
+	// ======================================================================
+
+	private static PathTree createPathTree() {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		Configuration config = Configuration.load(log, new String[] { "Test01.properties", "simple/Choice01.properties" });
+		assertNotNull(config);
+		return new PathTree(new COASTAL(log, config));
+	}
+
+	private static int sum(Path path) {
+		int sum = 0;
+		for (Path p = path; p != null; p = p.getParent()) {
+			sum += p.getChoice().getAlternative();
+		}
+		return sum;
+	}
+
+	/**
+	 * Check whether the simulated program terminates after the given choices.
+	 */
+	private static boolean isComplete(Path path) {
+		return (path != null) && ((path.getDepth() == WIDTHS.length) || (sum(path) % 7 == 3));
+	}
+
+	/**
+	 * Check whether the given choices are infeasible.
+	 */
+	private static boolean isInfeasible(Path path) {
+		return (path != null) && (sum(path) % 11 == 5);
+	}
+
+	/**
+	 * Run the simulated program: follow the given choices, and then take the
+	 * last alternative at every branch until the program terminates. (Since
+	 * strategies look for unexplored alternatives from left to right, this
+	 * ensures that paths are not only inserted from left to right.)
+	 */
+	private static Path run(Path path) {
+		while (!isComplete(path)) {
+			int depth = (path == null) ? 0 : path.getDepth();
+			path = new Path(path, new Choice(BRANCHES[depth], WIDTHS[depth] - 1));
+		}
+		return path;
+	}
+
+	private static Path path(int... alternatives) {
+		Path path = null;
+		for (int i = 0; i < alternatives.length; i++) {
+			path = new Path(path, new Choice(BRANCHES[i], alternatives[i]));
+		}
+		return path;
+	}
+
+	private static String signature(Path path) {
+		StringBuilder b = new StringBuilder();
+		for (Path p = path; p != null; p = p.getParent()) {
+			b.insert(0, p.getChoice().getAlternative()).insert(0, '.');
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Return all the terminal paths of the simulated program, in no particular
+	 * order. Infeasible paths are cut off at the first infeasible choice.
+	 */
+	private static List<Path> allPaths() {
+		List<Path> paths = new ArrayList<>();
+		addPaths(null, paths);
+		return paths;
+	}
+
+	private static void addPaths(Path path, List<Path> paths) {
+		if (isInfeasible(path) || isComplete(path)) {
+			paths.add(path);
+		} else {
+			int depth = (path == null) ? 0 : path.getDepth();
+			for (int i = 0; i < WIDTHS[depth]; i++) {
+				addPaths(new Path(path, new Choice(BRANCHES[depth], i)), paths);
+			}
+		}
+	}
+
+	private static void insert(PathTree tree, Path path) {
+		if (isInfeasible(path)) {
+			tree.insertPath(new Execution(path, null), true);
+		} else {
+			tree.insertPath(new Execution(run(path), null), false);
+		}
+	}
+
+	/**
+	 * Run a task on several threads at the same time, and rethrow the first
+	 * failure.
+	 */
+	private static void runConcurrently(int threadCount, final Task task) throws InterruptedException {
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Throwable> failures = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < threadCount; t++) {
+			final int id = t;
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+					task.run(id);
+				} catch (Throwable x) {
+					synchronized (failures) {
+						failures.add(x);
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		if (!failures.isEmpty()) {
+			throw new AssertionError(failures.get(0));
+		}
+	}
+
+	private interface Task {
+		void run(int id) throws Exception;
+	}
+
+	// ======================================================================
+	//
+	// CONCURRENT INSERTION
+	//
+	// ======================================================================
+
+	private static final int THREADS = 8;
+
+	@Test
+	public void testConcurrentCreateChild() throws InterruptedException {
+		for (int round = 0; round < 20; round++) {
+			PathTree tree = createPathTree();
+			tree.insertPath(new Execution(run(path(0)), null), false);
+			final PathTreeNode root = tree.getRoot();
+			final PathTreeNode[] children = new PathTreeNode[THREADS];
+			final AtomicInteger leaves = new AtomicInteger(0);
+			runConcurrently(THREADS, id -> {
+				children[id] = root.createChild(path(1, 0), 1);
+				if (children[id].createLeaf(2, new Execution(path(1, 2), null)) != null) {
+					leaves.incrementAndGet();
+				}
+			});
+			for (PathTreeNode child : children) {
+				assertSame(root.getChild(1), child);
+			}
+			assertEquals(1, leaves.get());
+			assertTrue(root.getChild(1).getChild(2).isLeaf());
+		}
+	}
+
+	@Test
+	public void testConcurrentInsertSamePath() throws InterruptedException {
+		for (int round = 0; round < 20; round++) {
+			final PathTree tree = createPathTree();
+			final Path path = run(path(1, 1));
+			final AtomicInteger inserted = new AtomicInteger(0);
+			runConcurrently(THREADS, id -> {
+				if (tree.insertPath(new Execution(path, null), false) != null) {
+					inserted.incrementAndGet();
+				}
+			});
+			assertEquals(1, inserted.get());
+			assertEquals(THREADS, tree.getInsertedCount());
+			assertEquals(THREADS - 1, tree.getRevisitCount());
+			assertEquals(1, tree.getUniqueCount());
+		}
+	}
+
+	/**
+	 * Count the inner nodes of a subtree that are not fully explored.
+	 */
+	private static int countIncomplete(PathTreeNode node) {
+		if ((node == null) || node.isLeaf() || node.isInfeasible()) {
+			return 0;
+		}
+		int count = node.isFullyExplored() ? 0 : 1;
+		for (int i = 0, n = node.getChildCount(); i < n; i++) {
+			count += countIncomplete(node.getChild(i));
+		}
+		return count;
+	}
+
+	private static void insertAll(final PathTree tree, final List<Path> paths) throws InterruptedException {
+		runConcurrently(THREADS, id -> {
+			List<Path> shuffled = new ArrayList<>(paths);
+			Collections.shuffle(shuffled, new Random(id));
+			for (Path path : shuffled) {
+				tree.insertPath(new Execution(path, null), isInfeasible(path));
+			}
+		});
+	}
+
+	@Test
+	public void testConcurrentCompletion() throws InterruptedException {
+		List<Path> paths = allPaths();
+		for (int round = 0; round < 10; round++) {
+			PathTree tree = createPathTree();
+			insertAll(tree, paths);
+			assertTrue(tree.getRoot().isFullyExplored());
+			assertEquals(0, countIncomplete(tree.getRoot()));
+			assertEquals(THREADS * paths.size(), tree.getInsertedCount());
+			assertEquals((THREADS - 1) * paths.size(), tree.getRevisitCount());
+		}
+	}
+
+	@Test
+	public void testConcurrentCompletionWithMissingPath() throws InterruptedException {
+		List<Path> paths = allPaths();
+		Random random = new Random(1);
+		for (int round = 0; round < 10; round++) {
+			List<Path> partial = new ArrayList<>(paths);
+			Path missing = partial.remove(random.nextInt(partial.size()));
+			PathTree tree = createPathTree();
+			insertAll(tree, partial);
+			// Exactly the ancestors of the missing path are incomplete
+			assertFalse(tree.getRoot().isFullyExplored());
+			assertEquals(missing.getDepth(), countIncomplete(tree.getRoot()));
+			tree.insertPath(new Execution(missing, null), isInfeasible(missing));
+			assertTrue(tree.getRoot().isFullyExplored());
+			assertEquals(0, countIncomplete(tree.getRoot()));
+		}
+	}
+
+	// ======================================================================
+	//
+	// FRONTIER
+	//
+	// ======================================================================
+
+	private interface Finder {
+		Path find(PathTree tree);
+	}
+
+	/**
+	 * Explore the simulated program with the given strategy, and return the
+	 * signatures of the paths in the order in which they were found.
+	 */
+	private static List<String> explore(Finder finder) {
+		PathTree tree = createPathTree();
+		List<String> order = new ArrayList<>();
+		insert(tree, null);
+		for (Path path = finder.find(tree); path != null; path = finder.find(tree)) {
+			order.add(signature(path));
+			insert(tree, path);
+		}
+		assertTrue(tree.getRoot().isFullyExplored());
+		return order;
+	}
+
+	/**
+	 * The depth-first walk from the root that the frontier replaces.
+	 */
+	private static Path walkDepthFirst(PathTree tree) {
+		PathTreeNode curNode = tree.getRoot();
+		outer: while (true) {
+			int n = curNode.getChildCount();
+			for (int i = 0; i < n; i++) {
+				PathTreeNode childNode = curNode.getChild(i);
+				if ((childNode != null) && !childNode.isComplete()) {
+					curNode = childNode;
+					continue outer;
+				}
+			}
+			for (int i = 0; i < n; i++) {
+				if (curNode.getChild(i) == null) {
+					return curNode.getPathForChild(i);
+				}
+			}
+			return null;
+		}
+	}
+
+	/**
+	 * The breadth-first walk from the root that the frontier replaces.
+	 */
+	private static Path walkBreadthFirst(PathTree tree) {
+		Queue<PathTreeNode> workingSet = new LinkedList<>();
+		workingSet.add(tree.getRoot());
+		while (!workingSet.isEmpty()) {
+			PathTreeNode node = workingSet.remove();
+			int n = node.getChildCount();
+			for (int i = 0; i < n; i++) {
+				PathTreeNode childNode = node.getChild(i);
+				if (childNode == null) {
+					return node.getPathForChild(i);
+				} else if (!childNode.isComplete()) {
+					workingSet.add(childNode);
+				}
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testDepthFirstOrder() {
+		List<String> expected = explore(PathTreeTest::walkDepthFirst);
+		List<String> actual = explore(tree -> tree.findFrontierPath(FrontierOrder.DEPTH_FIRST));
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testBreadthFirstOrder() {
+		List<String> expected = explore(PathTreeTest::walkBreadthFirst);
+		List<String> actual = explore(tree -> tree.findFrontierPath(FrontierOrder.BREADTH_FIRST));
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testFrontierRepeatsUninsertedPath() {
+		PathTree tree = createPathTree();
+		assertNull(tree.findFrontierPath(FrontierOrder.DEPTH_FIRST));
+		insert(tree, null);
+		Path path = tree.findFrontierPath(FrontierOrder.DEPTH_FIRST);
+		assertEquals(signature(path), signature(tree.findFrontierPath(FrontierOrder.DEPTH_FIRST)));
+		insert(tree, path);
+		Path next = tree.findFrontierPath(FrontierOrder.DEPTH_FIRST);
+		assertTrue(!signature(path).equals(signature(next)));
+	}
+
+}
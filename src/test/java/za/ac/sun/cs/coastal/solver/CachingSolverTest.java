@@ -0,0 +1,100 @@
+package za.ac.sun.cs.coastal.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.Test;
+
+import za.ac.sun.cs.coastal.COASTAL;
+import za.ac.sun.cs.coastal.Configuration;
+import za.ac.sun.cs.coastal.symbolic.Input;
+
+public class CachingSolverTest {
+
+	private static final Expression X = new IntegerVariable("X", 32, -100, 100);
+
+	private static final Expression Y = new IntegerVariable("Y", 32, -100, 100);
+
+	/**
+	 * A solver that returns a fixed answer and counts how often it is called.
+	 */
+	private static class FixedSolver extends Solver {
+
+		final AtomicInteger calls = new AtomicInteger(0);
+
+		Input answer;
+
+		FixedSolver(COASTAL coastal, Configuration configuration, Input answer) {
+			super(coastal, configuration);
+			this.answer = answer;
+		}
+
+		@Override
+		public Input solve(Expression expression) {
+			Input input = check(expression);
+			return (input == UNSATISFIABLE) ? null : input;
+		}
+
+		@Override
+		public Input check(Expression expression) {
+			calls.incrementAndGet();
+			return answer;
+		}
+
+	}
+
+	private static COASTAL createCoastal() {
+		final Logger log = LogManager.getLogger("COASTAL-TEST");
+		Configuration config = Configuration.load(log, new String[] { "Test01.properties", "simple/Choice01.properties" });
+		assertNotNull(config);
+		return new COASTAL(log, config);
+	}
+
+	@Test
+	public void testFailuresAreNotCached() {
+		COASTAL coastal = createCoastal();
+		FixedSolver delegate = new FixedSolver(coastal, coastal.getConfig(), null);
+		Solver solver = new CachingSolver(coastal, coastal.getConfig(), delegate, 100);
+		Expression query = Operation.lt(X, new IntegerConstant(5, 32));
+		assertNull(solver.solve(query));
+		assertNull(solver.solve(query));
+		assertEquals(2, delegate.calls.get());
+		Input model = new Input();
+		model.put("X", 3L);
+		delegate.answer = model;
+		assertEquals(3L, solver.solve(query).get("X"));
+		assertEquals(3, delegate.calls.get());
+	}
+
+	@Test
+	public void testUnsatisfiableIsCached() {
+		COASTAL coastal = createCoastal();
+		FixedSolver delegate = new FixedSolver(coastal, coastal.getConfig(), Solver.UNSATISFIABLE);
+		Solver solver = new CachingSolver(coastal, coastal.getConfig(), delegate, 100);
+		Expression query = Operation.lt(X, new IntegerConstant(5, 32));
+		assertNull(solver.solve(query));
+		assertSame(Solver.UNSATISFIABLE, solver.check(query));
+		assertEquals(1, delegate.calls.get());
+	}
+
+	@Test
+	public void testModelIsRenamed() {
+		COASTAL coastal = createCoastal();
+		Input model = new Input();
+		model.put("X", 3L);
+		FixedSolver delegate = new FixedSolver(coastal, coastal.getConfig(), model);
+		Solver solver = new CachingSolver(coastal, coastal.getConfig(), delegate, 100);
+		assertEquals(3L, solver.solve(Operation.lt(X, new IntegerConstant(5, 32))).get("X"));
+		Input renamed = solver.solve(Operation.lt(Y, new IntegerConstant(5, 32)));
+		assertEquals(1, delegate.calls.get());
+		assertEquals(3L, renamed.get("Y"));
+		assertNull(renamed.get("X"));
+	}
+
+}
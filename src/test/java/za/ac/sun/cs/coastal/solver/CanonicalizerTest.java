@@ -0,0 +1,106 @@
+package za.ac.sun.cs.coastal.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class CanonicalizerTest {
+
+	private static final Expression X = new IntegerVariable("X", 32, -100, 100);
+
+	private static final Expression Y = new IntegerVariable("Y", 32, -100, 100);
+
+	private static final Expression Z = new IntegerVariable("Z", 32, -100, 100);
+
+	private static final Expression A = new IntegerVariable("A", 32, -100, 100);
+
+	private static final Expression B = new IntegerVariable("B", 32, -100, 100);
+
+	private static final Expression C = new IntegerVariable("C", 32, 0, 10);
+
+	private static Expression c(long value) {
+		return new IntegerConstant(value, 32);
+	}
+
+	private static String canonical(Expression expression) throws VisitorException {
+		return new Canonicalizer(expression).getCanonical();
+	}
+
+	@Test
+	public void testConjunctOrder() throws VisitorException {
+		Expression e1 = Operation.and(Operation.lt(X, c(5)), Operation.eq(Y, c(3)));
+		Expression e2 = Operation.and(Operation.eq(Y, c(3)), Operation.lt(X, c(5)));
+		assertEquals(canonical(e1), canonical(e2));
+	}
+
+	@Test
+	public void testNesting() throws VisitorException {
+		Expression p = Operation.lt(X, c(5));
+		Expression q = Operation.eq(Y, c(3));
+		Expression r = Operation.ne(Z, c(0));
+		Expression left = Operation.and(Operation.and(p, q), r);
+		Expression right = Operation.and(p, Operation.and(q, r));
+		Expression mixed = Operation.and(Operation.and(r, p), q);
+		assertEquals(canonical(left), canonical(right));
+		assertEquals(canonical(left), canonical(mixed));
+	}
+
+	@Test
+	public void testRenaming() throws VisitorException {
+		Expression e1 = Operation.and(Operation.lt(X, Y), Operation.eq(Y, c(3)));
+		Expression e2 = Operation.and(Operation.lt(A, B), Operation.eq(B, c(3)));
+		assertEquals(canonical(e1), canonical(e2));
+		Canonicalizer c1 = new Canonicalizer(e1);
+		Canonicalizer c2 = new Canonicalizer(e2);
+		assertEquals(c1.toCanonical("X"), c2.toCanonical("A"));
+		assertEquals(c1.toCanonical("Y"), c2.toCanonical("B"));
+		assertEquals("A", c2.fromCanonical(c1.toCanonical("X")));
+		assertEquals("B", c2.fromCanonical(c1.toCanonical("Y")));
+		assertNull(c1.toCanonical("Z"));
+	}
+
+	@Test
+	public void testCommutativeOperands() throws VisitorException {
+		Expression e1 = Operation.eq(new Operation(Operation.Operator.ADD, X, c(1)), c(7));
+		Expression e2 = Operation.eq(c(7), new Operation(Operation.Operator.ADD, c(1), X));
+		assertEquals(canonical(e1), canonical(e2));
+	}
+
+	@Test
+	public void testGreaterThan() throws VisitorException {
+		assertEquals(canonical(Operation.lt(X, c(5))), canonical(Operation.gt(c(5), X)));
+		assertEquals(canonical(Operation.le(X, c(5))), canonical(Operation.ge(c(5), X)));
+	}
+
+	@Test
+	public void testDistinctQueries() throws VisitorException {
+		// Different constants
+		assertNotEquals(canonical(Operation.lt(X, c(5))), canonical(Operation.lt(X, c(6))));
+		// Different bounds
+		assertNotEquals(canonical(Operation.lt(X, c(5))), canonical(Operation.lt(C, c(5))));
+		// Non-commutative operands
+		assertNotEquals(canonical(Operation.lt(X, c(5))), canonical(Operation.lt(c(5), X)));
+		// Shared versus distinct variables
+		Expression shared = Operation.and(Operation.lt(X, c(5)), Operation.gt(X, c(1)));
+		Expression distinct = Operation.and(Operation.lt(X, c(5)), Operation.gt(Y, c(1)));
+		assertNotEquals(canonical(shared), canonical(distinct));
+	}
+
+	@Test
+	public void testDeepConjunction() throws VisitorException {
+		final int depth = 5000;
+		Expression right = Operation.ne(X, c(0));
+		Expression left = Operation.ne(X, c(0));
+		for (int i = 1; i < depth; i++) {
+			right = Operation.and(Operation.ne(X, c(i)), right);
+			left = Operation.and(left, Operation.ne(X, c(depth - i)));
+		}
+		String canonical = canonical(right);
+		assertEquals(canonical, canonical(left));
+		// A single conjunction of all the conjuncts
+		assertEquals(canonical.indexOf("AND("), canonical.lastIndexOf("AND("));
+	}
+
+}
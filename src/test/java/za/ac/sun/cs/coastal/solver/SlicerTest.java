@@ -0,0 +1,131 @@
+package za.ac.sun.cs.coastal.solver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import za.ac.sun.cs.coastal.solver.Operation.Operator;
+
+public class SlicerTest {
+
+	private static final Expression A = new IntegerVariable("A", 32, -100, 100);
+
+	private static final Expression B = new IntegerVariable("B", 32, -100, 100);
+
+	private static final Expression C = new IntegerVariable("C", 32, -100, 100);
+
+	private static final Expression D = new IntegerVariable("D", 32, -100, 100);
+
+	private static final Expression E = new IntegerVariable("E", 32, -100, 100);
+
+	private static Expression c(long value) {
+		return new IntegerConstant(value, 32);
+	}
+
+	private static Expression and(Expression... conjuncts) {
+		Expression result = conjuncts[conjuncts.length - 1];
+		for (int i = conjuncts.length - 2; i >= 0; i--) {
+			result = Operation.and(conjuncts[i], result);
+		}
+		return result;
+	}
+
+	private static List<Expression> conjuncts(Expression expression) {
+		List<Expression> conjuncts = new ArrayList<>();
+		while ((expression instanceof Operation) && (((Operation) expression).getOperator() == Operator.AND)) {
+			conjuncts.add(((Operation) expression).getOperand(0));
+			expression = ((Operation) expression).getOperand(1);
+		}
+		conjuncts.add(expression);
+		return conjuncts;
+	}
+
+	@Test
+	public void testIndependentConjunctsRemoved() throws VisitorException {
+		Expression a = Operation.lt(A, c(5));
+		Expression b = Operation.gt(B, c(3));
+		Expression flipped = Operation.ne(A, c(0));
+		Slicer slicer = new Slicer(and(a, b, flipped), flipped);
+		assertTrue(slicer.isSliced());
+		assertEquals(Arrays.asList(a, flipped), conjuncts(slicer.getSlice()));
+		assertEquals(new HashSet<>(Arrays.asList("A")), slicer.getVariables());
+	}
+
+	@Test
+	public void testTransitiveClosure() throws VisitorException {
+		// A -- B -- C are connected through shared variables, D -- E are not
+		Expression ab = Operation.lt(A, B);
+		Expression bc = Operation.eq(B, Operation.add(C, c(1)));
+		Expression de = Operation.ne(D, E);
+		Expression e = Operation.gt(E, c(7));
+		Expression flipped = Operation.lt(C, c(10));
+		Slicer slicer = new Slicer(and(ab, de, bc, e, flipped), flipped);
+		assertTrue(slicer.isSliced());
+		assertEquals(Arrays.asList(ab, bc, flipped), conjuncts(slicer.getSlice()));
+		assertEquals(new HashSet<>(Arrays.asList("A", "B", "C")), slicer.getVariables());
+	}
+
+	@Test
+	public void testLateConnection() throws VisitorException {
+		// The last conjunct connects the component of A to the flipped one
+		Expression a = Operation.lt(A, c(5));
+		Expression d = Operation.lt(D, c(5));
+		Expression flipped = Operation.ne(B, c(0));
+		Expression ab = Operation.le(A, B);
+		Slicer slicer = new Slicer(and(a, d, flipped, ab), flipped);
+		assertTrue(slicer.isSliced());
+		assertEquals(Arrays.asList(a, flipped, ab), conjuncts(slicer.getSlice()));
+	}
+
+	@Test
+	public void testConstantConjunctsKept() throws VisitorException {
+		Expression constant = Operation.lt(c(1), c(2));
+		Expression d = Operation.lt(D, c(5));
+		Expression flipped = Operation.ne(A, c(0));
+		Slicer slicer = new Slicer(and(constant, d, flipped), flipped);
+		assertTrue(slicer.isSliced());
+		assertEquals(Arrays.asList(constant, flipped), conjuncts(slicer.getSlice()));
+	}
+
+	@Test
+	public void testNothingToRemove() throws VisitorException {
+		Expression ab = Operation.lt(A, B);
+		Expression flipped = Operation.ne(B, c(0));
+		Expression expression = and(ab, flipped);
+		Slicer slicer = new Slicer(expression, flipped);
+		assertFalse(slicer.isSliced());
+		assertSame(expression, slicer.getSlice());
+	}
+
+	@Test
+	public void testFlippedWithoutVariables() throws VisitorException {
+		Expression a = Operation.lt(A, c(5));
+		Expression flipped = Operation.ne(c(1), c(0));
+		Expression expression = and(a, flipped);
+		Slicer slicer = new Slicer(expression, flipped);
+		assertFalse(slicer.isSliced());
+		assertSame(expression, slicer.getSlice());
+		assertEquals(new HashSet<>(Arrays.asList("A")), slicer.getVariables());
+	}
+
+	@Test
+	public void testNestedConjunctions() throws VisitorException {
+		Expression a = Operation.lt(A, c(5));
+		Expression b = Operation.lt(B, c(5));
+		Expression ac = Operation.lt(A, C);
+		Expression flipped = Operation.ne(C, c(0));
+		Expression expression = Operation.and(Operation.and(a, b), Operation.and(ac, flipped));
+		Slicer slicer = new Slicer(expression, flipped);
+		assertTrue(slicer.isSliced());
+		assertEquals(Arrays.asList(a, ac, flipped), conjuncts(slicer.getSlice()));
+	}
+
+}
@@ -0,0 +1,154 @@
+package za.ac.sun.cs.coastal.symbolic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class InputQueueTest {
+
+	private static Input input(int priority) {
+		Input input = new Input();
+		input.setPayload("priority", priority);
+		return input;
+	}
+
+	@Test
+	public void testOrderWithinShard() throws InterruptedException {
+		InputQueue queue = new InputQueue(1);
+		Input a = input(5), b = input(1), c = input(5), d = input(3);
+		queue.put(a);
+		queue.put(b);
+		queue.put(c);
+		queue.put(d);
+		assertEquals(4, queue.size());
+		assertSame(b, queue.take());
+		assertSame(d, queue.take());
+		assertSame(a, queue.take());
+		assertSame(c, queue.take());
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testOrderAcrossShards() throws InterruptedException {
+		for (int shards = 2; shards <= 8; shards++) {
+			InputQueue queue = new InputQueue(shards);
+			for (int i = 0; i < 100; i++) {
+				queue.put(input((i * 37) % 100));
+			}
+			for (int i = 0; i < 100; i++) {
+				assertEquals(i, queue.take().getPriority());
+			}
+		}
+	}
+
+	@Test
+	public void testConcurrentTake() throws InterruptedException {
+		InputQueue queue = new InputQueue(4);
+		Set<Input> inputs = ConcurrentHashMap.newKeySet();
+		Set<Input> taken = ConcurrentHashMap.newKeySet();
+		AtomicInteger duplicates = new AtomicInteger(0);
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			if (t % 2 == 0) {
+				threads[t] = new Thread(() -> {
+					for (int i = 0; i < 1000; i++) {
+						Input input = input(i % 17);
+						inputs.add(input);
+						queue.put(input);
+					}
+				});
+			} else {
+				threads[t] = new Thread(() -> {
+					try {
+						for (int i = 0; i < 1000; i++) {
+							if (!taken.add(queue.take())) {
+								duplicates.incrementAndGet();
+							}
+						}
+					} catch (InterruptedException x) {
+						// the test fails below
+					}
+				});
+			}
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join(10000);
+			assertFalse(thread.isAlive());
+		}
+		assertEquals(0, duplicates.get());
+		assertEquals(inputs, taken);
+		assertEquals(0, queue.size());
+	}
+
+	@Test
+	public void testClear() throws InterruptedException {
+		InputQueue queue = new InputQueue(4);
+		for (int i = 0; i < 10; i++) {
+			queue.put(input(i));
+		}
+		queue.clear();
+		assertEquals(0, queue.size());
+		Input input = input(7);
+		queue.put(input);
+		assertSame(input, queue.take());
+	}
+
+	@Test
+	public void testClearDuringPut() throws InterruptedException {
+		for (int round = 0; round < 20; round++) {
+			InputQueue queue = new InputQueue(4);
+			AtomicBoolean stop = new AtomicBoolean(false);
+			Thread producer = new Thread(() -> {
+				for (int i = 0; !stop.get(); i++) {
+					queue.put(input(i % 10));
+				}
+			});
+			producer.start();
+			for (int i = 0; i < 100; i++) {
+				queue.clear();
+			}
+			stop.set(true);
+			producer.join();
+			// Every remaining permit must still have its input
+			int count = queue.size();
+			for (int i = 0; i < count; i++) {
+				queue.take();
+			}
+			assertEquals(0, queue.size());
+		}
+	}
+
+	@Test
+	public void testInterruptedTake() throws InterruptedException {
+		InputQueue queue = new InputQueue(2);
+		CountDownLatch started = new CountDownLatch(1);
+		AtomicBoolean interrupted = new AtomicBoolean(false);
+		Thread consumer = new Thread(() -> {
+			started.countDown();
+			try {
+				queue.take();
+			} catch (InterruptedException x) {
+				interrupted.set(true);
+			}
+		});
+		consumer.start();
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		consumer.interrupt();
+		consumer.join(5000);
+		assertFalse(consumer.isAlive());
+		assertTrue(interrupted.get());
+		assertEquals(0, queue.size());
+	}
+
+}
@@ -0,0 +1,131 @@
+package za.ac.sun.cs.coastal.symbolic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class VisitedInputsTest {
+
+	private static final int THREADS = 8;
+
+	private static Input input(long x, long y) {
+		Input input = new Input();
+		input.put("X", x);
+		input.put("Y", y);
+		return input;
+	}
+
+	@Test
+	public void testPayloadIgnored() {
+		VisitedInputs visited = new VisitedInputs(0);
+		Input first = input(1, 2);
+		first.setPayload("priority", 10);
+		Input second = input(1, 2);
+		second.setPayload("priority", 20);
+		assertTrue(visited.add(first));
+		assertFalse(visited.add(second));
+		assertEquals(1, visited.size());
+	}
+
+	@Test
+	public void testDistinctValues() {
+		VisitedInputs visited = new VisitedInputs(0);
+		assertTrue(visited.add(input(1, 2)));
+		assertTrue(visited.add(input(2, 1)));
+		assertFalse(visited.add(input(1, 2)));
+		Input typed = new Input();
+		typed.put("X", 1);
+		typed.put("Y", 2);
+		assertTrue(visited.add(typed));
+		Input indexed = new Input();
+		indexed.put(0, 1L);
+		indexed.put(1, 2L);
+		assertTrue(visited.add(indexed));
+		assertEquals(4, visited.size());
+	}
+
+	@Test
+	public void testSlotCollisions() {
+		// Fingerprints that map to the same slot must be kept apart
+		VisitedInputs.Stripe stripe = new VisitedInputs.Stripe();
+		final long lo = 42;
+		for (long hi = 1; hi <= 200; hi++) {
+			assertTrue(stripe.add(hi, lo));
+		}
+		for (long hi = 1; hi <= 200; hi++) {
+			assertFalse(stripe.add(hi, lo));
+		}
+		assertTrue(stripe.add(201, lo));
+		assertTrue(stripe.add(1, lo + 1));
+	}
+
+	@Test
+	public void testConcurrentExact() throws InterruptedException {
+		checkConcurrent(new VisitedInputs(0), true);
+	}
+
+	@Test
+	public void testConcurrentBloom() throws InterruptedException {
+		checkConcurrent(new VisitedInputs(1 << 24), false);
+	}
+
+	/**
+	 * Let several threads add overlapping ranges of inputs, each with its own
+	 * priority. Each distinct input must be reported as new exactly once (or, for
+	 * the Bloom filter, at most once).
+	 */
+	private static void checkConcurrent(final VisitedInputs visited, boolean isExact) throws InterruptedException {
+		final int count = 20000;
+		final AtomicInteger added = new AtomicInteger(0);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Throwable> failures = new ArrayList<>();
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			final int offset = t * (count / THREADS) / 2;
+			final int priority = t;
+			threads.add(new Thread(() -> {
+				try {
+					start.await();
+					for (int i = 0; i < count; i++) {
+						int value = (offset + i) % count;
+						Input input = input(value, -value);
+						input.setPayload("priority", priority);
+						if (visited.add(input)) {
+							added.incrementAndGet();
+						}
+					}
+				} catch (Throwable x) {
+					synchronized (failures) {
+						failures.add(x);
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(failures.toString(), failures.isEmpty());
+		if (isExact) {
+			assertEquals(count, added.get());
+			assertEquals(count, visited.size());
+		} else {
+			assertTrue(added.get() <= count);
+			assertEquals(added.get(), visited.size());
+		}
+		for (int i = 0; i < count; i++) {
+			assertFalse(visited.add(input(i, -i)));
+		}
+	}
+
+}